@@ -0,0 +1,296 @@
+package ie.tcd.scss.countryinfo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Application settings bound from the {@code countryinfo.*} keys in application.properties.
+ */
+@ConfigurationProperties(prefix = "countryinfo")
+public class CountryInfoProperties {
+
+    /**
+     * How upstream lookups by name are made, see {@link #getMode()}.
+     */
+    public enum Mode { BLOCKING, REACTIVE }
+
+    // blocking: RestTemplate on servlet threads; reactive: WebClient, endpoints return Mono
+    private Mode mode = Mode.BLOCKING;
+
+    private final Api api = new Api();
+    private final Snapshot snapshot = new Snapshot();
+    private final Cache cache = new Cache();
+    private final FanOut fanOut = new FanOut();
+    private final Http http = new Http();
+    private final Breaker breaker = new Breaker();
+    private final Threads threads = new Threads();
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    public Api getApi() {
+        return api;
+    }
+
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public FanOut getFanOut() {
+        return fanOut;
+    }
+
+    public Http getHttp() {
+        return http;
+    }
+
+    public Breaker getBreaker() {
+        return breaker;
+    }
+
+    public Threads getThreads() {
+        return threads;
+    }
+
+    /**
+     * Location of the upstream REST Countries API.
+     */
+    public static class Api {
+        // base URL of the REST Countries API, without trailing slash
+        private String baseUrl = "https://restcountries.com/v3.1";
+
+        public String getBaseUrl() {
+            return baseUrl;
+        }
+
+        public void setBaseUrl(String baseUrl) {
+            this.baseUrl = baseUrl;
+        }
+    }
+
+    /**
+     * Settings for the in-memory snapshot of all countries.
+     */
+    public static class Snapshot {
+        // how long a loaded snapshot is used before it is refreshed from upstream
+        private Duration refreshInterval = Duration.ofHours(1);
+        // where the snapshot is persisted to serve right after a restart, relative to the working directory unless
+        // absolute; null disables persistence
+        private Path file;
+        // answer lookups by name from the snapshot instead of the upstream, the snapshot then holds all attributes
+        private boolean resolveNames = true;
+
+        public Duration getRefreshInterval() {
+            return refreshInterval;
+        }
+
+        public void setRefreshInterval(Duration refreshInterval) {
+            this.refreshInterval = refreshInterval;
+        }
+
+        public Path getFile() {
+            return file;
+        }
+
+        public void setFile(Path file) {
+            this.file = file;
+        }
+
+        public boolean isResolveNames() {
+            return resolveNames;
+        }
+
+        public void setResolveNames(boolean resolveNames) {
+            this.resolveNames = resolveNames;
+        }
+    }
+
+    /**
+     * Settings for the cache of lookups by country name.
+     */
+    public static class Cache {
+        // maximum number of cached names, the least recently used name is evicted first
+        private int maxSize = 1000;
+        // how long a found country is cached
+        private Duration ttl = Duration.ofMinutes(10);
+        // how long an unknown name (404 from upstream) is cached
+        private Duration negativeTtl = Duration.ofMinutes(1);
+        // how long past its TTL an entry is still served while it is revalidated in the background
+        private Duration maxStale = Duration.ofHours(1);
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public Duration getNegativeTtl() {
+            return negativeTtl;
+        }
+
+        public void setNegativeTtl(Duration negativeTtl) {
+            this.negativeTtl = negativeTtl;
+        }
+
+        public Duration getMaxStale() {
+            return maxStale;
+        }
+
+        public void setMaxStale(Duration maxStale) {
+            this.maxStale = maxStale;
+        }
+    }
+
+    /**
+     * Settings for upstream lookups that are made in parallel within one request.
+     */
+    public static class FanOut {
+        // number of threads for parallel upstream lookups
+        private int poolSize = 16;
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public void setPoolSize(int poolSize) {
+            this.poolSize = poolSize;
+        }
+    }
+
+    /**
+     * Settings for the pooled HTTP client used to call the upstream.
+     */
+    public static class Http {
+        // time to establish a TCP/TLS connection
+        private Duration connectTimeout = Duration.ofSeconds(2);
+        // maximum time without data while waiting for a response
+        private Duration readTimeout = Duration.ofSeconds(5);
+        // maximum time to wait for a free connection from the pool
+        private Duration poolTimeout = Duration.ofSeconds(1);
+        // idle pooled connections are closed after this time
+        private Duration idleTimeout = Duration.ofSeconds(30);
+        private int maxConnections = 50;
+        private int maxConnectionsPerRoute = 20;
+
+        public Duration getConnectTimeout() {
+            return connectTimeout;
+        }
+
+        public void setConnectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+        }
+
+        public Duration getReadTimeout() {
+            return readTimeout;
+        }
+
+        public void setReadTimeout(Duration readTimeout) {
+            this.readTimeout = readTimeout;
+        }
+
+        public Duration getPoolTimeout() {
+            return poolTimeout;
+        }
+
+        public void setPoolTimeout(Duration poolTimeout) {
+            this.poolTimeout = poolTimeout;
+        }
+
+        public Duration getIdleTimeout() {
+            return idleTimeout;
+        }
+
+        public void setIdleTimeout(Duration idleTimeout) {
+            this.idleTimeout = idleTimeout;
+        }
+
+        public int getMaxConnections() {
+            return maxConnections;
+        }
+
+        public void setMaxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+        }
+
+        public int getMaxConnectionsPerRoute() {
+            return maxConnectionsPerRoute;
+        }
+
+        public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+            this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        }
+    }
+
+    /**
+     * Settings for the circuit breaker in front of the upstream.
+     */
+    public static class Breaker {
+        // consecutive failed (or slow) upstream calls after which the breaker opens
+        private int failureThreshold = 5;
+        // calls taking longer than this count as failures, even if they succeed
+        private Duration slowCallThreshold = Duration.ofSeconds(3);
+        // how long the breaker rejects calls before letting a trial call through
+        private Duration openDuration = Duration.ofSeconds(30);
+
+        public int getFailureThreshold() {
+            return failureThreshold;
+        }
+
+        public void setFailureThreshold(int failureThreshold) {
+            this.failureThreshold = failureThreshold;
+        }
+
+        public Duration getSlowCallThreshold() {
+            return slowCallThreshold;
+        }
+
+        public void setSlowCallThreshold(Duration slowCallThreshold) {
+            this.slowCallThreshold = slowCallThreshold;
+        }
+
+        public Duration getOpenDuration() {
+            return openDuration;
+        }
+
+        public void setOpenDuration(Duration openDuration) {
+            this.openDuration = openDuration;
+        }
+    }
+
+    /**
+     * Settings for the threads that handle requests and upstream lookups.
+     */
+    public static class Threads {
+        // run request handling and the fan-out on virtual threads, needs Java 21 (build with -Pjava21)
+        private boolean virtual = false;
+
+        public boolean isVirtual() {
+            return virtual;
+        }
+
+        public void setVirtual(boolean virtual) {
+            this.virtual = virtual;
+        }
+    }
+}
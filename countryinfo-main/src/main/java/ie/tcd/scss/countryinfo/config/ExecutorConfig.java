@@ -0,0 +1,59 @@
+package ie.tcd.scss.countryinfo.config;
+
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Thread pools used by the service for parallel work. With {@code countryinfo.threads.virtual=true} Tomcat and the
+ * upstream executor start a virtual thread per task instead, so requests waiting for a slow upstream do not exhaust a
+ * fixed pool; see {@link VirtualThreads}. The effect on throughput and latency is measured by VirtualThreadsBenchmark,
+ * which needs Java 21.
+ */
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * Executor for independent upstream lookups that are made in parallel within one request, e.g. the two countries
+     * of a comparison, and for background reloads of stale cache entries.
+     */
+    @Bean
+    public Executor upstreamExecutor(CountryInfoProperties properties) {
+        if (properties.getThreads().isVirtual()) {
+            return VirtualThreads.newVirtualThreadPerTaskExecutor();
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getFanOut().getPoolSize());
+        executor.setMaxPoolSize(properties.getFanOut().getPoolSize());
+        executor.setThreadNamePrefix("upstream-");
+        return executor;
+    }
+
+    /**
+     * Executor for Tomcat's request handling with {@code countryinfo.threads.virtual=true}, a bean so that it is
+     * closed on shutdown, after the web server has stopped; closing waits for the requests still in progress.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "countryinfo.threads.virtual", havingValue = "true")
+    public ExecutorService tomcatExecutor() {
+        return VirtualThreads.newVirtualThreadPerTaskExecutor();
+    }
+
+    /**
+     * Runs the request handling of Tomcat's connectors on virtual threads. {@code server.tomcat.threads.*} no longer
+     * limits the number of requests in progress, {@code server.tomcat.max-connections} still does.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "countryinfo.threads.virtual", havingValue = "true")
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandler(
+            @Qualifier("tomcatExecutor") ExecutorService tomcatExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(tomcatExecutor);
+    }
+}
@@ -0,0 +1,85 @@
+package ie.tcd.scss.countryinfo.config;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import io.netty.channel.ChannelOption;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * HTTP client for the upstream REST Countries API. Connections are pooled and kept alive between requests, responses
+ * are requested gzip-compressed, and every phase of a request has a timeout, so a slow upstream makes requests fail
+ * fast instead of tying up servlet threads. The settings are taken from the {@code countryinfo.http.*} properties.
+ * <p>
+ * With {@code countryinfo.mode=reactive} there is also a non-blocking {@link WebClient} on Reactor Netty, with the
+ * same limits.
+ */
+@Configuration
+public class HttpClientConfig {
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient upstreamHttpClient(CountryInfoProperties properties) {
+        CountryInfoProperties.Http http = properties.getHttp();
+
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(http.getMaxConnections())
+                .setMaxConnPerRoute(http.getMaxConnectionsPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(http.getConnectTimeout()))
+                        .setSocketTimeout(Timeout.of(http.getReadTimeout()))
+                        .build())
+                .build();
+
+        // the classic client handles keep-alive and transparent gzip/deflate decompression by default
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(http.getPoolTimeout()))
+                        .setResponseTimeout(Timeout.of(http.getReadTimeout()))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(http.getIdleTimeout()))
+                .build();
+    }
+
+    @Bean
+    public RestTemplate restTemplate(CloseableHttpClient upstreamHttpClient) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(upstreamHttpClient));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "countryinfo.mode", havingValue = "reactive")
+    public WebClient upstreamWebClient(WebClient.Builder builder, CountryInfoProperties properties) {
+        CountryInfoProperties.Http http = properties.getHttp();
+
+        // a single route, so the per-route limit of the classic client is the effective one
+        ConnectionProvider connections = ConnectionProvider.builder("upstream")
+                .maxConnections(http.getMaxConnectionsPerRoute())
+                .pendingAcquireTimeout(http.getPoolTimeout())
+                .maxIdleTime(http.getIdleTimeout())
+                .build();
+        HttpClient httpClient = HttpClient.create(connections)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) http.getConnectTimeout().toMillis())
+                .responseTimeout(http.getReadTimeout())
+                .compress(true);
+
+        return builder
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                // lookups of short names like "an" match many countries, more than the default 256 KB
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(16 * 1024 * 1024))
+                .build();
+    }
+}
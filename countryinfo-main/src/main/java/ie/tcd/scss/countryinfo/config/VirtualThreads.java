@@ -0,0 +1,53 @@
+package ie.tcd.scss.countryinfo.config;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Access to the virtual threads of Java 21 from code compiled for Java 17. The factory method is looked up
+ * reflectively, so the same build runs on both; with {@code countryinfo.threads.virtual=true} on an older runtime the
+ * application fails at startup instead of silently running on platform threads.
+ */
+final class VirtualThreads {
+
+    // Executors.newVirtualThreadPerTaskExecutor(), or null before Java 21
+    private static final MethodHandle NEW_EXECUTOR = findExecutorFactory();
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * @return True if the running JVM supports virtual threads.
+     */
+    static boolean isSupported() {
+        return NEW_EXECUTOR != null;
+    }
+
+    /**
+     * @return An executor that starts a new virtual thread for each task.
+     * @throws IllegalStateException if the running JVM does not support virtual threads
+     */
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        if (NEW_EXECUTOR == null) {
+            throw new IllegalStateException("countryinfo.threads.virtual requires Java 21 or later, running on "
+                    + Runtime.version());
+        }
+        try {
+            return (ExecutorService) NEW_EXECUTOR.invokeExact();
+        } catch (Throwable e) {
+            throw new IllegalStateException("Cannot create a virtual thread executor", e);
+        }
+    }
+
+    private static MethodHandle findExecutorFactory() {
+        try {
+            return MethodHandles.publicLookup().findStatic(Executors.class, "newVirtualThreadPerTaskExecutor",
+                    MethodType.methodType(ExecutorService.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+}
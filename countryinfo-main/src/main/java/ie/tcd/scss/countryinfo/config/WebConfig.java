@@ -0,0 +1,47 @@
+package ie.tcd.scss.countryinfo.config;
+
+import ie.tcd.scss.countryinfo.service.StalenessTracker;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Web MVC setup: binds the {@link StalenessTracker} to each request, so stale data served while handling it can be
+ * reported in the response headers.
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final StalenessTracker staleness;
+
+    public WebConfig(StalenessTracker staleness) {
+        this.staleness = staleness;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new AsyncHandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                staleness.begin();
+                return true;
+            }
+
+            @Override
+            public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                        Exception ex) {
+                staleness.end();
+            }
+
+            @Override
+            public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                                       Object handler) {
+                // handlers returning a Mono release the thread here, the async dispatch is tracked on its own
+                staleness.end();
+            }
+        });
+    }
+}
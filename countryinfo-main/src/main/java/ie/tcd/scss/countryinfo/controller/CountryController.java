@@ -1,11 +1,13 @@
 package ie.tcd.scss.countryinfo.controller;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 
         import ie.tcd.scss.countryinfo.domain.Country;
+        import ie.tcd.scss.countryinfo.service.CountryRecord;
         import ie.tcd.scss.countryinfo.service.CountryService;
+        import ie.tcd.scss.countryinfo.service.UpstreamUnavailableException;
         import io.swagger.v3.oas.annotations.Operation;
         import io.swagger.v3.oas.annotations.Parameter;
-        import io.swagger.v3.oas.annotations.media.ExampleObject;
         import io.swagger.v3.oas.annotations.tags.Tag;
         import org.springframework.http.HttpStatus;
         import org.springframework.http.ResponseEntity;
@@ -13,7 +15,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 
         import org.slf4j.Logger;
         import org.slf4j.LoggerFactory;
-import org.springframework.web.client.RestTemplate;
 
 import java.util.ArrayList;
         import java.util.HashMap;
@@ -24,7 +25,13 @@ import java.util.ArrayList;
 
 
 
+/**
+ * Lookups of countries by name, answered from the {@link ie.tcd.scss.countryinfo.service.CountryLookupCache} or the
+ * upstream on a servlet thread. Active unless {@code countryinfo.mode=reactive}, see
+ * {@link ReactiveCountryController}; the endpoints served from the snapshot are in {@link CountrySnapshotController}.
+ */
 @RestController
+@ConditionalOnProperty(name = "countryinfo.mode", havingValue = "blocking", matchIfMissing = true)
 @RequestMapping("/countries")
 @Tag(name = "Country Information", description = "APIs for retrieving and comparing country information")
 // Annotation for OpenAPI/Swagger
@@ -32,16 +39,13 @@ import java.util.ArrayList;
 // Access at http://localhost:8080/swagger-ui.html
 public class CountryController {
     private static final Logger logger = LoggerFactory.getLogger(CountryController.class);
-    private static final String API_URL_ALL = "https://restcountries.com/v3.1/all"; // Define the API URL
 
 
     private final CountryService countryService;
-    private final RestTemplate restTemplate;
 
     @Autowired
-    public CountryController(CountryService countryService, RestTemplate restTemplate) {
+    public CountryController(CountryService countryService) {
         this.countryService = countryService;
-        this.restTemplate = restTemplate;
     }
 
 
@@ -159,82 +163,6 @@ public class CountryController {
     }
 
 
-    /**
-     * "Returns the names of the countries that contain the given substring in descending order of population"
-     * @param substring The substring to search for in country names
-     * @return List of country names, separated by semicolon and space for instance
-     * Country1; Country2; Country3
-     */
-    @Operation(
-            summary = "Get countries containing substring, sorted by population",
-            description = "Returns the names of the countries that contain the given substring in descending order of population"
-    )
-    @GetMapping("/{substring}/mostPopulous")
-    public ResponseEntity<String> getMostPopulousCountries(
-            @Parameter(
-                    description = "The substring to search for in country names",
-                    example = "stan",
-                    required = true
-            )
-            @PathVariable String substring
-    ) {
-        logger.info("Getting most populous countries with substring: {}", substring);
-        List<String> countries = countryService.getNamesMostPopulousCountries(substring);
-        if (countries == null || countries.isEmpty()) {
-            return ResponseEntity.notFound().build();
-        }
-
-        return ResponseEntity.ok(String.join("; ", countries));
-    }
-
-    /**
-     * "Returns the names of the countries that contain the given substring in descending order of population, along with their population."
-     * @param substring The substring to search for in country names
-     * @return List of country names with population, each value wrapped in quotes and separated by comma and space for instance
-     * Country1 (Population1); Country2 (Population2); Country3 (Population3)
-     */
-    @Operation(
-            summary = "Get countries containing substring, including population size, sorted by population",
-            description = "Returns the names of the countries that contain the given substring in descending order of population, along with their population."
-
-    )
-
-    @GetMapping("/{substring}/mostPopulousWithPopulation")
-
-    public ResponseEntity<String> getMostPopulousCountriesWithPopulation(
-            @Parameter(
-                    description = "The substring to search for in country names",
-                    example = "stan",
-                    required = true
-            )
-            @PathVariable String substring
-    ) {
-
-        if (substring == null || substring.trim().isEmpty()) {
-            return ResponseEntity.badRequest().body("Invalid substring input");
-        }
-
-        Country[] countries = restTemplate.getForObject(API_URL_ALL, Country[].class);
-        if (countries == null) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error retrieving countries");
-        }
-
-        // Filter, sort, and format the countries
-        List<String> formattedCountries = Arrays.stream(countries)
-                .filter(country -> country.getName().getCommon().toLowerCase().contains(substring.toLowerCase())) // Case-insensitive substring search
-                .sorted((c1, c2) -> Long.compare(c2.getPopulation(), c1.getPopulation())) // Sort by population, descending
-                .map(country -> String.format("%s (%d)", country.getName().getCommon(), country.getPopulation())) // Format as "Name (Population)"
-                .collect(Collectors.toList());
-
-        if (formattedCountries.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No countries found with the given substring");
-        }
-
-        // Join the formatted strings with "; " separator
-        String result = String.join("; ", formattedCountries);
-        return ResponseEntity.ok(result);
-    }
-
     @Operation(
             summary = "Get country name translation",
             description = "Retrieves the translation of a specific country name in a given language"
@@ -275,7 +203,7 @@ public class CountryController {
             @PathVariable String countryname
     ) {
         // Retrieve the country information using CountryService
-        Country country = countryService.getCountryInfo(countryname);
+        Country country = countryService.getCountryInfo(countryname, CountryService.DEMOGRAPHIC_FIELDS);
 
         // Check if the country was found
         if (country == null) {
@@ -308,7 +236,7 @@ public class CountryController {
             @PathVariable String countryname
     ) {
         // Retrieve the country information using CountryService
-        Country country = countryService.getCountryInfo(countryname);
+        Country country = countryService.getCountryInfo(countryname, CountryService.BORDER_FIELDS);
 
         // Check if the country was found
         if (country == null) {
@@ -323,120 +251,15 @@ public class CountryController {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(List.of("No bordering countries found"));
         }
 
-        // Retrieve the names of the bordering countries
-        List<String> borderingCountries = borderCodes.stream()
-                .map(code -> countryService.getCountryInfo(code)) // Get Country objects by border code
-                .filter(Objects::nonNull) // Filter out nulls in case a country isn't found
-                .map(borderCountry -> borderCountry.getName().getCommon()) // Get the common name of each country
+        // Retrieve the names of the bordering countries, resolving all codes in one batch from the code index
+        List<String> borderingCountries = countryService.getCountriesByCodes(borderCodes).stream()
+                .map(CountryRecord::commonName) // Get the common name of each country
                 .collect(Collectors.toList());
 
         // Return the list of bordering country names
         return ResponseEntity.ok(borderingCountries);
     }
 
-    @Operation(
-            summary = "Get countries in region",
-            description = "Retrieves the names of the countries in a specific region, optionally sorted by a given criteria (population, name, area)"
-    )
-    @GetMapping("/region/{region}/countries")
-    public ResponseEntity<List<String>> getCountriesInRegion(
-            @Parameter(
-                    description = "The name of the region to retrieve countries from",
-                    examples = {
-                            @ExampleObject(
-                                    name = "Asia",
-                                    description = "Countries in Asia",
-                                    value = "Asia"
-                            ),
-                            @ExampleObject(
-                                    name = "Europe",
-                                    description = "Countries in Europe",
-                                    value = "Europe"
-                            ),
-                            @ExampleObject(
-                                    name = "Africa",
-                                    description = "Countries in Africa",
-                                    value = "Africa"
-                            )
-                    },
-                    required = true
-            )
-            @PathVariable String region,
-            @Parameter(
-                    description = "The criteria to sort the countries by",
-                    examples = {
-                            @ExampleObject(
-                                    name = "Sort by name",
-                                    description = "Sort countries alphabetically by name",
-                                    value = "name"
-                            ),
-                            @ExampleObject(
-                                    name = "Sort by population",
-                                    description = "Sort countries by population size (descending)",
-                                    value = "population"
-                            ),
-                            @ExampleObject(
-                                    name = "Sort by area",
-                                    description = "Sort countries by geographical area (descending)",
-                                    value = "area"
-                            )
-                    }
-            )
-            @RequestParam(required = false) String sortBy) {
-        logger.debug("Getting countries in region: {}", region);
-
-        // Retrieve the list of countries in the specified region using CountryService
-        List<Country> countries = countryService.getCountriesByRegion(region, sortBy);
-
-        // Check if any countries were found in the region
-        if (countries == null || countries.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(List.of("No countries found in the specified region"));
-        }
-
-        // Extract the common names of the countries
-        List<String> countryNames = countries.stream()
-                .map(country -> country.getName().getCommon())
-                .collect(Collectors.toList());
-
-        // Return the list of country names
-        return ResponseEntity.ok(countryNames);
-    }
-
-    @Operation(
-            summary = "Get region statistics",
-            description = "Retrieves statistics about a specific region, including the total population, area, and number of countries"
-    )
-    @GetMapping("/region/{region}/statistics")
-    public ResponseEntity<Map<String, Object>> getRegionStatistics(
-            @PathVariable String region,
-            @RequestParam(required = false) String format) {
-
-        try {
-            Map<String, Object> statistics = countryService.calculateRegionStatistics(region);
-
-
-            // Check if "pretty" formatting is requested
-            if ("pretty".equalsIgnoreCase(format)) {
-                Map<String, Object> formattedStats = new HashMap<>();
-                for (Map.Entry<String, Object> entry : statistics.entrySet()) {
-                    Object value = entry.getValue();
-                    if (value instanceof Number) {
-                        // Format numbers with commas as thousands separators
-                        formattedStats.put(entry.getKey(), String.format("%,d", ((Number) value).longValue()));
-                    } else {
-                        formattedStats.put(entry.getKey(), value);
-                    }
-                }
-                return ResponseEntity.ok(formattedStats);
-            }
-
-            // Return the raw statistics if no formatting is requested
-            return ResponseEntity.ok(statistics);
-        } catch (IllegalArgumentException e) {
-            return ResponseEntity.badRequest().build();
-        }
-    }
-
     /**
      * Compares two countries across various metrics including:
      * - Population ratio
@@ -446,7 +269,8 @@ public class CountryController {
      *
      * @param country1 First country to compare
      * @param country2 Second country to compare
-     * @return Comparison data between the two countries
+     * @return Comparison data between the two countries; 400 Bad Request with the message "Country not found: ..."
+     * if one of them is unknown, like the other failures of the comparison
      */
     @Operation(
             summary = "Get country comparison",
@@ -460,52 +284,14 @@ public class CountryController {
         logger.info("Comparing countries {} and {}", country1, country2);
 
         try {
-            // Retrieve information about both countries using CountryService
-            Country countryData1 = countryService.getCountryInfo(country1);
-            Country countryData2 = countryService.getCountryInfo(country2);
-
-            // Check if either country is not found
-            if (countryData1 == null || countryData2 == null) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(
-                        Map.of("error", "One or both countries not found")
-                );
-            }
-
-            // Initialize comparison result map
-            Map<String, Object> comparisonResults = new HashMap<>();
-
-            // Compare population
-            long population1 = countryData1.getPopulation();
-            long population2 = countryData2.getPopulation();
-            double populationRatio = (double) population1 / population2;
-            comparisonResults.put("populationRatio", populationRatio);
-
-            // Compare area
-            double area1 = countryData1.getArea();
-            double area2 = countryData2.getArea();
-            double areaRatio = area1 / area2;
-            comparisonResults.put("areaRatio", areaRatio);
-
-            // Compare shared languages
-            Set<String> languages1 = new HashSet<>(countryData1.getLanguages().values());
-            Set<String> languages2 = new HashSet<>(countryData2.getLanguages().values());
-            languages1.retainAll(languages2); // Find shared languages
-            comparisonResults.put("sharedLanguages", languages1);
-
-            // Compare borders
-            List<String> borders1 = countryData1.getBorders();
-            List<String> borders2 = countryData2.getBorders();
-            boolean directlyBordering = false;
-            if (borders1 != null && borders2 != null) {
-                Set<String> borderSet1 = new HashSet<>(borders1);
-                borderSet1.retainAll(borders2); // Check for common borders
-                directlyBordering = !borderSet1.isEmpty();
-            }
-            comparisonResults.put("directlyBordering", directlyBordering);
+            // Compare the countries using CountryService, which looks up each country once and in parallel
+            Map<String, Object> comparisonResults = countryService.compareCountries(country1, country2);
 
             // Return the comparison results
             return ResponseEntity.ok(comparisonResults);
 
+        } catch (UpstreamUnavailableException e) {
+            throw e; // not the client's fault, answered with 503 by UpstreamResponseAdvice
         } catch (RuntimeException e) {
             // Handle exceptions and return an error response
             Map<String, Object> error = Map.of(
@@ -0,0 +1,475 @@
+package ie.tcd.scss.countryinfo.controller;
+
+import ie.tcd.scss.countryinfo.service.CountryRecord;
+import ie.tcd.scss.countryinfo.service.CountryRegionStatistics;
+import ie.tcd.scss.countryinfo.service.CountryService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Endpoints answered from the in-memory snapshot of all countries, see
+ * {@link ie.tcd.scss.countryinfo.service.CountrySnapshotStore}. They never wait for the upstream, so unlike the
+ * lookups by name in {@link CountryController} and {@link ReactiveCountryController} they are the same in both
+ * {@code countryinfo.mode}s.
+ */
+@RestController
+@RequestMapping("/countries")
+@Tag(name = "Country Information", description = "APIs for retrieving and comparing country information")
+public class CountrySnapshotController {
+    private static final Logger logger = LoggerFactory.getLogger(CountrySnapshotController.class);
+
+    private final CountryService countryService;
+
+    public CountrySnapshotController(CountryService countryService) {
+        this.countryService = countryService;
+    }
+
+    /**
+     * "Returns the names of the countries that contain the given substring in descending order of population"
+     * @param substring The substring to search for in country names
+     * @return List of country names, separated by semicolon and space for instance
+     * Country1; Country2; Country3
+     */
+    @Operation(
+            summary = "Get countries containing substring, sorted by population",
+            description = "Returns the names of the countries that contain the given substring in descending order of population"
+    )
+    @GetMapping("/{substring}/mostPopulous")
+    public ResponseEntity<String> getMostPopulousCountries(
+            @Parameter(
+                    description = "The substring to search for in country names",
+                    example = "stan",
+                    required = true
+            )
+            @PathVariable String substring
+    ) {
+        logger.info("Getting most populous countries with substring: {}", substring);
+        List<String> countries = countryService.getNamesMostPopulousCountries(substring);
+        if (countries == null || countries.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        return ResponseEntity.ok(String.join("; ", countries));
+    }
+
+    /**
+     * "Returns the names of the countries that contain the given substring in descending order of population, along with their population."
+     * @param substring The substring to search for in country names
+     * @return List of country names with population, each value wrapped in quotes and separated by comma and space for instance
+     * Country1 (Population1); Country2 (Population2); Country3 (Population3)
+     */
+    @Operation(
+            summary = "Get countries containing substring, including population size, sorted by population",
+            description = "Returns the names of the countries that contain the given substring in descending order of population, along with their population."
+
+    )
+
+    @GetMapping("/{substring}/mostPopulousWithPopulation")
+
+    public ResponseEntity<String> getMostPopulousCountriesWithPopulation(
+            @Parameter(
+                    description = "The substring to search for in country names",
+                    example = "stan",
+                    required = true
+            )
+            @PathVariable String substring
+    ) {
+
+        if (substring == null || substring.trim().isEmpty()) {
+            return ResponseEntity.badRequest().body("Invalid substring input");
+        }
+
+        // Filter, sort, and format the countries as "Name (Population)", served from the in-memory snapshot
+        List<String> formattedCountries = countryService.getNamesMostPopulousCountriesWithPopulation(substring);
+
+        if (formattedCountries.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No countries found with the given substring");
+        }
+
+        // Join the formatted strings with "; " separator
+        String result = String.join("; ", formattedCountries);
+        return ResponseEntity.ok(result);
+    }
+
+    @Operation(
+            summary = "Get countries in region",
+            description = "Retrieves the names of the countries in a specific region, optionally sorted by a given criteria (population, name, area)"
+    )
+    @GetMapping("/region/{region}/countries")
+    public ResponseEntity<List<String>> getCountriesInRegion(
+            @Parameter(
+                    description = "The name of the region to retrieve countries from",
+                    examples = {
+                            @ExampleObject(
+                                    name = "Asia",
+                                    description = "Countries in Asia",
+                                    value = "Asia"
+                            ),
+                            @ExampleObject(
+                                    name = "Europe",
+                                    description = "Countries in Europe",
+                                    value = "Europe"
+                            ),
+                            @ExampleObject(
+                                    name = "Africa",
+                                    description = "Countries in Africa",
+                                    value = "Africa"
+                            )
+                    },
+                    required = true
+            )
+            @PathVariable String region,
+            @Parameter(
+                    description = "The criteria to sort the countries by",
+                    examples = {
+                            @ExampleObject(
+                                    name = "Sort by name",
+                                    description = "Sort countries alphabetically by name",
+                                    value = "name"
+                            ),
+                            @ExampleObject(
+                                    name = "Sort by population",
+                                    description = "Sort countries by population size (descending)",
+                                    value = "population"
+                            ),
+                            @ExampleObject(
+                                    name = "Sort by area",
+                                    description = "Sort countries by geographical area (descending)",
+                                    value = "area"
+                            )
+                    }
+            )
+            @RequestParam(required = false) String sortBy) {
+        logger.debug("Getting countries in region: {}", region);
+
+        // Retrieve the list of countries in the specified region using CountryService
+        List<CountryRecord> countries = countryService.getCountriesByRegion(region, sortBy);
+
+        // Check if any countries were found in the region
+        if (countries == null || countries.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(List.of("No countries found in the specified region"));
+        }
+
+        // Extract the common names of the countries
+        List<String> countryNames = countries.stream()
+                .map(CountryRecord::commonName)
+                .collect(Collectors.toList());
+
+        // Return the list of country names
+        return ResponseEntity.ok(countryNames);
+    }
+
+    @Operation(
+            summary = "Get region statistics",
+            description = "Retrieves statistics about a specific region, including the total population, area, and number of countries"
+    )
+    @GetMapping("/region/{region}/statistics")
+    public ResponseEntity<Map<String, Object>> getRegionStatistics(
+            @PathVariable String region,
+            @RequestParam(required = false) String format) {
+
+        try {
+            // both variants are computed with the snapshot, see CountryRegionStatistics
+            CountryRegionStatistics.Statistics statistics = countryService.getRegionStatistics(region);
+            return ResponseEntity.ok("pretty".equalsIgnoreCase(format) ? statistics.pretty() : statistics.raw());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @Operation(
+            summary = "Get subregion statistics",
+            description = "Retrieves statistics about a specific subregion such as Western Europe, with the same attributes as the region statistics"
+    )
+    @GetMapping("/subregion/{subregion}/statistics")
+    public ResponseEntity<Map<String, Object>> getSubregionStatistics(
+            @Parameter(description = "The subregion, case-insensitive", example = "Western Europe", required = true)
+            @PathVariable String subregion,
+            @Parameter(description = "Set to pretty for numbers with thousands separators", example = "pretty")
+            @RequestParam(required = false) String format) {
+
+        try {
+            CountryRegionStatistics.Statistics statistics = countryService.getSubregionStatistics(subregion);
+            return ResponseEntity.ok("pretty".equalsIgnoreCase(format) ? statistics.pretty() : statistics.raw());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @Operation(
+            summary = "Get the top countries by an attribute",
+            description = "Retrieves the k countries with the highest population, area or population density, highest first"
+    )
+    @GetMapping("/top")
+    public ResponseEntity<List<Map<String, Object>>> getTopCountries(
+            @Parameter(
+                    description = "The attribute to rank by",
+                    examples = {
+                            @ExampleObject(name = "Population", value = "population"),
+                            @ExampleObject(name = "Area", value = "area"),
+                            @ExampleObject(name = "Population density", value = "density")
+                    },
+                    required = true
+            )
+            @RequestParam String by,
+            @Parameter(description = "The number of countries to return", example = "10")
+            @RequestParam(defaultValue = "10") int k) {
+        logger.debug("Getting top {} countries by {}", k, by);
+
+        try {
+            return ResponseEntity.ok(countryService.getTopCountries(by, k));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @Operation(
+            summary = "Get countries speaking a language",
+            description = "Retrieves the names of the countries where the given language is spoken, e.g. French"
+    )
+    @GetMapping("/language/{language}")
+    public ResponseEntity<List<String>> getCountriesSpeakingLanguage(
+            @Parameter(
+                    description = "The name of the language, case-insensitive",
+                    example = "German",
+                    required = true
+            )
+            @PathVariable String language) {
+        logger.debug("Getting countries speaking: {}", language);
+
+        List<CountryRecord> countries = countryService.getCountriesByLanguage(language);
+        if (countries.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(List.of("No countries found speaking the specified language"));
+        }
+
+        return ResponseEntity.ok(countries.stream().map(CountryRecord::commonName).collect(Collectors.toList()));
+    }
+
+    @Operation(
+            summary = "Get countries using a currency",
+            description = "Retrieves the names of the countries using the currency with the given code, e.g. EUR"
+    )
+    @GetMapping("/currency/{code}")
+    public ResponseEntity<List<String>> getCountriesUsingCurrency(
+            @Parameter(
+                    description = "The ISO 4217 code of the currency, case-insensitive",
+                    example = "EUR",
+                    required = true
+            )
+            @PathVariable String code) {
+        logger.debug("Getting countries using currency: {}", code);
+
+        List<CountryRecord> countries = countryService.getCountriesByCurrency(code);
+        if (countries.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(List.of("No countries found using the specified currency"));
+        }
+
+        return ResponseEntity.ok(countries.stream().map(CountryRecord::commonName).collect(Collectors.toList()));
+    }
+
+    @Operation(
+            summary = "Get the shortest land route between two countries",
+            description = "Retrieves the countries along a land route with the fewest border crossings, starting with "
+                    + "the first and ending with the second country"
+    )
+    @GetMapping("/route/{from}/{to}")
+    public ResponseEntity<List<String>> getLandRoute(
+            @Parameter(
+                    description = "The common name or the cca2 or cca3 code of the first country",
+                    example = "Austria",
+                    required = true
+            )
+            @PathVariable String from,
+            @Parameter(
+                    description = "The common name or the cca2 or cca3 code of the second country",
+                    example = "FRA",
+                    required = true
+            )
+            @PathVariable String to) {
+        logger.debug("Getting a land route from {} to {}", from, to);
+
+        List<String> route = countryService.getLandRoute(from, to);
+        if (route == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(List.of("Country not found"));
+        }
+        if (route.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(List.of("No land route found"));
+        }
+        return ResponseEntity.ok(route);
+    }
+
+    @Operation(
+            summary = "Get countries within a number of border crossings",
+            description = "Retrieves the countries reachable by land from a country in at most the given number of "
+                    + "border crossings, with the number of crossings, nearest first"
+    )
+    @GetMapping("/{country}/neighbours")
+    public ResponseEntity<List<Map<String, Object>>> getCountriesWithinHops(
+            @Parameter(
+                    description = "The common name or the cca2 or cca3 code of the country",
+                    example = "Germany",
+                    required = true
+            )
+            @PathVariable String country,
+            @Parameter(description = "The most border crossings", example = "2")
+            @RequestParam(defaultValue = "1") int hops) {
+        logger.debug("Getting the countries within {} border crossings of {}", hops, country);
+
+        try {
+            List<Map<String, Object>> reached = countryService.getCountriesWithinHops(country, hops);
+            if (reached == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(reached);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @Operation(
+            summary = "Get the landmasses",
+            description = "Groups the countries into landmasses, the sets of countries connected by land borders, "
+                    + "largest first"
+    )
+    @GetMapping("/landmasses")
+    public ResponseEntity<List<List<String>>> getLandmasses(
+            @Parameter(description = "The fewest countries in a landmass, 1 to include countries without land borders",
+                    example = "2")
+            @RequestParam(defaultValue = "2") int minSize) {
+        logger.debug("Getting the landmasses of at least {} countries", minSize);
+
+        try {
+            return ResponseEntity.ok(countryService.getLandmasses(minSize));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @Operation(
+            summary = "Get the countries nearest to a point",
+            description = "Retrieves the k countries nearest to a point by great-circle distance, nearest first, "
+                    + "measured to the coordinates of the countries or of their capitals"
+    )
+    @GetMapping("/nearest")
+    public ResponseEntity<List<Map<String, Object>>> getNearestCountries(
+            @Parameter(description = "The latitude of the point, in degrees", example = "53.35", required = true)
+            @RequestParam double lat,
+            @Parameter(description = "The longitude of the point, in degrees", example = "-6.26", required = true)
+            @RequestParam double lng,
+            @Parameter(description = "The number of countries to return", example = "5")
+            @RequestParam(defaultValue = "5") int k,
+            @Parameter(
+                    description = "What to measure the distance to",
+                    examples = {
+                            @ExampleObject(name = "Country", value = "country"),
+                            @ExampleObject(name = "Capital", value = "capital")
+                    }
+            )
+            @RequestParam(defaultValue = "country") String by) {
+        logger.debug("Getting the {} countries nearest to {},{}", k, lat, lng);
+
+        try {
+            return ResponseEntity.ok(countryService.getNearestCountries(lat, lng, k, by));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @Operation(
+            summary = "Get the countries within a radius of a point",
+            description = "Retrieves the countries within the given great-circle distance of a point, nearest first, "
+                    + "measured to the coordinates of the countries or of their capitals"
+    )
+    @GetMapping("/within")
+    public ResponseEntity<List<Map<String, Object>>> getCountriesWithin(
+            @Parameter(description = "The latitude of the point, in degrees", example = "53.35", required = true)
+            @RequestParam double lat,
+            @Parameter(description = "The longitude of the point, in degrees", example = "-6.26", required = true)
+            @RequestParam double lng,
+            @Parameter(description = "The radius, in km", example = "1000", required = true)
+            @RequestParam double radiusKm,
+            @Parameter(
+                    description = "What to measure the distance to",
+                    examples = {
+                            @ExampleObject(name = "Country", value = "country"),
+                            @ExampleObject(name = "Capital", value = "capital")
+                    }
+            )
+            @RequestParam(defaultValue = "country") String by) {
+        logger.debug("Getting the countries within {} km of {},{}", radiusKm, lat, lng);
+
+        try {
+            return ResponseEntity.ok(countryService.getCountriesWithin(lat, lng, radiusKm, by));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @Operation(
+            summary = "Get the distance between two countries",
+            description = "Retrieves the great-circle distances between the capitals and between the coordinates of "
+                    + "two countries, in km"
+    )
+    @GetMapping("/distance/{from}/{to}")
+    public ResponseEntity<Map<String, Object>> getDistance(
+            @Parameter(
+                    description = "The common name or the cca2 or cca3 code of the first country",
+                    example = "Ireland",
+                    required = true
+            )
+            @PathVariable String from,
+            @Parameter(
+                    description = "The common name or the cca2 or cca3 code of the second country",
+                    example = "FRA",
+                    required = true
+            )
+            @PathVariable String to) {
+        logger.debug("Getting the distance between {} and {}", from, to);
+
+        Map<String, Object> distance = countryService.getDistance(from, to);
+        if (distance == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(distance);
+    }
+
+    @Operation(
+            summary = "Find countries by their name in any language",
+            description = "Reverse translation: retrieves the countries with the given common or official name in any "
+                    + "language, e.g. Allemagne, ignoring case and diacritics, and the languages the name is in. "
+                    + "Optionally translates their names into another language."
+    )
+    @GetMapping("/translation/{name}")
+    public ResponseEntity<List<Map<String, Object>>> getCountriesByTranslation(
+            @Parameter(
+                    description = "The name of the country in any language",
+                    example = "Allemagne",
+                    required = true
+            )
+            @PathVariable String name,
+            @Parameter(description = "The language code to translate the names into, e.g. deu")
+            @RequestParam(required = false) String language) {
+        logger.debug("Finding countries named {} in any language", name);
+
+        List<Map<String, Object>> countries = countryService.getCountriesByTranslation(name, language);
+        if (countries.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(countries);
+    }
+}
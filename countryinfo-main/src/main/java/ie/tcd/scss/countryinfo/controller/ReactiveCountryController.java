@@ -0,0 +1,182 @@
+package ie.tcd.scss.countryinfo.controller;
+
+import ie.tcd.scss.countryinfo.domain.Country;
+import ie.tcd.scss.countryinfo.service.CountryRecord;
+import ie.tcd.scss.countryinfo.service.CountryService;
+import ie.tcd.scss.countryinfo.service.ReactiveCountryService;
+import ie.tcd.scss.countryinfo.service.UpstreamUnavailableException;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The lookups by name of {@link CountryController} for {@code countryinfo.mode=reactive}: same paths and responses,
+ * but the handlers return a {@link Mono}, so the servlet thread is released while the upstream is queried and the
+ * response is written once the lookup completes.
+ * <p>
+ * Stale data served from the cache is not reported in the {@code Age} and {@code Warning} headers in this mode, the
+ * response is completed on another thread than the one that tracked the request.
+ */
+@RestController
+@ConditionalOnProperty(name = "countryinfo.mode", havingValue = "reactive")
+@RequestMapping("/countries")
+@Tag(name = "Country Information", description = "APIs for retrieving and comparing country information")
+public class ReactiveCountryController {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveCountryController.class);
+
+    private final ReactiveCountryService reactiveCountryService;
+
+    public ReactiveCountryController(ReactiveCountryService reactiveCountryService) {
+        this.reactiveCountryService = reactiveCountryService;
+    }
+
+    @Operation(
+            summary = "Get country information",
+            description = "Retrieves detailed information about a specific country by its name"
+    )
+    @GetMapping("/{countryname}")
+    public Mono<ResponseEntity<Country>> getCountryInfo(
+            @Parameter(description = "The name of the country to retrieve information for", example = "France", required = true)
+            @PathVariable String countryname) {
+        if (countryname.isEmpty()) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        return reactiveCountryService.getCountryInfo(countryname)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @Operation(
+            summary = "Get country flag",
+            description = "Retrieves the flag of a specific country by its name"
+    )
+    @GetMapping("/{countryname}/flag")
+    public Mono<ResponseEntity<String>> getCountryFlag(
+            @Parameter(description = "The name of the country to retrieve information for", example = "France", required = true)
+            @PathVariable String countryname) {
+        return reactiveCountryService.getFlagForCountry(countryname)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @Operation(
+            summary = "Get country map",
+            description = "Retrieves the map of a specific country by its name"
+    )
+    @GetMapping("/{countryname}/map")
+    public Mono<ResponseEntity<String>> getCountryMap(
+            @Parameter(description = "The name of the country to retrieve information for", example = "France", required = true)
+            @PathVariable String countryname) {
+        return reactiveCountryService.getMapForCountry(countryname)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @Operation(
+            summary = "Get continents of a country",
+            description = "Retrieves the continents that a specific country is located on"
+    )
+    @GetMapping("/{countryname}/continents")
+    public Mono<ResponseEntity<String>> getCountryContinents(
+            @Parameter(description = "The name of the country to retrieve information for", example = "France", required = true)
+            @PathVariable String countryname) {
+        return reactiveCountryService.getContinentsForCountry(countryname)
+                .filter(continents -> !continents.isEmpty())
+                .map(continents -> ResponseEntity.ok(String.join(", ", continents)))
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @Operation(
+            summary = "Get country name translation",
+            description = "Retrieves the translation of a specific country name in a given language"
+    )
+    @GetMapping("/{countryname}/translation/{language}")
+    public Mono<ResponseEntity<String>> getCountryNameTranslation(
+            @Parameter(description = "The name of the country to translate", example = "France", required = true)
+            @PathVariable String countryname,
+            @Parameter(description = "The language to translate the country name to", example = "Spanish", required = true)
+            @PathVariable String language) {
+        return reactiveCountryService.getTranslationForCountry(countryname, language)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build()); // no translation found
+    }
+
+    @Operation(
+            summary = "Get country demographics",
+            description = "Retrieves demographic information about a specific country, in particular its population, area, languages, currencies, and timezones"
+    )
+    @GetMapping("/{countryname}/demographics")
+    public Mono<ResponseEntity<Map<String, Object>>> getCountryDemographics(
+            @Parameter(description = "The name of the country to retrieve information for", example = "France", required = true)
+            @PathVariable String countryname) {
+        return reactiveCountryService.getCountryInfo(countryname, CountryService.DEMOGRAPHIC_FIELDS)
+                .map(country -> {
+                    Map<String, Object> demographics = new HashMap<>();
+                    demographics.put("population", country.getPopulation());
+                    demographics.put("area", country.getArea());
+                    demographics.put("languages", country.getLanguages());
+                    demographics.put("currencies", country.getCurrencies());
+                    demographics.put("timezones", country.getTimezones());
+                    return ResponseEntity.ok(demographics);
+                })
+                .defaultIfEmpty(ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Country not found")));
+    }
+
+    @Operation(
+            summary = "Get bordering countries",
+            description = "Retrieves the countries that share a border with a specific country"
+    )
+    @GetMapping("/{countryname}/borders")
+    public Mono<ResponseEntity<List<String>>> getBorderingCountries(
+            @Parameter(description = "The name of the country to retrieve information for", example = "France", required = true)
+            @PathVariable String countryname) {
+        return reactiveCountryService.getCountryInfo(countryname, CountryService.BORDER_FIELDS)
+                .flatMap(country -> {
+                    List<String> borderCodes = country.getBorders();
+                    if (borderCodes == null || borderCodes.isEmpty()) {
+                        return Mono.just(ResponseEntity.status(HttpStatus.NOT_FOUND)
+                                .body(List.of("No bordering countries found")));
+                    }
+                    // from the snapshot, which is loaded on a worker thread if none is installed yet
+                    return reactiveCountryService.getCountriesByCodes(borderCodes)
+                            .map(countries -> ResponseEntity.ok(countries.stream()
+                                    .map(CountryRecord::commonName)
+                                    .toList()));
+                })
+                .defaultIfEmpty(ResponseEntity.status(HttpStatus.NOT_FOUND).body(List.of("Country not found")));
+    }
+
+    // answers 400 Bad Request for an unknown country, like CountryController
+    @Operation(
+            summary = "Get country comparison",
+            description = "Compares two countries across various metrics including population, area, languages, currencies, and borders"
+    )
+    @GetMapping("/compare/{country1}/{country2}")
+    public Mono<ResponseEntity<Map<String, Object>>> compareCountries(
+            @PathVariable String country1,
+            @PathVariable String country2) {
+        logger.info("Comparing countries {} and {}", country1, country2);
+
+        return reactiveCountryService.compareCountries(country1, country2)
+                .map(ResponseEntity::ok)
+                // an open breaker is not the client's fault, answered with 503 by UpstreamResponseAdvice
+                .onErrorResume(e -> !(e instanceof UpstreamUnavailableException), e -> Mono.just(
+                        ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of(
+                                "error", "Comparison failed",
+                                "message", String.valueOf(e.getMessage())))));
+    }
+}
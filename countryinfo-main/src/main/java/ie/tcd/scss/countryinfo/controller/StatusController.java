@@ -0,0 +1,57 @@
+package ie.tcd.scss.countryinfo.controller;
+
+import ie.tcd.scss.countryinfo.service.CountryLookupCache;
+import ie.tcd.scss.countryinfo.service.CountrySnapshotStore;
+import ie.tcd.scss.countryinfo.service.UpstreamCircuitBreaker;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/status")
+@Tag(name = "Service Status", description = "APIs for inspecting caches and other internals of the service")
+public class StatusController {
+
+    private final CountryLookupCache lookupCache;
+    private final UpstreamCircuitBreaker circuitBreaker;
+    private final CountrySnapshotStore snapshotStore;
+
+    @Autowired
+    public StatusController(CountryLookupCache lookupCache, UpstreamCircuitBreaker circuitBreaker,
+                            CountrySnapshotStore snapshotStore) {
+        this.lookupCache = lookupCache;
+        this.circuitBreaker = circuitBreaker;
+        this.snapshotStore = snapshotStore;
+    }
+
+    @Operation(
+            summary = "Get lookup cache statistics",
+            description = "Retrieves the size and the hit, miss and eviction counters of the cache for lookups by country name"
+    )
+    @GetMapping("/cache")
+    public ResponseEntity<CountryLookupCache.Stats> getCacheStatistics() {
+        return ResponseEntity.ok(lookupCache.getStats());
+    }
+
+    @Operation(
+            summary = "Get upstream circuit breaker state",
+            description = "Retrieves the state and the failure, slow call and rejection counters of the circuit breaker in front of the REST Countries API"
+    )
+    @GetMapping("/upstream")
+    public ResponseEntity<UpstreamCircuitBreaker.Stats> getUpstreamStatus() {
+        return ResponseEntity.ok(circuitBreaker.getStats());
+    }
+
+    @Operation(
+            summary = "Get snapshot refresh statistics",
+            description = "Retrieves the current snapshot version and how many refreshes found the data unchanged, with the bytes downloaded and CPU time spent"
+    )
+    @GetMapping("/snapshot")
+    public ResponseEntity<CountrySnapshotStore.RefreshStats> getSnapshotStatistics() {
+        return ResponseEntity.ok(snapshotStore.getRefreshStats());
+    }
+}
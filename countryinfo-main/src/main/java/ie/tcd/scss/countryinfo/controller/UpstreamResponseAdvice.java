@@ -0,0 +1,59 @@
+package ie.tcd.scss.countryinfo.controller;
+
+import ie.tcd.scss.countryinfo.service.StalenessTracker;
+import ie.tcd.scss.countryinfo.service.UpstreamUnavailableException;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Reports how the upstream's condition affected a response. If stale data was served, e.g. because the upstream
+ * circuit breaker is open or a reload is in progress, the response gets an {@code Age} header with the age of the
+ * oldest data in seconds and a {@code Warning: 110 - "Response is Stale"} header. If the upstream is unavailable and
+ * there is no stale data to fall back to, the response is 503 SERVICE UNAVAILABLE.
+ */
+@RestControllerAdvice
+public class UpstreamResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    static final String STALE_WARNING = "110 - \"Response is Stale\"";
+
+    private final StalenessTracker staleness;
+
+    public UpstreamResponseAdvice(StalenessTracker staleness) {
+        this.staleness = staleness;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        Duration age = staleness.staleAge();
+        if (age != null) {
+            response.getHeaders().set(HttpHeaders.AGE, Long.toString(age.toSeconds()));
+            response.getHeaders().set(HttpHeaders.WARNING, STALE_WARNING);
+        }
+        return body;
+    }
+
+    @ExceptionHandler(UpstreamUnavailableException.class)
+    public ResponseEntity<Map<String, String>> upstreamUnavailable(UpstreamUnavailableException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(Map.of("error", "Upstream unavailable", "message", e.getMessage()));
+    }
+}
@@ -1,5 +1,8 @@
 package ie.tcd.scss.countryinfo.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.util.List;
 import java.util.*;
 
@@ -7,7 +10,12 @@ import java.util.*;
  * Domain class for country information from the REST Countries API.
  * The fields correspond to the JSON structure returned by the API.
  * See <a href="https://restcountries.com/v3.1/name/ireland">https://restcountries.com/v3.1/name/ireland</a> for an example.
+ *
+ * Objects may be partially populated when only some fields were requested from the API (see the {@code fields} query
+ * parameter); attributes that were not requested are null and left out when the object is serialized.
  */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class Country {
 
     private Name name;
@@ -237,7 +245,7 @@ public class Country {
         this.maps = maps;
     }
 
-    public int getPopulation() {
+    public Integer getPopulation() {
         return population;
     }
 
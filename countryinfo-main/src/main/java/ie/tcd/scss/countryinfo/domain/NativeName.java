@@ -1,27 +1,26 @@
 package ie.tcd.scss.countryinfo.domain;
 
-import java.util.Map;
-
+/**
+ * A name of the country in one of its official languages, the value side of {@link Name#getNativeName()}, which is
+ * keyed by language code, e.g. "deu" -> {"official": "Bundesrepublik Deutschland", "common": "Deutschland"}.
+ */
 public class NativeName {
+    private String official;
+    private String common;
 
-    private Map<String, Language> eng;
-    private Map<String, Language> gle;
-
-    public Map<String, Language> getEng() {
-        return eng;
+    public String getOfficial() {
+        return official;
     }
 
-    public void setEng(Map<String, Language> eng) {
-        this.eng = eng;
+    public void setOfficial(String official) {
+        this.official = official;
     }
 
-    public Map<String, Language> getGle() {
-        return gle;
+    public String getCommon() {
+        return common;
     }
 
-    public void setGle(Map<String, Language> gle) {
-        this.gle = gle;
+    public void setCommon(String common) {
+        this.common = common;
     }
-
-    // Add more languages as needed
 }
@@ -0,0 +1,229 @@
+package ie.tcd.scss.countryinfo.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * Inverted indexes of a snapshot as bitsets over the country ordinals: one per language name, one per currency code,
+ * one per region and one per subregion. A count such as "countries in Europe speaking French" is the popcount of the AND of two bitsets,
+ * computed word by word without allocating.
+ */
+public final class CountryBitsetIndex {
+
+    private static final int[] NO_ORDINALS = new int[0];
+
+    private final Attribute languages;
+    private final Attribute currencies;
+    // by region id of CountryColumns
+    private final long[][] regions;
+    // by subregion id of CountryColumns
+    private final long[][] subregions;
+
+    public CountryBitsetIndex(List<CountryRecord> countries, CountryColumns columns) {
+        int size = countries.size();
+        Attribute.Builder languageBits = new Attribute.Builder(size, CountryColumns::fold);
+        Attribute.Builder currencyBits = new Attribute.Builder(size, code -> code.toUpperCase(Locale.ROOT));
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            CountryRecord country = countries.get(ordinal);
+            for (String language : country.languages()) {
+                languageBits.set(language, ordinal);
+            }
+            for (String currencyCode : country.currencyCodes()) {
+                currencyBits.set(currencyCode, ordinal);
+            }
+        }
+        languages = languageBits.build();
+        currencies = currencyBits.build();
+
+        regions = new long[columns.regionCount()][];
+        for (int regionId = 0; regionId < regions.length; regionId++) {
+            regions[regionId] = bits(size, columns.inRegion(regionId));
+        }
+        subregions = new long[columns.subregionCount()][];
+        for (int subregionId = 0; subregionId < subregions.length; subregionId++) {
+            subregions[subregionId] = bits(size, columns.inSubregion(subregionId));
+        }
+    }
+
+    /**
+     * @param language A language name, case-insensitive, e.g. "french".
+     * @return The ordinals of the countries speaking that language, in snapshot order.
+     */
+    public int[] speaking(String language) {
+        return ordinals(languages.find(language));
+    }
+
+    /**
+     * @param currencyCode A currency code, case-insensitive, e.g. "eur".
+     * @return The ordinals of the countries using that currency, in snapshot order.
+     */
+    public int[] usingCurrency(String currencyCode) {
+        return ordinals(currencies.find(currencyCode));
+    }
+
+    /**
+     * @param language A language name, case-insensitive.
+     * @param regionId A region id of {@link CountryColumns}.
+     * @return The number of countries in the region speaking the language.
+     */
+    public int countSpeaking(String language, int regionId) {
+        long[] speakers = languages.find(language);
+        long[] region = region(regionId);
+        return speakers != null && region != null ? andCardinality(speakers, region) : 0;
+    }
+
+    /**
+     * @param regionId A region id of {@link CountryColumns}.
+     * @return For each language spoken in the region, the number of countries in the region speaking it.
+     */
+    public Map<String, Long> languageCounts(int regionId) {
+        return languages.countsWithin(region(regionId));
+    }
+
+    /**
+     * @param regionId A region id of {@link CountryColumns}.
+     * @return For each currency used in the region, the number of countries in the region using it.
+     */
+    public Map<String, Long> currencyCounts(int regionId) {
+        return currencies.countsWithin(region(regionId));
+    }
+
+    /**
+     * @param subregionId A subregion id of {@link CountryColumns}.
+     * @return For each language spoken in the subregion, the number of countries in the subregion speaking it.
+     */
+    public Map<String, Long> subregionLanguageCounts(int subregionId) {
+        return languages.countsWithin(subregion(subregionId));
+    }
+
+    /**
+     * @param subregionId A subregion id of {@link CountryColumns}.
+     * @return For each currency used in the subregion, the number of countries in the subregion using it.
+     */
+    public Map<String, Long> subregionCurrencyCounts(int subregionId) {
+        return currencies.countsWithin(subregion(subregionId));
+    }
+
+    private long[] region(int regionId) {
+        return regionId >= 0 && regionId < regions.length ? regions[regionId] : null;
+    }
+
+    private long[] subregion(int subregionId) {
+        return subregionId >= 0 && subregionId < subregions.length ? subregions[subregionId] : null;
+    }
+
+    private static int[] ordinals(long[] bits) {
+        if (bits == null) {
+            return NO_ORDINALS;
+        }
+        int[] ordinals = new int[cardinality(bits)];
+        int count = 0;
+        for (int word = 0; word < bits.length; word++) {
+            for (long remaining = bits[word]; remaining != 0; remaining &= remaining - 1) {
+                ordinals[count++] = (word << 6) + Long.numberOfTrailingZeros(remaining);
+            }
+        }
+        return ordinals;
+    }
+
+    private static long[] bits(int size, int[] ordinals) {
+        long[] bits = new long[words(size)];
+        for (int ordinal : ordinals) {
+            set(bits, ordinal);
+        }
+        return bits;
+    }
+
+    private static int words(int size) {
+        return (size + 63) >>> 6;
+    }
+
+    private static void set(long[] bits, int ordinal) {
+        bits[ordinal >>> 6] |= 1L << ordinal;
+    }
+
+    private static int cardinality(long[] bits) {
+        int count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    private static int andCardinality(long[] a, long[] b) {
+        int count = 0;
+        for (int i = 0; i < a.length; i++) {
+            count += Long.bitCount(a[i] & b[i]);
+        }
+        return count;
+    }
+
+    // one bitset per distinct value of a multi-valued attribute, looked up by the normalized value
+    private static final class Attribute {
+        // the value as first seen, by id
+        private final String[] values;
+        private final long[][] bits;
+        private final Map<String, Integer> ids;
+        private final UnaryOperator<String> normalizer;
+
+        private Attribute(String[] values, long[][] bits, Map<String, Integer> ids, UnaryOperator<String> normalizer) {
+            this.values = values;
+            this.bits = bits;
+            this.ids = ids;
+            this.normalizer = normalizer;
+        }
+
+        long[] find(String value) {
+            Integer id = value != null ? ids.get(normalizer.apply(value.trim())) : null;
+            return id != null ? bits[id] : null;
+        }
+
+        Map<String, Long> countsWithin(long[] region) {
+            Map<String, Long> counts = new HashMap<>();
+            if (region == null) {
+                return counts;
+            }
+            for (int id = 0; id < values.length; id++) {
+                int count = andCardinality(bits[id], region);
+                if (count > 0) {
+                    counts.put(values[id], (long) count);
+                }
+            }
+            return counts;
+        }
+
+        static final class Builder {
+            private final int size;
+            private final UnaryOperator<String> normalizer;
+            private final Map<String, Integer> ids = new HashMap<>();
+            private final List<String> values = new ArrayList<>();
+            private final List<long[]> bits = new ArrayList<>();
+
+            Builder(int size, UnaryOperator<String> normalizer) {
+                this.size = size;
+                this.normalizer = normalizer;
+            }
+
+            void set(String value, int ordinal) {
+                if (value == null || value.isBlank()) {
+                    return;
+                }
+                int id = ids.computeIfAbsent(normalizer.apply(value), key -> {
+                    values.add(value);
+                    bits.add(new long[words(size)]);
+                    return values.size() - 1;
+                });
+                CountryBitsetIndex.set(bits.get(id), ordinal);
+            }
+
+            Attribute build() {
+                return new Attribute(values.toArray(new String[0]), bits.toArray(new long[0][]), Map.copyOf(ids),
+                        normalizer);
+            }
+        }
+    }
+}
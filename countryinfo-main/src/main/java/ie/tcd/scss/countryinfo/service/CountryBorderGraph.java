@@ -0,0 +1,257 @@
+package ie.tcd.scss.countryinfo.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * The land borders of a snapshot as an undirected graph over the country ordinals, in compressed sparse row form: the
+ * neighbours of ordinal i are {@code neighbours[offsets[i]]} to {@code neighbours[offsets[i + 1] - 1]}, ascending.
+ * Routes and k-hop neighbourhoods are breadth-first searches over these two arrays, and the connected components
+ * (landmasses) are computed once with the graph.
+ * <p>
+ * A border is kept if either country lists the other, and borders with countries missing from the snapshot are
+ * dropped.
+ */
+public final class CountryBorderGraph {
+
+    /**
+     * Returned by {@link #ordinalOf(String)} for an unknown country.
+     */
+    public static final int NONE = -1;
+
+    private static final int[] NO_ORDINALS = new int[0];
+
+    // size + 1 entries, the neighbours of ordinal i start at offsets[i]
+    private final int[] offsets;
+    private final int[] neighbours;
+    // per ordinal, the id of its component; ids are numbered by the lowest ordinal in the component
+    private final int[] components;
+    // per component id, its ordinals ascending
+    private final int[][] members;
+    // upper-case cca2 and cca3 codes and folded common names
+    private final Map<String, Integer> ordinals;
+
+    public CountryBorderGraph(List<CountryRecord> countries) {
+        int size = countries.size();
+        Map<String, Integer> byCode = new HashMap<>(size * 3);
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            CountryRecord country = countries.get(ordinal);
+            putCode(byCode, country.cca3(), ordinal);
+            putCode(byCode, country.cca2(), ordinal);
+        }
+        Map<String, Integer> byName = new HashMap<>(byCode);
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            String name = countries.get(ordinal).commonName();
+            if (name != null && !name.isBlank()) {
+                byName.putIfAbsent(CountryColumns.fold(name.trim()), ordinal);
+            }
+        }
+        ordinals = Map.copyOf(byName);
+
+        List<TreeSet<Integer>> adjacency = new ArrayList<>(size);
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            adjacency.add(new TreeSet<>());
+        }
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            for (String border : countries.get(ordinal).borders()) {
+                Integer neighbour = border != null ? byCode.get(border.trim().toUpperCase(Locale.ROOT)) : null;
+                if (neighbour != null && neighbour != ordinal) {
+                    adjacency.get(ordinal).add(neighbour);
+                    adjacency.get(neighbour).add(ordinal);
+                }
+            }
+        }
+
+        offsets = new int[size + 1];
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            offsets[ordinal + 1] = offsets[ordinal] + adjacency.get(ordinal).size();
+        }
+        neighbours = new int[offsets[size]];
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            int next = offsets[ordinal];
+            for (int neighbour : adjacency.get(ordinal)) {
+                neighbours[next++] = neighbour;
+            }
+        }
+
+        components = new int[size];
+        Arrays.fill(components, NONE);
+        List<int[]> found = new ArrayList<>();
+        int[] queue = new int[size];
+        for (int start = 0; start < size; start++) {
+            if (components[start] != NONE) {
+                continue;
+            }
+            int id = found.size();
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = start;
+            components[start] = id;
+            while (head < tail) {
+                int current = queue[head++];
+                for (int i = offsets[current]; i < offsets[current + 1]; i++) {
+                    if (components[neighbours[i]] == NONE) {
+                        components[neighbours[i]] = id;
+                        queue[tail++] = neighbours[i];
+                    }
+                }
+            }
+            int[] component = Arrays.copyOf(queue, tail);
+            Arrays.sort(component);
+            found.add(component);
+        }
+        members = found.toArray(new int[0][]);
+    }
+
+    /**
+     * @return The number of countries in the graph.
+     */
+    public int size() {
+        return components.length;
+    }
+
+    /**
+     * @param country A cca2 or cca3 code or a complete common name, case-insensitive, e.g. "AT" or "austria".
+     * @return The ordinal of the country, or {@link #NONE} if it is unknown.
+     */
+    public int ordinalOf(String country) {
+        if (country == null) {
+            return NONE;
+        }
+        String key = country.trim();
+        Integer ordinal = ordinals.get(key.toUpperCase(Locale.ROOT));
+        if (ordinal == null) {
+            ordinal = ordinals.get(CountryColumns.fold(key));
+        }
+        return ordinal != null ? ordinal : NONE;
+    }
+
+    /**
+     * @return The ordinals of the countries sharing a land border with the given one, ascending.
+     */
+    public int[] neighbours(int ordinal) {
+        return Arrays.copyOfRange(neighbours, offsets[ordinal], offsets[ordinal + 1]);
+    }
+
+    /**
+     * @return True if the two countries share a land border.
+     */
+    public boolean borders(int a, int b) {
+        return Arrays.binarySearch(neighbours, offsets[a], offsets[a + 1], b) >= 0;
+    }
+
+    /**
+     * Finds a route with the fewest border crossings. Of several equally short routes, the one through the lowest
+     * ordinals at each step is returned.
+     *
+     * @return The ordinals of the route, starting with from and ending with to, only from if both are the same, empty
+     * if there is no land route between them.
+     */
+    public int[] shortestRoute(int from, int to) {
+        if (from == to) {
+            return new int[]{from};
+        }
+        if (components[from] != components[to]) {
+            return NO_ORDINALS;
+        }
+        int[] previous = new int[size()];
+        Arrays.fill(previous, NONE);
+        previous[from] = from;
+        int[] queue = new int[size()];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = from;
+        while (head < tail && previous[to] == NONE) {
+            int current = queue[head++];
+            for (int i = offsets[current]; i < offsets[current + 1]; i++) {
+                if (previous[neighbours[i]] == NONE) {
+                    previous[neighbours[i]] = current;
+                    queue[tail++] = neighbours[i];
+                }
+            }
+        }
+
+        int length = 1;
+        for (int step = to; step != from; step = previous[step]) {
+            length++;
+        }
+        int[] route = new int[length];
+        for (int step = to; length > 0; step = previous[step]) {
+            route[--length] = step;
+        }
+        return route;
+    }
+
+    /**
+     * @param maxHops The most border crossings, at least 1.
+     * @return The countries reachable from the given one in at most maxHops border crossings, excluding itself, by
+     * number of crossings and then in order of discovery.
+     */
+    public Reach withinHops(int from, int maxHops) {
+        int[] hops = new int[size()];
+        Arrays.fill(hops, NONE);
+        hops[from] = 0;
+        int[] queue = new int[size()];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = from;
+        while (head < tail && hops[queue[head]] < maxHops) {
+            int current = queue[head++];
+            for (int i = offsets[current]; i < offsets[current + 1]; i++) {
+                if (hops[neighbours[i]] == NONE) {
+                    hops[neighbours[i]] = hops[current] + 1;
+                    queue[tail++] = neighbours[i];
+                }
+            }
+        }
+
+        int[] reached = Arrays.copyOfRange(queue, 1, tail);
+        int[] reachedHops = new int[reached.length];
+        for (int i = 0; i < reached.length; i++) {
+            reachedHops[i] = hops[reached[i]];
+        }
+        return new Reach(reached, reachedHops);
+    }
+
+    /**
+     * @return The id of the connected component (landmass) of the country.
+     */
+    public int component(int ordinal) {
+        return components[ordinal];
+    }
+
+    /**
+     * @return The number of connected components, countries without land borders each forming their own.
+     */
+    public int componentCount() {
+        return members.length;
+    }
+
+    /**
+     * @return The ordinals of the countries in the component, ascending. The array is shared and must not be
+     * modified.
+     */
+    public int[] members(int component) {
+        return members[component];
+    }
+
+    private static void putCode(Map<String, Integer> byCode, String code, int ordinal) {
+        if (code != null && !code.isBlank()) {
+            byCode.putIfAbsent(code.trim().toUpperCase(Locale.ROOT), ordinal);
+        }
+    }
+
+    /**
+     * Countries reached by a breadth-first search.
+     *
+     * @param ordinals The ordinals of the countries.
+     * @param hops     For each of them, the number of border crossings needed to reach it.
+     */
+    public record Reach(int[] ordinals, int[] hops) {
+    }
+}
@@ -0,0 +1,57 @@
+package ie.tcd.scss.countryinfo.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Index of countries by their ISO 3166-1 codes: alpha-2 (cca2), alpha-3 (cca3) and numeric (ccn3). The codes do not
+ * overlap (two letters, three letters, three digits), so one map serves all of them.
+ */
+public final class CountryCodeIndex {
+
+    private final Map<String, CountryRecord> byCode;
+
+    public CountryCodeIndex(List<CountryRecord> countries) {
+        Map<String, CountryRecord> index = new HashMap<>(countries.size() * 4);
+        for (CountryRecord country : countries) {
+            put(index, country.cca2(), country);
+            put(index, country.cca3(), country);
+            put(index, country.ccn3(), country);
+        }
+        this.byCode = Map.copyOf(index);
+    }
+
+    /**
+     * @param code A cca2, cca3 or ccn3 code, case-insensitive.
+     * @return The country with that code, or null if there is none.
+     */
+    public CountryRecord find(String code) {
+        return code != null ? byCode.get(code.trim().toUpperCase(Locale.ROOT)) : null;
+    }
+
+    /**
+     * Resolves several codes at once, e.g. the border codes of a country. Unknown codes are skipped.
+     *
+     * @param codes The codes to resolve.
+     * @return The countries for the known codes, in the order of the codes.
+     */
+    public List<CountryRecord> findAll(List<String> codes) {
+        List<CountryRecord> countries = new ArrayList<>(codes.size());
+        for (String code : codes) {
+            CountryRecord country = find(code);
+            if (country != null) {
+                countries.add(country);
+            }
+        }
+        return countries;
+    }
+
+    private static void put(Map<String, CountryRecord> index, String code, CountryRecord country) {
+        if (code != null && !code.isBlank()) {
+            index.putIfAbsent(code.toUpperCase(Locale.ROOT), country);
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package ie.tcd.scss.countryinfo.service;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Column-oriented copy of the numeric and categorical attributes of a snapshot, indexed by the ordinal of each country
+ * in {@link CountrySnapshot#getCountries()}. Filters and aggregates read primitive arrays instead of following a
+ * reference per country, and regions are compared as dictionary ids instead of strings.
+ * <p>
+ * Also holds the orderings by population and by area (descending, ties in snapshot order) and, per region, its
+ * members in snapshot order, by population, by case-insensitive name and by area. All are computed once per snapshot,
+ * so listing a region in any of these orders is a lookup instead of a filter and sort.
+ */
+public final class CountryColumns {
+
+    /**
+     * Dictionary id for a country without region or subregion, and the result for unknown names.
+     */
+    public static final int NONE = -1;
+
+    private static final int[] NO_ORDINALS = new int[0];
+
+    private final long[] population;
+    private final double[] area;
+    // population per km², 0 if the area is unknown
+    private final double[] density;
+    private final int[] region;
+    private final int[] subregion;
+    private final Dictionary regions;
+    private final Dictionary subregions;
+    private final int[] byPopulation;
+    private final int[] byArea;
+    // per region id: the members in snapshot order, by population, by name and by area
+    private final int[][] regionMembers;
+    private final int[][] regionByPopulation;
+    private final int[][] regionByName;
+    private final int[][] regionByArea;
+    // per subregion id: the members in snapshot order
+    private final int[][] subregionMembers;
+
+    public CountryColumns(List<CountryRecord> countries) {
+        int size = countries.size();
+        population = new long[size];
+        area = new double[size];
+        density = new double[size];
+        region = new int[size];
+        subregion = new int[size];
+        Dictionary.Builder regionIds = new Dictionary.Builder();
+        Dictionary.Builder subregionIds = new Dictionary.Builder();
+        for (int i = 0; i < size; i++) {
+            CountryRecord country = countries.get(i);
+            population[i] = country.population();
+            area[i] = country.area();
+            density[i] = country.area() > 0 ? country.population() / country.area() : 0;
+            region[i] = regionIds.id(country.region());
+            subregion[i] = subregionIds.id(country.subregion());
+        }
+        regions = regionIds.build();
+        subregions = subregionIds.build();
+        byPopulation = order(size, Comparator.comparingLong((Integer i) -> population[i]).reversed());
+        byArea = order(size, Comparator.comparingDouble((Integer i) -> area[i]).reversed());
+        int[] byName = order(size, Comparator.comparing((Integer i) -> countries.get(i).commonName(),
+                Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)));
+
+        int[] snapshotOrder = new int[size];
+        Arrays.setAll(snapshotOrder, i -> i);
+        regionMembers = partition(snapshotOrder, region, regions.size());
+        regionByPopulation = partition(byPopulation, region, regions.size());
+        regionByName = partition(byName, region, regions.size());
+        regionByArea = partition(byArea, region, regions.size());
+        subregionMembers = partition(snapshotOrder, subregion, subregions.size());
+    }
+
+    public int size() {
+        return population.length;
+    }
+
+    public long population(int ordinal) {
+        return population[ordinal];
+    }
+
+    public double area(int ordinal) {
+        return area[ordinal];
+    }
+
+    public double density(int ordinal) {
+        return density[ordinal];
+    }
+
+    /**
+     * @return The ordinals of the k most populous countries, most populous first.
+     */
+    public int[] topByPopulation(int k) {
+        return TopK.largest(population, k);
+    }
+
+    /**
+     * @return The ordinals of the k largest countries by area, largest first.
+     */
+    public int[] topByArea(int k) {
+        return TopK.largest(area, k);
+    }
+
+    /**
+     * @return The ordinals of the k most densely populated countries, densest first.
+     */
+    public int[] topByDensity(int k) {
+        return TopK.largest(density, k);
+    }
+
+    /**
+     * @param name A region name, case-insensitive, e.g. "europe".
+     * @return The dictionary id of the region, or {@link #NONE} if no country is in that region.
+     */
+    public int regionId(String name) {
+        return regions.find(name);
+    }
+
+    /**
+     * @param name A subregion name, case-insensitive, e.g. "Western Europe".
+     * @return The dictionary id of the subregion, or {@link #NONE} if no country is in that subregion.
+     */
+    public int subregionId(String name) {
+        return subregions.find(name);
+    }
+
+    /**
+     * @return The number of distinct regions, region ids run from 0 to this count exclusive.
+     */
+    public int regionCount() {
+        return regions.size();
+    }
+
+    /**
+     * @return The number of distinct subregions, subregion ids run from 0 to this count exclusive.
+     */
+    public int subregionCount() {
+        return subregions.size();
+    }
+
+    public int region(int ordinal) {
+        return region[ordinal];
+    }
+
+    public int subregion(int ordinal) {
+        return subregion[ordinal];
+    }
+
+    /**
+     * @return The ordinals of the countries in the given region, in snapshot order. The array is shared and must not
+     * be modified.
+     */
+    public int[] inRegion(int regionId) {
+        return forRegion(regionMembers, regionId);
+    }
+
+    /**
+     * @return The ordinals of the countries in the given region, most populous first. The array is shared and must
+     * not be modified.
+     */
+    public int[] inRegionByPopulation(int regionId) {
+        return forRegion(regionByPopulation, regionId);
+    }
+
+    /**
+     * @return The ordinals of the countries in the given region, by common name, case-insensitive. The array is
+     * shared and must not be modified.
+     */
+    public int[] inRegionByName(int regionId) {
+        return forRegion(regionByName, regionId);
+    }
+
+    /**
+     * @return The ordinals of the countries in the given region, largest first. The array is shared and must not be
+     * modified.
+     */
+    public int[] inRegionByArea(int regionId) {
+        return forRegion(regionByArea, regionId);
+    }
+
+    /**
+     * @return The ordinals of the countries in the given subregion, in snapshot order. The array is shared and must
+     * not be modified.
+     */
+    public int[] inSubregion(int subregionId) {
+        return forRegion(subregionMembers, subregionId);
+    }
+
+    /**
+     * @return The ordinals of all countries, most populous first. The array is shared and must not be modified.
+     */
+    int[] byPopulation() {
+        return byPopulation;
+    }
+
+    static String fold(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private static int[] forRegion(int[][] partitions, int regionId) {
+        return regionId != NONE ? partitions[regionId] : NO_ORDINALS;
+    }
+
+    // splits the ordinals by their dictionary id in the column, keeping their order within each id
+    private static int[][] partition(int[] order, int[] column, int ids) {
+        int[] counts = new int[ids];
+        for (int id : column) {
+            if (id != NONE) {
+                counts[id]++;
+            }
+        }
+        int[][] partitions = new int[ids][];
+        for (int id = 0; id < ids; id++) {
+            partitions[id] = new int[counts[id]];
+        }
+        int[] filled = new int[ids];
+        for (int ordinal : order) {
+            int id = column[ordinal];
+            if (id != NONE) {
+                partitions[id][filled[id]++] = ordinal;
+            }
+        }
+        return partitions;
+    }
+
+    // stable, so countries with equal keys stay in snapshot order
+    private static int[] order(int size, Comparator<Integer> comparator) {
+        Integer[] ordinals = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            ordinals[i] = i;
+        }
+        Arrays.sort(ordinals, comparator);
+        return Arrays.stream(ordinals).mapToInt(Integer::intValue).toArray();
+    }
+
+    // distinct values of a categorical attribute, looked up case-insensitively
+    private static final class Dictionary {
+        private final Map<String, Integer> ids;
+
+        private Dictionary(Map<String, Integer> ids) {
+            this.ids = ids;
+        }
+
+        int size() {
+            return ids.size();
+        }
+
+        int find(String value) {
+            Integer id = value != null ? ids.get(fold(value)) : null;
+            return id != null ? id : NONE;
+        }
+
+        static final class Builder {
+            private final Map<String, Integer> ids = new HashMap<>();
+
+            int id(String value) {
+                if (value == null || value.isEmpty()) {
+                    return NONE;
+                }
+                return ids.computeIfAbsent(fold(value), key -> ids.size());
+            }
+
+            Dictionary build() {
+                return new Dictionary(Map.copyOf(ids));
+            }
+        }
+    }
+}
@@ -0,0 +1,372 @@
+package ie.tcd.scss.countryinfo.service;
+
+import ie.tcd.scss.countryinfo.domain.CapitalInfo;
+import ie.tcd.scss.countryinfo.domain.Car;
+import ie.tcd.scss.countryinfo.domain.CoatOfArms;
+import ie.tcd.scss.countryinfo.domain.Country;
+import ie.tcd.scss.countryinfo.domain.Currency;
+import ie.tcd.scss.countryinfo.domain.Demonym;
+import ie.tcd.scss.countryinfo.domain.Flags;
+import ie.tcd.scss.countryinfo.domain.Gini;
+import ie.tcd.scss.countryinfo.domain.IDD;
+import ie.tcd.scss.countryinfo.domain.Maps;
+import ie.tcd.scss.countryinfo.domain.Name;
+import ie.tcd.scss.countryinfo.domain.NativeName;
+import ie.tcd.scss.countryinfo.domain.Translation;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * The binary encoding of the full countries in the {@link CountrySnapshotFile}, so a restore reads them without a JSON
+ * parser. Strings are refs into the string table of the file, like those of the records. The attributes are written in
+ * the order of {@link Country}'s fields:
+ * <ul>
+ *     <li>strings as a string ref, -1 for null</li>
+ *     <li>Booleans as a byte, -1 for null</li>
+ *     <li>Integers and nested objects as a byte that is 1 if present, followed by the value or the object's
+ *     attributes</li>
+ *     <li>lists as an int count, -1 for null, followed by the elements; numbers as doubles with NaN for null, which
+ *     JSON cannot hold</li>
+ *     <li>maps as an int count, -1 for null, followed by each entry as a string ref and the value; entries with a null
+ *     key or value are left out</li>
+ * </ul>
+ * Decoded collections are modifiable; the snapshot compacts them like freshly parsed ones.
+ */
+final class CountryDetailsCodec {
+
+    private CountryDetailsCodec() {
+    }
+
+    @FunctionalInterface
+    private interface ValueWriter<V> {
+        void write(V value) throws IOException;
+    }
+
+    static void write(DataOutputStream out, ToIntFunction<String> strings, Country country) throws IOException {
+        Writer writer = new Writer(out, strings);
+        Name name = country.getName();
+        if (writer.present(name)) {
+            writer.string(name.getCommon());
+            writer.string(name.getOfficial());
+            writer.map(name.getNativeName(), nativeName -> {
+                writer.string(nativeName.getOfficial());
+                writer.string(nativeName.getCommon());
+            });
+        }
+        writer.strings(country.getTld());
+        writer.string(country.getCca2());
+        writer.string(country.getCcn3());
+        writer.string(country.getCca3());
+        writer.string(country.getCioc());
+        writer.bool(country.getIndependent());
+        writer.string(country.getStatus());
+        writer.bool(country.getUnMember());
+        writer.map(country.getCurrencies(), currency -> {
+            writer.string(currency.getName());
+            writer.string(currency.getSymbol());
+        });
+        IDD idd = country.getIdd();
+        if (writer.present(idd)) {
+            writer.string(idd.getRoot());
+            writer.strings(idd.getSuffixes());
+        }
+        writer.strings(country.getCapital());
+        writer.strings(country.getAltSpellings());
+        writer.string(country.getRegion());
+        writer.string(country.getSubregion());
+        writer.map(country.getLanguages(), writer::string);
+        writer.map(country.getTranslations(), translation -> {
+            writer.string(translation.getOfficial());
+            writer.string(translation.getCommon());
+        });
+        writer.numbers(country.getLatlng());
+        writer.bool(country.getLandlocked());
+        writer.strings(country.getBorders());
+        writer.integer(country.getArea());
+        writer.map(country.getDemonyms(), demonym -> {
+            writer.string(demonym.getF());
+            writer.string(demonym.getM());
+        });
+        writer.string(country.getFlag());
+        Maps maps = country.getMaps();
+        if (writer.present(maps)) {
+            writer.string(maps.getGoogleMaps());
+            writer.string(maps.getOpenStreetMaps());
+        }
+        writer.integer(country.getPopulation());
+        Gini gini = country.getGini();
+        if (writer.present(gini)) {
+            out.writeDouble(gini._2017 != null ? gini._2017 : Double.NaN);
+        }
+        writer.string(country.getFifa());
+        Car car = country.getCar();
+        if (writer.present(car)) {
+            writer.strings(car.getSigns());
+            writer.string(car.getSide());
+        }
+        writer.strings(country.getTimezones());
+        writer.strings(country.getContinents());
+        Flags flags = country.getFlags();
+        if (writer.present(flags)) {
+            writer.string(flags.getPng());
+            writer.string(flags.getSvg());
+            writer.string(flags.getAlt());
+        }
+        CoatOfArms coatOfArms = country.getCoatOfArms();
+        if (writer.present(coatOfArms)) {
+            writer.string(coatOfArms.getPng());
+            writer.string(coatOfArms.getSvg());
+        }
+        writer.string(country.getStartOfWeek());
+        CapitalInfo capitalInfo = country.getCapitalInfo();
+        if (writer.present(capitalInfo)) {
+            writer.numbers(capitalInfo.getLatlng());
+        }
+    }
+
+    static Country read(ByteBuffer in, String[] strings) {
+        Reader reader = new Reader(in, strings);
+        Country country = new Country();
+        if (reader.present()) {
+            Name name = new Name();
+            name.setCommon(reader.string());
+            name.setOfficial(reader.string());
+            name.setNativeName(reader.map(() -> {
+                NativeName nativeName = new NativeName();
+                nativeName.setOfficial(reader.string());
+                nativeName.setCommon(reader.string());
+                return nativeName;
+            }));
+            country.setName(name);
+        }
+        country.setTld(reader.strings());
+        country.setCca2(reader.string());
+        country.setCcn3(reader.string());
+        country.setCca3(reader.string());
+        country.setCioc(reader.string());
+        country.setIndependent(reader.bool());
+        country.setStatus(reader.string());
+        country.setUnMember(reader.bool());
+        country.setCurrencies(reader.map(() -> {
+            Currency currency = new Currency();
+            currency.setName(reader.string());
+            currency.setSymbol(reader.string());
+            return currency;
+        }));
+        if (reader.present()) {
+            IDD idd = new IDD();
+            idd.setRoot(reader.string());
+            idd.setSuffixes(reader.strings());
+            country.setIdd(idd);
+        }
+        country.setCapital(reader.strings());
+        country.setAltSpellings(reader.strings());
+        country.setRegion(reader.string());
+        country.setSubregion(reader.string());
+        country.setLanguages(reader.map(reader::string));
+        country.setTranslations(reader.map(() -> {
+            Translation translation = new Translation();
+            translation.setOfficial(reader.string());
+            translation.setCommon(reader.string());
+            return translation;
+        }));
+        country.setLatlng(reader.numbers());
+        country.setLandlocked(reader.bool());
+        country.setBorders(reader.strings());
+        country.setArea(reader.integer());
+        country.setDemonyms(reader.map(() -> {
+            Demonym demonym = new Demonym();
+            demonym.setF(reader.string());
+            demonym.setM(reader.string());
+            return demonym;
+        }));
+        country.setFlag(reader.string());
+        if (reader.present()) {
+            Maps maps = new Maps();
+            maps.setGoogleMaps(reader.string());
+            maps.setOpenStreetMaps(reader.string());
+            country.setMaps(maps);
+        }
+        country.setPopulation(reader.integer());
+        if (reader.present()) {
+            Gini gini = new Gini();
+            double value = in.getDouble();
+            gini._2017 = !Double.isNaN(value) ? value : null;
+            country.setGini(gini);
+        }
+        country.setFifa(reader.string());
+        if (reader.present()) {
+            Car car = new Car();
+            car.setSigns(reader.strings());
+            car.setSide(reader.string());
+            country.setCar(car);
+        }
+        country.setTimezones(reader.strings());
+        country.setContinents(reader.strings());
+        if (reader.present()) {
+            Flags flags = new Flags();
+            flags.setPng(reader.string());
+            flags.setSvg(reader.string());
+            flags.setAlt(reader.string());
+            country.setFlags(flags);
+        }
+        if (reader.present()) {
+            CoatOfArms coatOfArms = new CoatOfArms();
+            coatOfArms.setPng(reader.string());
+            coatOfArms.setSvg(reader.string());
+            country.setCoatOfArms(coatOfArms);
+        }
+        country.setStartOfWeek(reader.string());
+        if (reader.present()) {
+            CapitalInfo capitalInfo = new CapitalInfo();
+            capitalInfo.setLatlng(reader.numbers());
+            country.setCapitalInfo(capitalInfo);
+        }
+        return country;
+    }
+
+    private static final class Writer {
+        private final DataOutputStream out;
+        private final ToIntFunction<String> strings;
+
+        Writer(DataOutputStream out, ToIntFunction<String> strings) {
+            this.out = out;
+            this.strings = strings;
+        }
+
+        boolean present(Object value) throws IOException {
+            out.writeByte(value != null ? 1 : 0);
+            return value != null;
+        }
+
+        void string(String value) throws IOException {
+            out.writeInt(strings.applyAsInt(value));
+        }
+
+        void bool(Boolean value) throws IOException {
+            out.writeByte(value == null ? -1 : value ? 1 : 0);
+        }
+
+        void integer(Integer value) throws IOException {
+            if (present(value)) {
+                out.writeInt(value);
+            }
+        }
+
+        void strings(List<String> values) throws IOException {
+            if (values == null) {
+                out.writeInt(-1);
+                return;
+            }
+            out.writeInt(values.size());
+            for (String value : values) {
+                string(value);
+            }
+        }
+
+        void numbers(List<Double> values) throws IOException {
+            if (values == null) {
+                out.writeInt(-1);
+                return;
+            }
+            out.writeInt(values.size());
+            for (Double value : values) {
+                out.writeDouble(value != null ? value : Double.NaN);
+            }
+        }
+
+        <V> void map(Map<String, V> map, ValueWriter<V> value) throws IOException {
+            if (map == null) {
+                out.writeInt(-1);
+                return;
+            }
+            int size = 0;
+            for (Map.Entry<String, V> entry : map.entrySet()) {
+                if (entry.getKey() != null && entry.getValue() != null) {
+                    size++;
+                }
+            }
+            out.writeInt(size);
+            for (Map.Entry<String, V> entry : map.entrySet()) {
+                if (entry.getKey() != null && entry.getValue() != null) {
+                    string(entry.getKey());
+                    value.write(entry.getValue());
+                }
+            }
+        }
+    }
+
+    private static final class Reader {
+        private final ByteBuffer in;
+        private final String[] strings;
+
+        Reader(ByteBuffer in, String[] strings) {
+            this.in = in;
+            this.strings = strings;
+        }
+
+        boolean present() {
+            return in.get() != 0;
+        }
+
+        String string() {
+            int ref = in.getInt();
+            return ref >= 0 ? strings[ref] : null;
+        }
+
+        Boolean bool() {
+            byte value = in.get();
+            return value < 0 ? null : value != 0;
+        }
+
+        Integer integer() {
+            return present() ? in.getInt() : null;
+        }
+
+        List<String> strings() {
+            int size = in.getInt();
+            if (size < 0) {
+                return null;
+            }
+            String[] values = new String[size];
+            for (int i = 0; i < size; i++) {
+                values[i] = string();
+            }
+            return Arrays.asList(values);
+        }
+
+        List<Double> numbers() {
+            int size = in.getInt();
+            if (size < 0) {
+                return null;
+            }
+            List<Double> values = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                double value = in.getDouble();
+                values.add(!Double.isNaN(value) ? value : null);
+            }
+            return values;
+        }
+
+        <V> Map<String, V> map(Supplier<V> value) {
+            int size = in.getInt();
+            if (size < 0) {
+                return null;
+            }
+            Map<String, V> map = new LinkedHashMap<>(size * 2);
+            for (int i = 0; i < size; i++) {
+                map.put(string(), value.get());
+            }
+            return map;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package ie.tcd.scss.countryinfo.service;
+
+import ie.tcd.scss.countryinfo.domain.CapitalInfo;
+import ie.tcd.scss.countryinfo.domain.Car;
+import ie.tcd.scss.countryinfo.domain.CoatOfArms;
+import ie.tcd.scss.countryinfo.domain.Country;
+import ie.tcd.scss.countryinfo.domain.Currency;
+import ie.tcd.scss.countryinfo.domain.Demonym;
+import ie.tcd.scss.countryinfo.domain.Flags;
+import ie.tcd.scss.countryinfo.domain.IDD;
+import ie.tcd.scss.countryinfo.domain.Maps;
+import ie.tcd.scss.countryinfo.domain.Name;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Compacts the countries of a snapshot before they are indexed. The upstream JSON repeats the same values across
+ * countries: region and language names, currency codes and currencies, timezones, demonyms, the border codes that are
+ * also cca3 codes, and the names that appear in both the records and the full countries. The parser creates a new
+ * String for each occurrence; the dictionary keeps one instance per distinct value and replaces the others by it.
+ * <p>
+ * Collections become unmodifiable and array-backed: lists of strings as {@link List#of} copies, lists of numbers as
+ * copies that keep null elements in their positions, maps as {@link FlatMap}s in the order of the upstream JSON. Currencies and demonyms with the same values become one shared object. The full countries
+ * are compacted in place, so they must not be shared with anything else; like all objects of a snapshot, they must not
+ * be modified afterwards.
+ * <p>
+ * A dictionary is only used while one snapshot is built and is not thread-safe.
+ */
+public final class CountryDictionary {
+
+    private final Map<String, String> strings = new HashMap<>(4096);
+    // by their values, [name, symbol] and [f, m]
+    private final Map<List<String>, Currency> currencies = new HashMap<>();
+    private final Map<List<String>, Demonym> demonyms = new HashMap<>();
+
+    /**
+     * @return The canonical instance of the value, null for null.
+     */
+    public String canonical(String value) {
+        if (value == null) {
+            return null;
+        }
+        String existing = strings.putIfAbsent(value, value);
+        return existing != null ? existing : value;
+    }
+
+    /**
+     * @return Copies of the records with canonical strings.
+     */
+    public List<CountryRecord> compactRecords(List<CountryRecord> countries) {
+        List<CountryRecord> compacted = new ArrayList<>(countries.size());
+        for (CountryRecord country : countries) {
+            compacted.add(new CountryRecord(canonical(country.commonName()), canonical(country.officialName()),
+                    canonical(country.cca2()), canonical(country.cca3()), canonical(country.ccn3()),
+                    canonical(country.region()), canonical(country.subregion()),
+                    country.population(), country.area(),
+                    country.latitude(), country.longitude(), country.capitalLat(), country.capitalLng(),
+                    strings(country.languages()), strings(country.currencyCodes()), strings(country.borders())));
+        }
+        return compacted;
+    }
+
+    /**
+     * Compacts the full countries in place.
+     *
+     * @return The countries.
+     */
+    public List<Country> compactDetails(List<Country> countries) {
+        for (Country country : countries) {
+            compact(country);
+        }
+        return countries;
+    }
+
+    private void compact(Country country) {
+        Name name = country.getName();
+        if (name != null) {
+            name.setCommon(canonical(name.getCommon()));
+            name.setOfficial(canonical(name.getOfficial()));
+            if (name.getNativeName() != null) {
+                name.setNativeName(FlatMap.copyOf(name.getNativeName(), this::canonical, nativeName -> {
+                    nativeName.setCommon(canonical(nativeName.getCommon()));
+                    nativeName.setOfficial(canonical(nativeName.getOfficial()));
+                    return nativeName;
+                }));
+            }
+        }
+        country.setTld(strings(country.getTld()));
+        country.setCca2(canonical(country.getCca2()));
+        country.setCcn3(canonical(country.getCcn3()));
+        country.setCca3(canonical(country.getCca3()));
+        country.setCioc(canonical(country.getCioc()));
+        country.setStatus(canonical(country.getStatus()));
+        if (country.getCurrencies() != null) {
+            country.setCurrencies(FlatMap.copyOf(country.getCurrencies(), this::canonical, this::currency));
+        }
+        IDD idd = country.getIdd();
+        if (idd != null) {
+            idd.setRoot(canonical(idd.getRoot()));
+            idd.setSuffixes(strings(idd.getSuffixes()));
+        }
+        country.setCapital(strings(country.getCapital()));
+        country.setAltSpellings(strings(country.getAltSpellings()));
+        country.setRegion(canonical(country.getRegion()));
+        country.setSubregion(canonical(country.getSubregion()));
+        if (country.getLanguages() != null) {
+            country.setLanguages(FlatMap.copyOf(country.getLanguages(), this::canonical, this::canonical));
+        }
+        if (country.getTranslations() != null) {
+            country.setTranslations(FlatMap.copyOf(country.getTranslations(), this::canonical, translation -> {
+                translation.setCommon(canonical(translation.getCommon()));
+                translation.setOfficial(canonical(translation.getOfficial()));
+                return translation;
+            }));
+        }
+        country.setLatlng(numbers(country.getLatlng()));
+        country.setBorders(strings(country.getBorders()));
+        if (country.getDemonyms() != null) {
+            country.setDemonyms(FlatMap.copyOf(country.getDemonyms(), this::canonical, this::demonym));
+        }
+        country.setFlag(canonical(country.getFlag()));
+        country.setFifa(canonical(country.getFifa()));
+        Car car = country.getCar();
+        if (car != null) {
+            car.setSigns(strings(car.getSigns()));
+            car.setSide(canonical(car.getSide()));
+        }
+        country.setTimezones(strings(country.getTimezones()));
+        country.setContinents(strings(country.getContinents()));
+        Maps maps = country.getMaps();
+        if (maps != null) {
+            maps.setGoogleMaps(canonical(maps.getGoogleMaps()));
+            maps.setOpenStreetMaps(canonical(maps.getOpenStreetMaps()));
+        }
+        Flags flags = country.getFlags();
+        if (flags != null) {
+            flags.setPng(canonical(flags.getPng()));
+            flags.setSvg(canonical(flags.getSvg()));
+            flags.setAlt(canonical(flags.getAlt()));
+        }
+        CoatOfArms coatOfArms = country.getCoatOfArms();
+        if (coatOfArms != null) {
+            coatOfArms.setPng(canonical(coatOfArms.getPng()));
+            coatOfArms.setSvg(canonical(coatOfArms.getSvg()));
+        }
+        country.setStartOfWeek(canonical(country.getStartOfWeek()));
+        CapitalInfo capitalInfo = country.getCapitalInfo();
+        if (capitalInfo != null) {
+            capitalInfo.setLatlng(numbers(capitalInfo.getLatlng()));
+        }
+    }
+
+    // the same list of canonical strings, without nulls, which the upstream does not send in lists
+    private List<String> strings(List<String> values) {
+        if (values == null) {
+            return null;
+        }
+        return List.of(values.stream().filter(Objects::nonNull).map(this::canonical).toArray(String[]::new));
+    }
+
+    // an unmodifiable copy that keeps a null in its position, latlng pairs are read by index
+    private static List<Double> numbers(List<Double> values) {
+        return values != null ? Collections.unmodifiableList(new ArrayList<>(values)) : null;
+    }
+
+    private Currency currency(Currency currency) {
+        return currencies.computeIfAbsent(Arrays.asList(currency.getName(), currency.getSymbol()), key -> {
+            currency.setName(canonical(currency.getName()));
+            currency.setSymbol(canonical(currency.getSymbol()));
+            return currency;
+        });
+    }
+
+    private Demonym demonym(Demonym demonym) {
+        return demonyms.computeIfAbsent(Arrays.asList(demonym.getF(), demonym.getM()), key -> {
+            demonym.setF(canonical(demonym.getF()));
+            demonym.setM(canonical(demonym.getM()));
+            return demonym;
+        });
+    }
+}
@@ -0,0 +1,98 @@
+package ie.tcd.scss.countryinfo.service;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * The great-circle distances between all pairs of countries of a snapshot, between their capitals and between their
+ * coordinates (centroids), so a comparison reads a distance instead of computing it.
+ * <p>
+ * The matrices are symmetric with a zero diagonal, so only the pairs below the diagonal are stored, row by row in one
+ * float array: the distance between ordinals i and j, j &lt; i, is at {@code i * (i - 1) / 2 + j}. Kilometres as a
+ * float are off by at most about a metre at the longest distances of 10,000 to 20,000 km, far below the 100 m the
+ * comparison rounds them to. The rows are computed in parallel when the snapshot is built. Pairs with unknown
+ * coordinates hold NaN.
+ */
+public final class CountryDistanceMatrix {
+
+    private final int size;
+    private final float[] capitals;
+    private final float[] centroids;
+
+    public CountryDistanceMatrix(List<CountryRecord> countries) {
+        size = countries.size();
+        int pairs = size * (size - 1) / 2;
+        capitals = new float[pairs];
+        centroids = new float[pairs];
+        fill(capitals, countries, true);
+        fill(centroids, countries, false);
+    }
+
+    /**
+     * @return The number of countries.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The great-circle distance between the capitals of two countries in km, NaN if a capital's coordinates
+     * are unknown.
+     */
+    public float capitalKm(int a, int b) {
+        return distance(capitals, a, b);
+    }
+
+    /**
+     * @return The great-circle distance between the coordinates of two countries in km, NaN if they are unknown.
+     */
+    public float centroidKm(int a, int b) {
+        return distance(centroids, a, b);
+    }
+
+    /**
+     * @return The memory used by the distances, in bytes.
+     */
+    public long bytes() {
+        return (long) (capitals.length + centroids.length) * Float.BYTES;
+    }
+
+    private float distance(float[] matrix, int a, int b) {
+        if (a < 0 || b < 0 || a >= size || b >= size) {
+            throw new IndexOutOfBoundsException("No pair " + a + ", " + b + " among " + size + " countries");
+        }
+        if (a == b) {
+            return 0;
+        }
+        return a > b ? matrix[offset(a) + b] : matrix[offset(b) + a];
+    }
+
+    private static int offset(int row) {
+        return row * (row - 1) / 2;
+    }
+
+    private static void fill(float[] matrix, List<CountryRecord> countries, boolean capital) {
+        // the unit vectors once per country, so each pair costs a subtraction and an asin
+        double[][] vectors = new double[countries.size()][];
+        for (int ordinal = 0; ordinal < vectors.length; ordinal++) {
+            CountryRecord country = countries.get(ordinal);
+            double latitude = capital ? country.capitalLat() : country.latitude();
+            double longitude = capital ? country.capitalLng() : country.longitude();
+            if (!Double.isNaN(latitude) && !Double.isNaN(longitude)) {
+                vectors[ordinal] = CountryGeoIndex.unitVector(latitude, longitude);
+            }
+        }
+        // each row writes its own range of the array
+        IntStream.range(1, vectors.length).parallel().forEach(row -> {
+            double[] a = vectors[row];
+            int offset = offset(row);
+            for (int column = 0; column < row; column++) {
+                double[] b = vectors[column];
+                matrix[offset + column] = a != null && b != null
+                        ? (float) CountryGeoIndex.chordToKm(
+                                CountryGeoIndex.squared(a[0] - b[0], a[1] - b[1], a[2] - b[2]))
+                        : Float.NaN;
+            }
+        });
+    }
+}
@@ -0,0 +1,75 @@
+package ie.tcd.scss.countryinfo.service;
+
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * The set of top-level country attributes a request to the upstream asks for, sent as the {@code fields} query
+ * parameter, e.g. {@code ?fields=flags,name}. Service methods declare the fields they read, so the upstream sends
+ * only those instead of the full objects with their large translations and native name maps.
+ * {@link #ALL} requests complete objects.
+ */
+public final class CountryFields {
+
+    /**
+     * All attributes, i.e. no {@code fields} parameter.
+     */
+    public static final CountryFields ALL = new CountryFields(null);
+
+    // sorted, so equal sets produce equal URLs; null means all fields
+    private final SortedSet<String> names;
+
+    private CountryFields(SortedSet<String> names) {
+        this.names = names;
+    }
+
+    /**
+     * @param names Upstream attribute names, e.g. "name", "flags", "population".
+     */
+    public static CountryFields of(String... names) {
+        return new CountryFields(new TreeSet<>(Set.of(names)));
+    }
+
+    /**
+     * @return True if an object fetched with these fields contains all of the other fields.
+     */
+    public boolean covers(CountryFields other) {
+        return names == null || (other.names != null && names.containsAll(other.names));
+    }
+
+    /**
+     * @return The fields needed to serve both this and the other field set with one request.
+     */
+    public CountryFields union(CountryFields other) {
+        if (names == null || other.names == null) {
+            return ALL;
+        }
+        SortedSet<String> merged = new TreeSet<>(names);
+        merged.addAll(other.names);
+        return new CountryFields(merged);
+    }
+
+    /**
+     * @return The value of the {@code fields} query parameter, or null for {@link #ALL}.
+     */
+    public String toQueryValue() {
+        return names != null ? String.join(",", names) : null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof CountryFields other && Objects.equals(names, other.names);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(names);
+    }
+
+    @Override
+    public String toString() {
+        return names != null ? names.toString() : "ALL";
+    }
+}
@@ -0,0 +1,351 @@
+package ie.tcd.scss.countryinfo.service;
+
+import java.util.Arrays;
+
+/**
+ * Spatial index of points on the earth, one per country ordinal, for nearest-neighbour and radius queries by
+ * great-circle distance.
+ * <p>
+ * Each point is stored as a unit vector (x, y, z), so the straight-line (chord) distance between two vectors grows
+ * monotonically with the great-circle distance and there is no special case at the poles or the antimeridian. The
+ * vectors form an implicit k-d tree over flat arrays: the node of a range of the arrays is its middle element, which
+ * splits the range along the axis stored for it; the elements before it are not greater, the ones after it not
+ * smaller along that axis. Points with unknown coordinates (NaN) are left out.
+ */
+public final class CountryGeoIndex {
+
+    /**
+     * The mean radius of the earth, in km.
+     */
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+
+    private static final Result NO_RESULT = new Result(new int[0], new double[0]);
+
+    // the tree, in node order
+    private final int[] ordinals;
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] zs;
+    // the splitting axis of each node, 0 to 2 for x, y or z
+    private final byte[] axes;
+
+    /**
+     * @param latitudes  The latitude of each ordinal, in degrees, NaN if unknown.
+     * @param longitudes The longitude of each ordinal, in degrees, NaN if unknown.
+     */
+    public CountryGeoIndex(double[] latitudes, double[] longitudes) {
+        int count = 0;
+        int[] known = new int[latitudes.length];
+        for (int ordinal = 0; ordinal < latitudes.length; ordinal++) {
+            if (!Double.isNaN(latitudes[ordinal]) && !Double.isNaN(longitudes[ordinal])) {
+                known[count++] = ordinal;
+            }
+        }
+        ordinals = Arrays.copyOf(known, count);
+        xs = new double[count];
+        ys = new double[count];
+        zs = new double[count];
+        axes = new byte[count];
+        for (int i = 0; i < count; i++) {
+            double[] vector = unitVector(latitudes[ordinals[i]], longitudes[ordinals[i]]);
+            xs[i] = vector[0];
+            ys[i] = vector[1];
+            zs[i] = vector[2];
+        }
+        build(0, count);
+    }
+
+    /**
+     * @return The number of indexed points.
+     */
+    public int size() {
+        return ordinals.length;
+    }
+
+    /**
+     * @param latitude  In degrees.
+     * @param longitude In degrees.
+     * @param k         The number of points to return.
+     * @return The k points nearest to the given one, nearest first; equally distant points by ascending ordinal.
+     */
+    public Result nearest(double latitude, double longitude, int k) {
+        int capacity = Math.min(k, size());
+        if (capacity <= 0) {
+            return NO_RESULT;
+        }
+        double[] query = unitVector(latitude, longitude);
+        Candidates candidates = new Candidates(capacity);
+        searchNearest(0, size(), query[0], query[1], query[2], candidates);
+        return candidates.toResult();
+    }
+
+    /**
+     * @param latitude  In degrees.
+     * @param longitude In degrees.
+     * @param radiusKm  The greatest great-circle distance, in km.
+     * @return The points within the radius of the given one, nearest first; equally distant points by ascending
+     * ordinal.
+     */
+    public Result within(double latitude, double longitude, double radiusKm) {
+        if (size() == 0 || radiusKm < 0) {
+            return NO_RESULT;
+        }
+        double[] query = unitVector(latitude, longitude);
+        // beyond half the circumference every point is within the radius
+        double angle = Math.min(radiusKm / EARTH_RADIUS_KM, Math.PI);
+        double chord = 2 * Math.sin(angle / 2);
+        Candidates candidates = new Candidates(size());
+        searchWithin(0, size(), query[0], query[1], query[2], chord * chord, candidates);
+        return candidates.toResult();
+    }
+
+    /**
+     * @return The great-circle distance between two points, in km.
+     */
+    public static double distanceKm(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double[] a = unitVector(latitude1, longitude1);
+        double[] b = unitVector(latitude2, longitude2);
+        return chordToKm(squared(a[0] - b[0], a[1] - b[1], a[2] - b[2]));
+    }
+
+    private void build(int from, int to) {
+        if (to - from <= 1) {
+            return;
+        }
+        int axis = widestAxis(from, to);
+        int middle = (from + to) >>> 1;
+        select(from, to, middle, axis);
+        axes[middle] = (byte) axis;
+        build(from, middle);
+        build(middle + 1, to);
+    }
+
+    private int widestAxis(int from, int to) {
+        int widest = 0;
+        double widestSpread = -1;
+        for (int axis = 0; axis < 3; axis++) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = from; i < to; i++) {
+                double value = coordinate(axis, i);
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+            if (max - min > widestSpread) {
+                widestSpread = max - min;
+                widest = axis;
+            }
+        }
+        return widest;
+    }
+
+    // quickselect: moves the element of rank n along the axis to index n, smaller ones before, larger ones after
+    private void select(int from, int to, int n, int axis) {
+        int low = from;
+        int high = to - 1;
+        while (low < high) {
+            double pivot = coordinate(axis, (low + high) >>> 1);
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (coordinate(axis, i) < pivot) {
+                    i++;
+                }
+                while (coordinate(axis, j) > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            if (n <= j) {
+                high = j;
+            } else if (n >= i) {
+                low = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void searchNearest(int from, int to, double x, double y, double z, Candidates candidates) {
+        if (from >= to) {
+            return;
+        }
+        int node = (from + to) >>> 1;
+        candidates.offer(ordinals[node], squared(xs[node] - x, ys[node] - y, zs[node] - z));
+        if (to - from == 1) {
+            return;
+        }
+        double offset = query(axes[node], x, y, z) - coordinate(axes[node], node);
+        // the side of the query first, the other side only if it can hold a nearer point
+        if (offset < 0) {
+            searchNearest(from, node, x, y, z, candidates);
+            if (!candidates.isFull() || offset * offset <= candidates.worst()) {
+                searchNearest(node + 1, to, x, y, z, candidates);
+            }
+        } else {
+            searchNearest(node + 1, to, x, y, z, candidates);
+            if (!candidates.isFull() || offset * offset <= candidates.worst()) {
+                searchNearest(from, node, x, y, z, candidates);
+            }
+        }
+    }
+
+    private void searchWithin(int from, int to, double x, double y, double z, double limit, Candidates candidates) {
+        if (from >= to) {
+            return;
+        }
+        int node = (from + to) >>> 1;
+        double distance = squared(xs[node] - x, ys[node] - y, zs[node] - z);
+        if (distance <= limit) {
+            candidates.offer(ordinals[node], distance);
+        }
+        if (to - from == 1) {
+            return;
+        }
+        double offset = query(axes[node], x, y, z) - coordinate(axes[node], node);
+        if (offset <= 0 || offset * offset <= limit) {
+            searchWithin(from, node, x, y, z, limit, candidates);
+        }
+        if (offset >= 0 || offset * offset <= limit) {
+            searchWithin(node + 1, to, x, y, z, limit, candidates);
+        }
+    }
+
+    private double coordinate(int axis, int i) {
+        return axis == 0 ? xs[i] : axis == 1 ? ys[i] : zs[i];
+    }
+
+    private static double query(int axis, double x, double y, double z) {
+        return axis == 0 ? x : axis == 1 ? y : z;
+    }
+
+    private void swap(int i, int j) {
+        int ordinal = ordinals[i];
+        ordinals[i] = ordinals[j];
+        ordinals[j] = ordinal;
+        double x = xs[i];
+        xs[i] = xs[j];
+        xs[j] = x;
+        double y = ys[i];
+        ys[i] = ys[j];
+        ys[j] = y;
+        double z = zs[i];
+        zs[i] = zs[j];
+        zs[j] = z;
+    }
+
+    static double[] unitVector(double latitude, double longitude) {
+        double phi = Math.toRadians(latitude);
+        double lambda = Math.toRadians(longitude);
+        double cosPhi = Math.cos(phi);
+        return new double[]{cosPhi * Math.cos(lambda), cosPhi * Math.sin(lambda), Math.sin(phi)};
+    }
+
+    static double squared(double dx, double dy, double dz) {
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    // the great-circle distance for a squared chord length between unit vectors
+    static double chordToKm(double squaredChord) {
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(squaredChord) / 2));
+    }
+
+    /**
+     * Points found by a query.
+     *
+     * @param ordinals    The ordinals of the points, nearest first.
+     * @param distancesKm For each of them, the great-circle distance to the queried point, in km.
+     */
+    public record Result(int[] ordinals, double[] distancesKm) {
+    }
+
+    // the best points seen so far as a bounded max-heap on (squared chord, ordinal), the worst at the root
+    private static final class Candidates {
+        private final int[] ordinals;
+        private final double[] distances;
+        private int size;
+
+        Candidates(int capacity) {
+            ordinals = new int[capacity];
+            distances = new double[capacity];
+        }
+
+        boolean isFull() {
+            return size == ordinals.length;
+        }
+
+        double worst() {
+            return distances[0];
+        }
+
+        void offer(int ordinal, double distance) {
+            if (size < ordinals.length) {
+                ordinals[size] = ordinal;
+                distances[size] = distance;
+                siftUp(size++);
+            } else if (worse(ordinals[0], distances[0], ordinal, distance)) {
+                ordinals[0] = ordinal;
+                distances[0] = distance;
+                siftDown(0, size);
+            }
+        }
+
+        Result toResult() {
+            // heapsort, moving the worst remaining to the end each round leaves the nearest first
+            for (int end = size - 1; end > 0; end--) {
+                swap(0, end);
+                siftDown(0, end);
+            }
+            int[] found = Arrays.copyOf(ordinals, size);
+            double[] kilometres = new double[size];
+            for (int i = 0; i < size; i++) {
+                kilometres[i] = chordToKm(distances[i]);
+            }
+            return new Result(found, kilometres);
+        }
+
+        private static boolean worse(int ordinal1, double distance1, int ordinal2, double distance2) {
+            return distance1 > distance2 || distance1 == distance2 && ordinal1 > ordinal2;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!worse(ordinals[i], distances[i], ordinals[parent], distances[parent])) {
+                    break;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i, int end) {
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= end) {
+                    break;
+                }
+                if (child + 1 < end
+                        && worse(ordinals[child + 1], distances[child + 1], ordinals[child], distances[child])) {
+                    child++;
+                }
+                if (!worse(ordinals[child], distances[child], ordinals[i], distances[i])) {
+                    break;
+                }
+                swap(i, child);
+                i = child;
+            }
+        }
+
+        private void swap(int i, int j) {
+            int ordinal = ordinals[i];
+            ordinals[i] = ordinals[j];
+            ordinals[j] = ordinal;
+            double distance = distances[i];
+            distances[i] = distances[j];
+            distances[j] = distance;
+        }
+    }
+}
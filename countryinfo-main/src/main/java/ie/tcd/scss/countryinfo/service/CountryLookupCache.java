@@ -0,0 +1,241 @@
+package ie.tcd.scss.countryinfo.service;
+
+import ie.tcd.scss.countryinfo.config.CountryInfoProperties;
+import ie.tcd.scss.countryinfo.domain.Country;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+/**
+ * Bounded cache for the results of country lookups by name. Entries expire after a TTL and the least recently used
+ * entry is evicted when the cache is full. Names the upstream does not know are cached as well (negative entries,
+ * stored as an empty list) with their own, usually shorter, TTL, so repeated lookups of bogus names stay local.
+ * <p>
+ * Each entry remembers the {@link CountryFields} it was fetched with. A lookup that needs fields the entry does not
+ * cover fetches the union of both field sets, so alternating requests for different attributes of the same country
+ * converge on one entry that serves all of them.
+ * <p>
+ * Expired entries are kept for another {@code countryinfo.cache.max-stale} (stale-while-revalidate): a lookup within
+ * that window gets the stale entry right away while one background reload replaces it. If the reload fails, e.g.
+ * because the upstream circuit breaker is open, the stale entry stays in use. Stale answers are reported to the
+ * {@link StalenessTracker}.
+ * <p>
+ * Non-blocking callers, see {@link ReactiveCountryService}, use {@link #find} and {@link #store} around their own
+ * upstream call instead of {@link #get}.
+ */
+@Component
+public class CountryLookupCache {
+    private static final Logger logger = LoggerFactory.getLogger(CountryLookupCache.class);
+
+    private final int maxSize;
+    private final Duration ttl;
+    private final Duration negativeTtl;
+    private final Duration maxStale;
+    private final StalenessTracker staleness;
+    private final Executor revalidationExecutor;
+    private final Clock clock;
+
+    // access-ordered, so the eldest entry is the least recently used one
+    private final LinkedHashMap<String, Entry> entries;
+
+    // keys with a background reload in progress, so a burst of stale hits triggers only one
+    private final Set<String> revalidating = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong negativeHits = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong revalidations = new AtomicLong();
+
+    @Autowired
+    public CountryLookupCache(CountryInfoProperties properties, StalenessTracker staleness,
+                              @Qualifier("upstreamExecutor") Executor revalidationExecutor) {
+        this(properties.getCache().getMaxSize(), properties.getCache().getTtl(),
+                properties.getCache().getNegativeTtl(), properties.getCache().getMaxStale(), staleness,
+                revalidationExecutor, Clock.systemUTC());
+    }
+
+    CountryLookupCache(int maxSize, Duration ttl, Duration negativeTtl, Duration maxStale, StalenessTracker staleness,
+                       Executor revalidationExecutor, Clock clock) {
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+        this.negativeTtl = negativeTtl;
+        this.maxStale = maxStale;
+        this.staleness = staleness;
+        this.revalidationExecutor = revalidationExecutor;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > CountryLookupCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached countries for the given name, loading them with the given loader if there is no live or
+     * stale entry with the needed fields. The loader runs outside the cache lock; exceptions thrown by it are passed
+     * on and nothing is cached.
+     *
+     * @param countryName The name as requested by the client.
+     * @param fields      The attributes the caller reads.
+     * @param loader      Retrieves the countries for a name with the given fields, returning an empty list if the name
+     *                    is unknown.
+     * @return The matching countries, or an empty list if the name is unknown.
+     */
+    public List<Country> get(String countryName, CountryFields fields,
+                             BiFunction<String, CountryFields, List<Country>> loader) {
+        Lookup lookup = find(countryName, fields, loader);
+        if (lookup.countries() != null) {
+            return lookup.countries();
+        }
+        return store(countryName, lookup.fieldsToLoad(), loader.apply(countryName, lookup.fieldsToLoad()));
+    }
+
+    /**
+     * Looks up the cached countries for the given name without loading them on a miss. A stale entry is returned
+     * like a live one and reloaded in the background with the given loader.
+     *
+     * @return The cached countries, or on a miss the fields the caller should load and then {@link #store}.
+     */
+    Lookup find(String countryName, CountryFields fields, BiFunction<String, CountryFields, List<Country>> loader) {
+        String key = normalize(countryName);
+        Instant now = clock.instant();
+        CountryFields fieldsToLoad = fields;
+        Entry stale = null;
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && !entry.expiresAt.isAfter(now)) {
+                if (entry.expiresAt.plus(maxStale).isAfter(now)
+                        && (entry.countries.isEmpty() || entry.fields.covers(fields))) {
+                    stale = entry;
+                } else {
+                    entries.remove(key);
+                    expirations.incrementAndGet();
+                }
+            } else if (entry != null && entry.countries.isEmpty()) {
+                negativeHits.incrementAndGet(); // unknown names are unknown whatever the fields
+                return new Lookup(entry.countries, null);
+            } else if (entry != null && entry.fields.covers(fields)) {
+                hits.incrementAndGet();
+                return new Lookup(entry.countries, null);
+            } else if (entry != null) {
+                fieldsToLoad = entry.fields.union(fields);
+            }
+        }
+        if (stale != null) {
+            staleHits.incrementAndGet();
+            staleness.recordStale(Duration.between(stale.loadedAt, now));
+            revalidate(key, countryName, stale.fields, loader);
+            return new Lookup(stale.countries, null);
+        }
+        misses.incrementAndGet();
+        return new Lookup(null, fieldsToLoad);
+    }
+
+    /**
+     * Caches the countries loaded after a miss reported by {@link #find}.
+     *
+     * @return The cached, unmodifiable copy of the countries.
+     */
+    List<Country> store(String countryName, CountryFields fields, List<Country> loaded) {
+        List<Country> countries = List.copyOf(loaded);
+        put(normalize(countryName), countries, fields);
+        return countries;
+    }
+
+    /**
+     * Removes all entries. The counters are not reset.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * @return A point-in-time copy of the cache counters, e.g. to size the cache.
+     */
+    public Stats getStats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new Stats(size, maxSize, hits.get(), negativeHits.get(), staleHits.get(), misses.get(),
+                evictions.get(), expirations.get(), revalidations.get());
+    }
+
+    private void revalidate(String key, String countryName, CountryFields fields,
+                            BiFunction<String, CountryFields, List<Country>> loader) {
+        if (!revalidating.add(key)) {
+            return; // already being reloaded
+        }
+        try {
+            revalidationExecutor.execute(() -> {
+                try {
+                    put(key, List.copyOf(loader.apply(countryName, fields)), fields);
+                    revalidations.incrementAndGet();
+                } catch (RuntimeException e) {
+                    // keep serving the stale entry, the next stale hit tries again
+                    logger.debug("Revalidating cached lookup of {} failed: {}", countryName, e.toString());
+                } finally {
+                    revalidating.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            revalidating.remove(key);
+        }
+    }
+
+    private void put(String key, List<Country> countries, CountryFields fields) {
+        Instant loadedAt = clock.instant();
+        Instant expiresAt = loadedAt.plus(countries.isEmpty() ? negativeTtl : ttl);
+        synchronized (entries) {
+            entries.put(key, new Entry(countries, fields, loadedAt, expiresAt));
+        }
+    }
+
+    private static String normalize(String countryName) {
+        // the upstream matches names case-insensitively, so "france" and "France" share an entry
+        return countryName.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Result of {@link #find}: the cached countries, or null and the fields to load.
+     */
+    record Lookup(List<Country> countries, CountryFields fieldsToLoad) {
+    }
+
+    private record Entry(List<Country> countries, CountryFields fields, Instant loadedAt, Instant expiresAt) {
+    }
+
+    /**
+     * Counters of the cache. Hits, negative hits and stale hits are all answered without waiting for the upstream;
+     * revalidations are the successful background reloads triggered by stale hits.
+     */
+    public record Stats(int size, int maxSize, long hits, long negativeHits, long staleHits, long misses,
+                        long evictions, long expirations, long revalidations) {
+    }
+}
@@ -0,0 +1,140 @@
+package ie.tcd.scss.countryinfo.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Substring index over the case-folded common names of a snapshot. Every n-gram of one to three characters of a name
+ * has a posting list of the countries whose name contains it, ordered by population, descending.
+ * <p>
+ * A search for up to three characters is answered with its posting list as is, without allocating. A longer substring
+ * takes the shortest posting list among its trigrams as candidates and keeps those whose name contains the whole
+ * substring, so the order by population carries over without sorting.
+ */
+public final class CountryNameIndex {
+
+    private static final int[] NO_MATCHES = new int[0];
+
+    // case-folded common names by ordinal
+    private final String[] names;
+    // all ordinals, most populous first, the result for an empty substring
+    private final int[] byPopulation;
+    private final GramTable postings;
+
+    public CountryNameIndex(List<CountryRecord> countries, CountryColumns columns) {
+        names = new String[countries.size()];
+        for (int i = 0; i < names.length; i++) {
+            String name = countries.get(i).commonName();
+            names[i] = name != null ? CountryColumns.fold(name) : "";
+        }
+        byPopulation = columns.byPopulation();
+
+        // visiting the countries by population keeps each posting list in that order
+        Map<Long, int[]> lists = new HashMap<>();
+        Map<Long, Integer> sizes = new HashMap<>();
+        for (int ordinal : byPopulation) {
+            String name = names[ordinal];
+            for (int length = 1; length <= 3; length++) {
+                for (int start = 0; start + length <= name.length(); start++) {
+                    long gram = gram(name, start, length);
+                    int size = sizes.getOrDefault(gram, 0);
+                    int[] list = lists.get(gram);
+                    if (size > 0 && list[size - 1] == ordinal) {
+                        continue; // the gram occurs more than once in this name
+                    }
+                    if (list == null || size == list.length) {
+                        list = Arrays.copyOf(list != null ? list : NO_MATCHES, Math.max(4, size * 2));
+                        lists.put(gram, list);
+                    }
+                    list[size] = ordinal;
+                    sizes.put(gram, size + 1);
+                }
+            }
+        }
+        postings = new GramTable(lists.size());
+        lists.forEach((gram, list) -> postings.put(gram, Arrays.copyOf(list, sizes.get(gram))));
+    }
+
+    /**
+     * @param substring A part of the common name, case-insensitive.
+     * @return The ordinals of the countries whose common name contains the substring, most populous first. The array
+     * may be shared and must not be modified.
+     */
+    public int[] search(String substring) {
+        String needle = CountryColumns.fold(substring);
+        if (needle.isEmpty()) {
+            return byPopulation;
+        }
+        if (needle.length() <= 3) {
+            int[] list = postings.get(gram(needle, 0, needle.length()));
+            return list != null ? list : NO_MATCHES;
+        }
+
+        int[] candidates = null;
+        for (int start = 0; start + 3 <= needle.length(); start++) {
+            int[] list = postings.get(gram(needle, start, 3));
+            if (list == null) {
+                return NO_MATCHES;
+            }
+            if (candidates == null || list.length < candidates.length) {
+                candidates = list;
+            }
+        }
+        int[] matches = new int[candidates.length];
+        int count = 0;
+        for (int ordinal : candidates) {
+            if (names[ordinal].contains(needle)) {
+                matches[count++] = ordinal;
+            }
+        }
+        return count > 0 ? Arrays.copyOf(matches, count) : NO_MATCHES;
+    }
+
+    // up to three UTF-16 chars and the length packed into one key
+    private static long gram(String value, int start, int length) {
+        long key = length;
+        for (int i = 0; i < length; i++) {
+            key = (key << 16) | value.charAt(start + i);
+        }
+        return key;
+    }
+
+    // open-addressing map from gram to posting list, so lookups do not box the key
+    private static final class GramTable {
+        private final long[] keys;
+        private final int[][] values;
+        private final int mask;
+
+        GramTable(int size) {
+            int capacity = Integer.highestOneBit(Math.max(4, size) * 2) * 2;
+            keys = new long[capacity];
+            values = new int[capacity][];
+            mask = capacity - 1;
+        }
+
+        void put(long key, int[] value) {
+            int slot = slot(key);
+            while (values[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = value;
+        }
+
+        int[] get(long key) {
+            for (int slot = slot(key); values[slot] != null; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+            }
+            return null;
+        }
+
+        private int slot(long key) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash >>> 40) & mask;
+        }
+    }
+}
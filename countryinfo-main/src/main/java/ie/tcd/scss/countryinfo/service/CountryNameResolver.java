@@ -0,0 +1,103 @@
+package ie.tcd.scss.countryinfo.service;
+
+import ie.tcd.scss.countryinfo.domain.Country;
+import ie.tcd.scss.countryinfo.domain.Name;
+import ie.tcd.scss.countryinfo.domain.NativeName;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resolves country names like the {@code /name/{name}} endpoint of the upstream, so lookups by name can be answered
+ * from the snapshot. A name matches a country if it is contained, case-insensitively, in its common or official name,
+ * one of its native common or official names or one of its alternative spellings. Matches come in snapshot order;
+ * callers that want one country take the first, like with the upstream's response.
+ * <p>
+ * Unlike the upstream, a name without any such match is also tried as a cca2 or cca3 code, e.g. "AUT", which the
+ * upstream's alternative spellings only cover in part. As this only applies where the upstream answers 404, every
+ * name the upstream knows resolves to the same countries.
+ */
+public final class CountryNameResolver {
+
+    private static final int[] NO_ORDINALS = new int[0];
+    // separates the names of a country in its haystack, cannot occur in a name
+    private static final char SEPARATOR = '\n';
+
+    // per ordinal, all case-folded names of the country joined by SEPARATOR
+    private final String[] haystacks;
+    // case-folded cca2 and cca3 codes
+    private final Map<String, int[]> codes;
+
+    public CountryNameResolver(List<Country> countries) {
+        haystacks = new String[countries.size()];
+        Map<String, List<Integer>> codeOrdinals = new HashMap<>();
+        for (int ordinal = 0; ordinal < haystacks.length; ordinal++) {
+            Country country = countries.get(ordinal);
+            haystacks[ordinal] = haystack(country);
+            addCode(codeOrdinals, country.getCca2(), ordinal);
+            addCode(codeOrdinals, country.getCca3(), ordinal);
+        }
+        codes = new HashMap<>();
+        codeOrdinals.forEach((code, ordinals) -> codes.put(code,
+                ordinals.stream().mapToInt(Integer::intValue).toArray()));
+    }
+
+    /**
+     * @param name A name or part of a name, case-insensitive, e.g. "deutsch".
+     * @return The ordinals of the matching countries, in snapshot order, empty if the upstream would answer 404.
+     */
+    public int[] resolve(String name) {
+        if (name == null || name.isEmpty() || name.indexOf(SEPARATOR) >= 0) {
+            return NO_ORDINALS;
+        }
+        String needle = CountryColumns.fold(name);
+        int[] matches = new int[haystacks.length];
+        int count = 0;
+        for (int ordinal = 0; ordinal < haystacks.length; ordinal++) {
+            if (haystacks[ordinal].contains(needle)) {
+                matches[count++] = ordinal;
+            }
+        }
+        if (count > 0) {
+            return count < matches.length ? Arrays.copyOf(matches, count) : matches;
+        }
+        return codes.getOrDefault(needle, NO_ORDINALS);
+    }
+
+    private static String haystack(Country country) {
+        List<String> names = new ArrayList<>();
+        Name name = country.getName();
+        if (name != null) {
+            names.add(name.getCommon());
+            names.add(name.getOfficial());
+            if (name.getNativeName() != null) {
+                for (NativeName nativeName : name.getNativeName().values()) {
+                    if (nativeName != null) {
+                        names.add(nativeName.getCommon());
+                        names.add(nativeName.getOfficial());
+                    }
+                }
+            }
+        }
+        if (country.getAltSpellings() != null) {
+            names.addAll(country.getAltSpellings());
+        }
+
+        StringBuilder haystack = new StringBuilder();
+        for (String value : names) {
+            if (value != null && !value.isEmpty()) {
+                haystack.append(CountryColumns.fold(value)).append(SEPARATOR);
+            }
+        }
+        return haystack.toString();
+    }
+
+    private static void addCode(Map<String, List<Integer>> codes, String code, int ordinal) {
+        if (code != null && !code.isEmpty()) {
+            codes.computeIfAbsent(CountryColumns.fold(code), key -> new ArrayList<>()).add(ordinal);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package ie.tcd.scss.countryinfo.service;
+
+import java.util.List;
+
+/**
+ * Compact, immutable representation of a country as held in a {@link CountrySnapshot}. It keeps only the attributes
+ * the snapshot-backed endpoints read (names, codes, region, population, area, coordinates, languages, currencies and
+ * borders), with primitives for the numeric values, instead of the full {@link ie.tcd.scss.countryinfo.domain.Country} tree.
+ *
+ * @param commonName    The common name, e.g. "Germany".
+ * @param officialName  The official name, e.g. "Federal Republic of Germany".
+ * @param cca2          ISO 3166-1 alpha-2 code.
+ * @param cca3          ISO 3166-1 alpha-3 code.
+ * @param ccn3          ISO 3166-1 numeric code.
+ * @param region        The region, e.g. "Europe".
+ * @param subregion     The subregion, e.g. "Western Europe".
+ * @param population    The population, 0 if unknown.
+ * @param area          The area in km², 0 if unknown.
+ * @param latitude      The latitude of the country (upstream latlng), in degrees, NaN if unknown.
+ * @param longitude     The longitude of the country, in degrees, NaN if unknown.
+ * @param capitalLat    The latitude of the capital (upstream capitalInfo.latlng), in degrees, NaN if unknown.
+ * @param capitalLng    The longitude of the capital, in degrees, NaN if unknown.
+ * @param languages     The names of the languages (the value side of the upstream languages map), e.g. "German".
+ * @param currencyCodes The currency codes (the key side of the upstream currencies map), e.g. "EUR".
+ * @param borders       The cca3 codes of the neighbouring countries, empty for countries without land borders.
+ */
+public record CountryRecord(String commonName, String officialName, String cca2, String cca3, String ccn3,
+                            String region, String subregion, long population, double area,
+                            double latitude, double longitude, double capitalLat, double capitalLng,
+                            List<String> languages, List<String> currencyCodes, List<String> borders) {
+
+    public CountryRecord {
+        languages = List.copyOf(languages);
+        currencyCodes = List.copyOf(currencyCodes);
+        borders = List.copyOf(borders);
+    }
+}
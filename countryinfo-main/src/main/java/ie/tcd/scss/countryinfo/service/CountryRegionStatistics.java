@@ -0,0 +1,97 @@
+package ie.tcd.scss.countryinfo.service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * The statistics of every region and subregion of a snapshot, see {@link CountryService#calculateRegionStatistics},
+ * computed in one parallel pass when the snapshot is created. A request for them is a lookup by dictionary id instead of
+ * a computation, and the {@code format=pretty} variant is rendered along with them.
+ */
+public final class CountryRegionStatistics {
+
+    // the number of languages and currencies in the statistics
+    static final int TOP = 5;
+
+    /**
+     * The statistics of one region or subregion, both unmodifiable and shared by all requests.
+     *
+     * @param raw    The totals, the average population density and the 5 most common languages and currencies.
+     * @param pretty The same with the numbers as strings with thousands separators, for {@code format=pretty}.
+     */
+    public record Statistics(Map<String, Object> raw, Map<String, Object> pretty) {
+    }
+
+    private final Statistics[] regions;
+    private final Statistics[] subregions;
+    // of an unknown region: no countries, so the density is NaN
+    private final Statistics none;
+
+    public CountryRegionStatistics(CountryColumns columns, CountryBitsetIndex bitsets) {
+        int regionCount = columns.regionCount();
+        // regions first, then subregions, one task each
+        Statistics[] all = IntStream.range(0, regionCount + columns.subregionCount()).parallel()
+                .mapToObj(group -> group < regionCount
+                        ? statistics(columns, columns.inRegion(group),
+                                bitsets.languageCounts(group), bitsets.currencyCounts(group))
+                        : statistics(columns, columns.inSubregion(group - regionCount),
+                                bitsets.subregionLanguageCounts(group - regionCount),
+                                bitsets.subregionCurrencyCounts(group - regionCount)))
+                .toArray(Statistics[]::new);
+        regions = new Statistics[regionCount];
+        subregions = new Statistics[all.length - regionCount];
+        System.arraycopy(all, 0, regions, 0, regions.length);
+        System.arraycopy(all, regionCount, subregions, 0, subregions.length);
+        none = statistics(columns, new int[0], Map.of(), Map.of());
+    }
+
+    /**
+     * @param regionId A region id of {@link CountryColumns}, or {@link CountryColumns#NONE}.
+     * @return The statistics of the region, with zero totals for {@link CountryColumns#NONE}.
+     */
+    public Statistics region(int regionId) {
+        return regionId != CountryColumns.NONE ? regions[regionId] : none;
+    }
+
+    /**
+     * @param subregionId A subregion id of {@link CountryColumns}, or {@link CountryColumns#NONE}.
+     * @return The statistics of the subregion, with zero totals for {@link CountryColumns#NONE}.
+     */
+    public Statistics subregion(int subregionId) {
+        return subregionId != CountryColumns.NONE ? subregions[subregionId] : none;
+    }
+
+    private static Statistics statistics(CountryColumns columns, int[] ordinals,
+                                         Map<String, Long> languageCounts, Map<String, Long> currencyCounts) {
+        double totalPopulation = 0.0;
+        double totalArea = 0.0;
+        for (int ordinal : ordinals) {
+            totalPopulation += columns.population(ordinal);
+            totalArea += columns.area(ordinal);
+        }
+
+        Map<String, Object> raw = new LinkedHashMap<>();
+        raw.put("totalPopulation", totalPopulation);
+        raw.put("totalArea", totalArea);
+        raw.put("averagePopulationDensity", totalPopulation / totalArea);
+        raw.put("mostCommonLanguages", Collections.unmodifiableMap(TopK.largest(languageCounts, TOP)));
+        raw.put("mostCommonCurrencies", Collections.unmodifiableMap(TopK.largest(currencyCounts, TOP)));
+        return new Statistics(Collections.unmodifiableMap(raw), Collections.unmodifiableMap(pretty(raw)));
+    }
+
+    // numbers with commas as thousands separators, truncated to whole numbers
+    private static Map<String, Object> pretty(Map<String, Object> statistics) {
+        Map<String, Object> formatted = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : statistics.entrySet()) {
+            Object value = entry.getValue();
+            if (value instanceof Number number) {
+                formatted.put(entry.getKey(), String.format("%,d", number.longValue()));
+            } else {
+                formatted.put(entry.getKey(), value);
+            }
+        }
+        return formatted;
+    }
+}
@@ -1,20 +1,21 @@
 package ie.tcd.scss.countryinfo.service;
 
+import ie.tcd.scss.countryinfo.config.CountryInfoProperties;
 import ie.tcd.scss.countryinfo.domain.Country;
-import ie.tcd.scss.countryinfo.domain.Currency;
 import ie.tcd.scss.countryinfo.domain.Translation;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.RestTemplate;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * This class is responsible for access to the <a href="https://restcountries.com/">https://restcountries.com/</a> REST API to retrieve information about
@@ -25,20 +26,46 @@ public class CountryService {
     // Create logger for this class
     private static final Logger logger = LoggerFactory.getLogger(CountryService.class);
 
-    private final RestTemplate restTemplate;
-
-    // base URL to retrieve country information by name
-    private static final String API_URL_BY_NAME = "https://restcountries.com/v3.1/name/";
-
-    // base URL to retrieve country information for all countries
-    private static final String API_URL_ALL = "https://restcountries.com/v3.1/all/";
-
-    public CountryService(RestTemplate restTemplate) {
-        this.restTemplate = restTemplate;
+    // upstream attributes read by the individual methods, so lookups request only those
+    static final CountryFields FLAG_FIELDS = CountryFields.of("flags");
+    static final CountryFields MAP_FIELDS = CountryFields.of("maps");
+    static final CountryFields CONTINENT_FIELDS = CountryFields.of("continents");
+    static final CountryFields TRANSLATION_FIELDS = CountryFields.of("translations");
+    static final CountryFields COMPARISON_FIELDS = CountryFields.of("cca3", "population", "area", "languages", "borders");
+    public static final CountryFields DEMOGRAPHIC_FIELDS = CountryFields.of("population", "area", "languages", "currencies", "timezones");
+    public static final CountryFields BORDER_FIELDS = CountryFields.of("borders");
+
+    // access to the upstream API for lookups by name
+    private final RestCountriesClient client;
+
+    // in-memory snapshot of all countries, used instead of fetching the full list on every request
+    private final CountrySnapshotStore snapshotStore;
+
+    // results of lookups by name, including unknown names
+    private final CountryLookupCache lookupCache;
+
+    // runs independent lookups of one request in parallel
+    private final Executor upstreamExecutor;
+
+    // stale data served for the current request, reported in the response headers
+    private final StalenessTracker staleness;
+
+    // lookups by name are answered from the snapshot instead of the upstream
+    private final boolean resolveNames;
+
+    public CountryService(RestCountriesClient client, CountrySnapshotStore snapshotStore,
+                          CountryLookupCache lookupCache, @Qualifier("upstreamExecutor") Executor upstreamExecutor,
+                          StalenessTracker staleness, CountryInfoProperties properties) {
+        this.client = client;
+        this.snapshotStore = snapshotStore;
+        this.lookupCache = lookupCache;
+        this.upstreamExecutor = upstreamExecutor;
+        this.staleness = staleness;
+        this.resolveNames = properties.getSnapshot().isResolveNames();
     }
 
     public String getFlagForCountry(String countryName) {
-        Country country = getCountryInfo(countryName);
+        Country country = getCountryInfo(countryName, FLAG_FIELDS);
         if (country != null && country.getFlags() != null) {
             return country.getFlags().getPng();
         }
@@ -46,7 +73,7 @@ public class CountryService {
     }
 
     public String getMapForCountry(String countryName) {
-        Country country = getCountryInfo(countryName);
+        Country country = getCountryInfo(countryName, MAP_FIELDS);
         if (country != null && country.getMaps() != null) {
             return country.getMaps().getGoogleMaps();
         }
@@ -54,7 +81,7 @@ public class CountryService {
     }
 
     public List<String> getContinentsForCountry(String countryName) {
-        Country country = getCountryInfo(countryName);
+        Country country = getCountryInfo(countryName, CONTINENT_FIELDS);
         if (country != null && country.getContinents() != null) {
             return country.getContinents();
         }
@@ -62,33 +89,29 @@ public class CountryService {
     }
 
     public List<String> getNamesMostPopulousCountries(String substring) {
-        Country[] countries = restTemplate.getForObject(API_URL_ALL, Country[].class);
-        if (countries != null) {
-            return Stream.of(countries) // convert to Stream
+        CountrySnapshot snapshot = snapshotStore.current();
+        // filter by substring, case-insensitive, answered by the name index in order of population, descending
+        int[] ordinals = snapshot.getNameIndex().search(substring);
 
-                    // TODO: in getNamesMostPopulousCountries implement filter and sort
-                    .filter(country -> country.getName().getCommon().toLowerCase().contains(substring.toLowerCase())) // Filter by substring, case-insensitive
-                    .sorted((c1, c2) -> Long.compare(c2.getPopulation(), c1.getPopulation())) // Sort by population, descending
-
-                    .map(c -> c.getName().getCommon()) // map country to country name
-                    .collect(Collectors.toList()); //
+        List<String> names = new ArrayList<>(ordinals.length);
+        for (int ordinal : ordinals) {
+            names.add(snapshot.getCountries().get(ordinal).commonName()); // map country to country name
         }
-        return List.of(); // return empty list if no countries found
+        return names; // empty list if no countries found
     }
 
     public List<String> getNamesMostPopulousCountriesWithPopulation(String substring) {
-
-        Country[] countries = restTemplate.getForObject(API_URL_ALL, Country[].class);
-        if (countries == null) {
-            return List.of();
+        CountrySnapshot snapshot = snapshotStore.current();
+        CountryColumns columns = snapshot.getColumns();
+        int[] ordinals = snapshot.getNameIndex().search(substring);
+
+        // Map to "name (population)"
+        List<String> names = new ArrayList<>(ordinals.length);
+        for (int ordinal : ordinals) {
+            names.add(String.format("%s (%d)", snapshot.getCountries().get(ordinal).commonName(),
+                    columns.population(ordinal)));
         }
-
-        // Filter countries by substring (case-insensitive) and sort by population (descending)
-        return Arrays.stream(countries)
-                .filter(country -> country.getName().getCommon().toLowerCase().contains(substring.toLowerCase()))
-                .sorted((c1, c2) -> Long.compare(c2.getPopulation(), c1.getPopulation())) // Sort descending by population
-                .map(country -> String.format("%s (%d)", country.getName().getCommon(), country.getPopulation())) // Map to "name (population)"
-                .collect(Collectors.toList()); // Collect the mapped strings into a list
+        return names;
     }
 
     /**
@@ -99,28 +122,49 @@ public class CountryService {
      * @return A Country object with the information about the found country, or null if no country found
      */
     public Country getCountryInfo(String countryName) {
-        try {
-            Country[] countries = restTemplate.getForObject(API_URL_BY_NAME + countryName, Country[].class);
-            return countries != null && countries.length > 0 ? countries[0] : null; // return first country if found
-        } catch (HttpClientErrorException e) {
-            if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
-                // Country not found
-                return null;
-            }
-            // If it's another kind of error, rethrow it
-            throw e;
-        }
+        return getCountryInfo(countryName, CountryFields.ALL);
+    }
+
+    /**
+     * Retrieves information about a country matching the given name, requesting only the given attributes from the
+     * upstream. If multiple countries are found, only the first one is returned.
+     *
+     * @param countryName The name of the country or countries to retrieve.
+     * @param fields The attributes the caller reads; other attributes of the returned country may be null.
+     * @return A Country object with the information about the found country, or null if no country found
+     */
+    public Country getCountryInfo(String countryName, CountryFields fields) {
+        List<Country> countries = lookup(countryName, fields);
+        return !countries.isEmpty() ? countries.get(0) : null; // return first country if found
     }
 
      /**
-     * Retrieves information about all countries matching the given name.
+     * Retrieves information about all countries matching the given name. With
+     * {@code countryinfo.snapshot.resolve-names} they are resolved in the snapshot, see {@link CountryNameResolver};
+     * otherwise results from the upstream, including unknown names, are cached by name in the
+     * {@link CountryLookupCache}.
      *
      * @param countryName The name of the country or countries to retrieve.
      * @return A List of Country objects.
      */
     public List<Country> getCountriesInfo(String countryName) {
+        return lookup(countryName, CountryFields.ALL);
+    }
+
+    private List<Country> lookup(String countryName, CountryFields fields) {
+        if (resolveNames) {
+            CountrySnapshot snapshot = snapshotStore.current();
+            // a snapshot restored from a file written without the full countries is used until the next refresh
+            if (snapshot.hasDetails()) {
+                return snapshot.findByName(countryName);
+            }
+        }
+        return lookupCache.get(countryName, fields, this::fetchCountriesByName);
+    }
+
+    private List<Country> fetchCountriesByName(String countryName, CountryFields fields) {
         try {
-            Country[] countries = restTemplate.getForObject(API_URL_BY_NAME + countryName, Country[].class);
+            Country[] countries = client.fetchByName(countryName, fields);
             // If countries are found, convert the array to a List and return it
             if (countries != null) {
                 return Arrays.asList(countries);
@@ -138,6 +182,20 @@ public class CountryService {
     }
 
 
+    /**
+     * Retrieves the countries with the given ISO 3166-1 codes (cca2, cca3 or ccn3) from the snapshot, without any
+     * upstream request per code.
+     *
+     * @param codes The codes to resolve, e.g. the borders of a country.
+     * @return The countries for the known codes, in the order of the codes. Unknown codes are skipped.
+     */
+    public List<CountryRecord> getCountriesByCodes(List<String> codes) {
+        if (codes == null || codes.isEmpty()) {
+            return List.of();
+        }
+        return snapshotStore.current().getCodeIndex().findAll(codes);
+    }
+
     /**
      * Retrieves the translation for the country name in the specified language.
      *
@@ -146,8 +204,45 @@ public class CountryService {
      * @return The translated name of the country if available, otherwise null.
      */
     public String getTranslationForCountry(String countryName, String language) {
-        Country country = getCountryInfo(countryName);
+        // a name typed in any language, e.g. "Allemagne", is found in the translation index, not by a lookup by name
+        Country country = resolveNames ? snapshotStore.current().findByTranslation(countryName) : null;
+        return translationOf(country != null ? country : getCountryInfo(countryName, TRANSLATION_FIELDS), language);
+    }
 
+    /**
+     * Reverse translation: finds the countries with the given name in any language, see
+     * {@link CountryTranslationIndex}. Needs a snapshot with the full countries, see
+     * {@code countryinfo.snapshot.resolve-names}.
+     *
+     * @param name     A complete common or official name in any language, e.g. "Allemagne" or "ドイツ"; case and
+     *                 diacritics do not matter.
+     * @param language A language code to translate the names of the found countries into, e.g. "deu", or null.
+     * @return One map per country, in snapshot order, with the keys
+     * - name: the English common name, e.g. "Germany"
+     * - cca3: the ISO 3166-1 alpha-3 code
+     * - languages: the languages the given name is in, e.g. ["fra"], "eng" for the English name
+     * - translation: only if a language is given, the common name in that language, null if there is none
+     */
+    public List<Map<String, Object>> getCountriesByTranslation(String name, String language) {
+        logger.debug("Finding countries named {} in any language", name);
+
+        CountrySnapshot snapshot = snapshotStore.current();
+        List<Map<String, Object>> countries = new ArrayList<>();
+        for (CountryTranslationIndex.Match match : snapshot.getTranslationIndex().find(name)) {
+            Country country = snapshot.getDetails().get(match.ordinal());
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("name", snapshot.getCountries().get(match.ordinal()).commonName());
+            entry.put("cca3", country.getCca3());
+            entry.put("languages", match.languages());
+            if (language != null) {
+                entry.put("translation", translationOf(country, language));
+            }
+            countries.add(entry);
+        }
+        return countries;
+    }
+
+    static String translationOf(Country country, String language) {
         if (country == null) {
             return null;
         }
@@ -161,34 +256,284 @@ public class CountryService {
         return translation != null ? translation.getCommon() : null;
     }
 
-    public List<Country> getCountriesByRegion(String region, String sortBy) {
+    public List<CountryRecord> getCountriesByRegion(String region, String sortBy) {
         logger.debug("Retrieving countries for region: {}", region);
 
-        Country[] countries = restTemplate.getForObject(API_URL_ALL, Country[].class);
-        if (countries == null) {
-            return List.of();
-        }
-
-        Stream<Country> countryStream = Arrays.stream(countries)
-                .filter(country -> region.equalsIgnoreCase(country.getRegion()));
+        CountrySnapshot snapshot = snapshotStore.current();
+        CountryColumns columns = snapshot.getColumns();
+        int regionId = columns.regionId(region);
 
+        // membership and the orders are precomputed per region and snapshot, so sorting is a lookup
+        int[] ordinals;
         if ("population".equalsIgnoreCase(sortBy)) {
-            countryStream = countryStream.sorted((c1, c2) -> Long.compare(c2.getPopulation(), c1.getPopulation())); // Sort by population, descending
+            ordinals = columns.inRegionByPopulation(regionId); // Sort by population, descending
         } else if ("name".equalsIgnoreCase(sortBy)) {
-            countryStream = countryStream.sorted(Comparator.comparing(c -> c.getName().getCommon(), String.CASE_INSENSITIVE_ORDER)); // Sort by name, ascending
+            ordinals = columns.inRegionByName(regionId); // Sort by name, ascending
         } else if ("area".equalsIgnoreCase(sortBy)) {
-            countryStream = countryStream.sorted((c1, c2) -> Double.compare(c2.getArea(), c1.getArea())); // Sort by area, descending
+            ordinals = columns.inRegionByArea(regionId); // Sort by area, descending
+        } else {
+            ordinals = columns.inRegion(regionId); // unsorted, in snapshot order
+        }
+
+        // Return the sorted (or unsorted) list of countries
+        return records(snapshot, ordinals);
+    }
+
+    /**
+     * @param language A language name, case-insensitive, e.g. "French".
+     * @return The countries speaking that language, in snapshot order, empty if no country speaks it.
+     */
+    public List<CountryRecord> getCountriesByLanguage(String language) {
+        logger.debug("Retrieving countries speaking: {}", language);
+
+        CountrySnapshot snapshot = snapshotStore.current();
+        return records(snapshot, snapshot.getBitsetIndex().speaking(language));
+    }
+
+    /**
+     * @param currencyCode A currency code, case-insensitive, e.g. "EUR".
+     * @return The countries using that currency, in snapshot order, empty if no country uses it.
+     */
+    public List<CountryRecord> getCountriesByCurrency(String currencyCode) {
+        logger.debug("Retrieving countries using currency: {}", currencyCode);
+
+        CountrySnapshot snapshot = snapshotStore.current();
+        return records(snapshot, snapshot.getBitsetIndex().usingCurrency(currencyCode));
+    }
+
+    /**
+     * Ranks all countries of the snapshot by a numeric attribute.
+     *
+     * @param by The attribute to rank by: "population", "area" or "density" (population per km²), case-insensitive.
+     * @param k  The number of countries to return, at least 1.
+     * @return Up to k entries, highest first, each a map with the keys "name" and the attribute.
+     * @throws IllegalArgumentException if the attribute is unknown or k is less than 1
+     */
+    public List<Map<String, Object>> getTopCountries(String by, int k) {
+        logger.debug("Ranking the top {} countries by {}", k, by);
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be at least 1: " + k);
+        }
+
+        CountrySnapshot snapshot = snapshotStore.current();
+        CountryColumns columns = snapshot.getColumns();
+        String attribute = by != null ? by.toLowerCase(Locale.ROOT) : "";
+        int[] ordinals = switch (attribute) {
+            case "population" -> columns.topByPopulation(k);
+            case "area" -> columns.topByArea(k);
+            case "density" -> columns.topByDensity(k);
+            default -> throw new IllegalArgumentException("Unknown ranking attribute: " + by);
+        };
+
+        List<Map<String, Object>> ranking = new ArrayList<>(ordinals.length);
+        for (int ordinal : ordinals) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("name", snapshot.getCountries().get(ordinal).commonName());
+            switch (attribute) {
+                case "population" -> entry.put(attribute, columns.population(ordinal));
+                case "area" -> entry.put(attribute, columns.area(ordinal));
+                default -> entry.put(attribute, columns.density(ordinal));
+            }
+            ranking.add(entry);
+        }
+        return ranking;
+    }
+
+    /**
+     * Finds a land route between two countries with the fewest border crossings.
+     *
+     * @param from A cca2 or cca3 code or the common name of the first country, case-insensitive.
+     * @param to   A cca2 or cca3 code or the common name of the second country, case-insensitive.
+     * @return The common names along the route, from first to second country, empty if there is no land route, or
+     * null if either country is unknown.
+     */
+    public List<String> getLandRoute(String from, String to) {
+        logger.debug("Finding a land route from {} to {}", from, to);
+
+        CountrySnapshot snapshot = snapshotStore.current();
+        int start = snapshot.ordinalOf(from);
+        int end = snapshot.ordinalOf(to);
+        if (start == CountryBorderGraph.NONE || end == CountryBorderGraph.NONE) {
+            return null;
+        }
+        return records(snapshot, snapshot.getBorderGraph().shortestRoute(start, end)).stream()
+                .map(CountryRecord::commonName)
+                .toList();
+    }
+
+    /**
+     * @param country A cca2 or cca3 code or the common name of the country, case-insensitive.
+     * @param hops    The most border crossings, at least 1.
+     * @return The countries reachable by land in at most that many border crossings, nearest first, each a map with
+     * the keys "name" and "hops", or null if the country is unknown.
+     * @throws IllegalArgumentException if hops is less than 1
+     */
+    public List<Map<String, Object>> getCountriesWithinHops(String country, int hops) {
+        logger.debug("Finding the countries within {} border crossings of {}", hops, country);
+        if (hops < 1) {
+            throw new IllegalArgumentException("hops must be at least 1: " + hops);
+        }
+
+        CountrySnapshot snapshot = snapshotStore.current();
+        int start = snapshot.ordinalOf(country);
+        if (start == CountryBorderGraph.NONE) {
+            return null;
+        }
+        CountryBorderGraph.Reach reach = snapshot.getBorderGraph().withinHops(start, hops);
+        List<Map<String, Object>> reached = new ArrayList<>(reach.ordinals().length);
+        for (int i = 0; i < reach.ordinals().length; i++) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("name", snapshot.getCountries().get(reach.ordinals()[i]).commonName());
+            entry.put("hops", reach.hops()[i]);
+            reached.add(entry);
         }
+        return reached;
+    }
+
+    /**
+     * Groups the countries into landmasses, the sets of countries connected by land borders.
+     *
+     * @param minSize The fewest countries in a landmass to return, at least 1; 1 includes the countries without land
+     *                borders.
+     * @return The common names per landmass, largest landmass first, the names of one landmass in snapshot order.
+     * @throws IllegalArgumentException if minSize is less than 1
+     */
+    public List<List<String>> getLandmasses(int minSize) {
+        logger.debug("Grouping the countries into landmasses of at least {}", minSize);
+        if (minSize < 1) {
+            throw new IllegalArgumentException("minSize must be at least 1: " + minSize);
+        }
+
+        CountrySnapshot snapshot = snapshotStore.current();
+        CountryBorderGraph graph = snapshot.getBorderGraph();
+        List<int[]> landmasses = new ArrayList<>();
+        for (int component = 0; component < graph.componentCount(); component++) {
+            if (graph.members(component).length >= minSize) {
+                landmasses.add(graph.members(component));
+            }
+        }
+        // stable, so landmasses of the same size stay in the order of their first country
+        landmasses.sort(Comparator.comparingInt((int[] members) -> members.length).reversed());
+
+        List<List<String>> names = new ArrayList<>(landmasses.size());
+        for (int[] members : landmasses) {
+            names.add(records(snapshot, members).stream().map(CountryRecord::commonName).toList());
+        }
+        return names;
+    }
+
+    /**
+     * @param latitude  The latitude of the point, in degrees.
+     * @param longitude The longitude of the point, in degrees.
+     * @param k         The number of countries to return, at least 1.
+     * @param by        "country" to measure to the coordinates of the countries, "capital" to their capitals,
+     *                  case-insensitive.
+     * @return Up to k countries nearest to the point by great-circle distance, nearest first, each a map with the
+     * keys "name" and "distanceKm".
+     * @throws IllegalArgumentException if the point is not on the earth, k is less than 1 or by is unknown
+     */
+    public List<Map<String, Object>> getNearestCountries(double latitude, double longitude, int k, String by) {
+        logger.debug("Finding the {} countries nearest to {},{} by {}", k, latitude, longitude, by);
+        checkCoordinates(latitude, longitude);
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be at least 1: " + k);
+        }
+
+        CountrySnapshot snapshot = snapshotStore.current();
+        return located(snapshot, geoIndex(snapshot, by).nearest(latitude, longitude, k));
+    }
+
+    /**
+     * @param latitude  The latitude of the point, in degrees.
+     * @param longitude The longitude of the point, in degrees.
+     * @param radiusKm  The greatest great-circle distance, in km, not negative.
+     * @param by        "country" to measure to the coordinates of the countries, "capital" to their capitals,
+     *                  case-insensitive.
+     * @return The countries within the radius of the point, nearest first, each a map with the keys "name" and
+     * "distanceKm".
+     * @throws IllegalArgumentException if the point is not on the earth, the radius is negative or by is unknown
+     */
+    public List<Map<String, Object>> getCountriesWithin(double latitude, double longitude, double radiusKm,
+                                                        String by) {
+        logger.debug("Finding the countries within {} km of {},{} by {}", radiusKm, latitude, longitude, by);
+        checkCoordinates(latitude, longitude);
+        if (!(radiusKm >= 0)) {
+            throw new IllegalArgumentException("radiusKm must not be negative: " + radiusKm);
+        }
+
+        CountrySnapshot snapshot = snapshotStore.current();
+        return located(snapshot, geoIndex(snapshot, by).within(latitude, longitude, radiusKm));
+    }
+
+    private static void checkCoordinates(double latitude, double longitude) {
+        if (!(latitude >= -90 && latitude <= 90) || !(longitude >= -180 && longitude <= 180)) {
+            throw new IllegalArgumentException("Not a point on the earth: " + latitude + "," + longitude);
+        }
+    }
+
+    private static CountryGeoIndex geoIndex(CountrySnapshot snapshot, String by) {
+        String point = by != null ? by.toLowerCase(Locale.ROOT) : "country";
+        return switch (point) {
+            case "country" -> snapshot.getLocationIndex();
+            case "capital" -> snapshot.getCapitalIndex();
+            default -> throw new IllegalArgumentException("Unknown point to measure to: " + by);
+        };
+    }
+
+    private static List<Map<String, Object>> located(CountrySnapshot snapshot, CountryGeoIndex.Result result) {
+        List<Map<String, Object>> countries = new ArrayList<>(result.ordinals().length);
+        for (int i = 0; i < result.ordinals().length; i++) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("name", snapshot.getCountries().get(result.ordinals()[i]).commonName());
+            entry.put("distanceKm", kilometres(result.distancesKm()[i]));
+            countries.add(entry);
+        }
+        return countries;
+    }
 
-        // Collect and return the sorted (or unsorted) list of countries
-        return countryStream.collect(Collectors.toList());
+    /**
+     * @param from A cca2 or cca3 code or the common name of the first country, case-insensitive.
+     * @param to   A cca2 or cca3 code or the common name of the second country, case-insensitive.
+     * @return The great-circle distances between the two countries, with the keys "from", "to" (the common names),
+     * "capitalDistanceKm" and "centroidDistanceKm", a distance null if the coordinates are unknown; or null if either
+     * country is unknown.
+     */
+    public Map<String, Object> getDistance(String from, String to) {
+        logger.debug("Getting the distance between {} and {}", from, to);
+
+        CountrySnapshot snapshot = snapshotStore.current();
+        int ordinal1 = snapshot.ordinalOf(from);
+        int ordinal2 = snapshot.ordinalOf(to);
+        if (ordinal1 == CountryBorderGraph.NONE || ordinal2 == CountryBorderGraph.NONE) {
+            return null;
+        }
+        CountryDistanceMatrix distances = snapshot.getDistanceMatrix();
+        Map<String, Object> distance = new LinkedHashMap<>();
+        distance.put("from", snapshot.getCountries().get(ordinal1).commonName());
+        distance.put("to", snapshot.getCountries().get(ordinal2).commonName());
+        distance.put("capitalDistanceKm", kilometres(distances.capitalKm(ordinal1, ordinal2)));
+        distance.put("centroidDistanceKm", kilometres(distances.centroidKm(ordinal1, ordinal2)));
+        return distance;
+    }
+
+    // to 100 m, the coordinates of a country are not more precise than that; null if unknown
+    private static Double kilometres(double distanceKm) {
+        return !Double.isNaN(distanceKm) ? Math.round(distanceKm * 10) / 10.0 : null;
+    }
+
+    private static List<CountryRecord> records(CountrySnapshot snapshot, int[] ordinals) {
+        List<CountryRecord> countries = new ArrayList<>(ordinals.length);
+        for (int ordinal : ordinals) {
+            countries.add(snapshot.getCountries().get(ordinal));
+        }
+        return countries;
     }
     /**
      * Calculates statistics for a given region, including the total population, total area, average population density,
      * and the most common languages and currencies.
      *
      * @param region The region for which to calculate statistics.
-     * @return A map containing the calculated statistics, in particular
+     * @return An unmodifiable map, shared by all callers, containing the calculated statistics, in particular
      * - totalPopulation: the total population of all countries in the region
      * - totalArea: the total area of all countries in the region
      * - averagePopulationDensity: the average population density of all countries in the region
@@ -221,61 +566,37 @@ public class CountryService {
      *    }
      */
     public Map<String, Object> calculateRegionStatistics(String region) {
-        List<Country> countries = getCountriesByRegion(region, null);
-        logger.debug("Calculating statistics for region: {}", region);
-
-        Map<String, Object> result = new HashMap<>();
-        double totalPopulation = 0.0;
-        double totalArea = 0.0;
-
-        // Calculate total population and total area
-        for (Country country : countries) {
-            totalPopulation += country.getPopulation();
-            totalArea += country.getArea();
-        }
-
-        double averagePopulationDensity = totalPopulation / totalArea;
-        result.put("totalPopulation", totalPopulation);
-        result.put("totalArea", totalArea);
-        result.put("averagePopulationDensity", averagePopulationDensity);
-
-        // Calculate frequency of languages
-        Map<String, Long> languageFrequency = new HashMap<>();
-        for (Country country : countries) {
-            Map<String, String> languages = country.getLanguages();
-            if (languages != null) {
-                for (String language : languages.values()) {
-                    languageFrequency.put(language, languageFrequency.getOrDefault(language, 0L) + 1);
-                }
-            }
-        }
-
-        // Get top 5 most common languages using the getTopN method
-        Map<String, Long> topLanguages = getTopN(languageFrequency, 5);
-        result.put("mostCommonLanguages", topLanguages);
-
-        // Calculate frequency of currencies
-        Map<String, Long> currencyFrequency = new HashMap<>();
-        for (Country country : countries) {
-            Map<String, Currency> currencies = country.getCurrencies();
-            if (currencies != null) {
-                for (String currencyCode : currencies.keySet()) {
-                    currencyFrequency.put(currencyCode, currencyFrequency.getOrDefault(currencyCode, 0L) + 1);
-                }
-            }
-        }
+        return getRegionStatistics(region).raw();
+    }
 
-        // Get top 5 most common currencies using the getTopN method
-        Map<String, Long> topCurrencies = getTopN(currencyFrequency, 5);
-        result.put("mostCommonCurrencies", topCurrencies);
+    /**
+     * The statistics of {@link #calculateRegionStatistics}, as computed when the current snapshot was created, with
+     * their {@code format=pretty} rendering.
+     *
+     * @param region The region, case-insensitive; an unknown region has zero totals.
+     */
+    public CountryRegionStatistics.Statistics getRegionStatistics(String region) {
+        logger.debug("Getting statistics for region: {}", region);
 
-        return result;
+        CountrySnapshot snapshot = snapshotStore.current();
+        return snapshot.getRegionStatistics().region(snapshot.getColumns().regionId(region));
     }
 
+    /**
+     * The statistics of {@link #calculateRegionStatistics} for a subregion, e.g. "Western Europe".
+     *
+     * @param subregion The subregion, case-insensitive; an unknown subregion has zero totals.
+     */
+    public CountryRegionStatistics.Statistics getSubregionStatistics(String subregion) {
+        logger.debug("Getting statistics for subregion: {}", subregion);
 
+        CountrySnapshot snapshot = snapshotStore.current();
+        return snapshot.getRegionStatistics().subregion(snapshot.getColumns().subregionId(subregion));
+    }
 
     /**
-     * Compares two countries based on population, area, languages, and borders.
+     * Compares two countries based on population, area, languages, and borders. Each distinct country is looked up
+     * only once per call, and the two lookups run in parallel.
      * @param  country1Name name of the first country
      * @param country2Name name of the second country
      * @return A map containing the comparison results, in particular it has the following keys and corresponding values
@@ -283,30 +604,49 @@ public class CountryService {
      * - areaRatio: the ratio of the area of country 1 to the area of country 2
      * - sharedLanguages: the set of languages spoken in both countries (as List<String> of Strings like "English", "French", i.e., the value side of the languages map in the Country object "fra" -> "French")
      * - directlyBordering: a Boolean indicating whether the two countries share a border
+     * - capitalDistanceKm, centroidDistanceKm: the great-circle distances between the capitals and between the
+     *   coordinates of the countries, read from the distance matrix of the snapshot, null if unknown or if no
+     *   snapshot is installed yet; the comparison never waits for the snapshot to be loaded
      *
      * Note that country.getBorders() returns null if the country is an island for has no land borders.
+     * @throws IllegalArgumentException if one of the countries is not found
      */
     public Map<String, Object> compareCountries(String country1Name, String country2Name) {
         logger.debug("Comparing countries: {} and {}", country1Name, country2Name);
 
+        // Resolve both countries in parallel, comparing a country with itself needs only one lookup
+        Map<String, CompletableFuture<Country>> lookups = new HashMap<>();
+        CompletableFuture<Country> lookup1 = lookupAsync(lookups, country1Name);
+        CompletableFuture<Country> lookup2 = lookupAsync(lookups, country2Name);
+        Country country1 = awaitCountry(lookup1, country1Name);
+        Country country2 = awaitCountry(lookup2, country2Name);
+        return compare(country1, country2, snapshotStore.installed());
+    }
+
+    /**
+     * The comparison of {@link #compareCountries}, for two countries that were found.
+     *
+     * @param snapshot The snapshot to read the distances from, or null to leave them out.
+     */
+    static Map<String, Object> compare(Country country1, Country country2, CountrySnapshot snapshot) {
         // Initialize the map to store the results
         Map<String, Object> comparisonResults = new HashMap<>();
 
-        // Retrieve population of both countries and calculate the population ratio
-        double population1 = (double) getCountryInfo(country1Name).getPopulation();
-        double population2 = (double) getCountryInfo(country2Name).getPopulation();
+        // Calculate the population ratio
+        double population1 = country1.getPopulation() != null ? country1.getPopulation() : 0.0;
+        double population2 = country2.getPopulation() != null ? country2.getPopulation() : 0.0;
         double populationRatio = population1 / population2;
         comparisonResults.put("populationRatio", populationRatio);
 
-        // Retrieve area of both countries and calculate the area ratio
-        double area1 = (double) getCountryInfo(country1Name).getArea();
-        double area2 = (double) getCountryInfo(country2Name).getArea();
+        // Calculate the area ratio
+        double area1 = country1.getArea() != null ? country1.getArea() : 0.0;
+        double area2 = country2.getArea() != null ? country2.getArea() : 0.0;
         double areaRatio = area1 / area2;
         comparisonResults.put("areaRatio", areaRatio);
 
-        // Retrieve and compare languages
-        Map<String, String> lan1 = getCountryInfo(country1Name).getLanguages();
-        Map<String, String> lan2 = getCountryInfo(country2Name).getLanguages();
+        // Compare languages
+        Map<String, String> lan1 = country1.getLanguages();
+        Map<String, String> lan2 = country2.getLanguages();
         List<String> sharedLanguages = new ArrayList<>();
         if (lan1 != null && lan2 != null) {
             Set<String> languagesSet1 = new HashSet<>(lan1.values());
@@ -316,9 +656,9 @@ public class CountryService {
         }
         comparisonResults.put("sharedLanguages", sharedLanguages);
 
-        // Retrieve and compare borders to determine if countries share a border
-        List<String> borders1 = getCountryInfo(country1Name).getBorders();
-        List<String> borders2 = getCountryInfo(country2Name).getBorders();
+        // Compare borders to determine if countries share a border
+        List<String> borders1 = country1.getBorders();
+        List<String> borders2 = country2.getBorders();
         boolean directlyBordering = false;
         if (borders1 != null && borders2 != null) {
             Set<String> borderSet1 = new HashSet<>(borders1);
@@ -327,9 +667,46 @@ public class CountryService {
         }
         comparisonResults.put("directlyBordering", directlyBordering);
 
+        // Distances are precomputed per snapshot, the countries are found there by their code
+        int ordinal1 = snapshot != null ? snapshot.ordinalOf(country1.getCca3()) : CountryBorderGraph.NONE;
+        int ordinal2 = snapshot != null ? snapshot.ordinalOf(country2.getCca3()) : CountryBorderGraph.NONE;
+        boolean located = ordinal1 != CountryBorderGraph.NONE && ordinal2 != CountryBorderGraph.NONE;
+        CountryDistanceMatrix distances = located ? snapshot.getDistanceMatrix() : null;
+        comparisonResults.put("capitalDistanceKm",
+                located ? kilometres(distances.capitalKm(ordinal1, ordinal2)) : null);
+        comparisonResults.put("centroidDistanceKm",
+                located ? kilometres(distances.centroidKm(ordinal1, ordinal2)) : null);
+
         // Return the comparison results
         return comparisonResults;
     }
+
+    /**
+     * Starts the lookup of a country on the upstream executor, unless the same name was already requested within the
+     * current operation.
+     */
+    private CompletableFuture<Country> lookupAsync(Map<String, CompletableFuture<Country>> lookups, String countryName) {
+        return lookups.computeIfAbsent(countryName.trim().toLowerCase(Locale.ROOT),
+                key -> CompletableFuture.supplyAsync(
+                        staleness.propagate(() -> getCountryInfo(countryName, COMPARISON_FIELDS)), upstreamExecutor));
+    }
+
+    private static Country awaitCountry(CompletableFuture<Country> lookup, String countryName) {
+        Country country;
+        try {
+            country = lookup.join();
+        } catch (CompletionException e) {
+            // pass on the exception of the lookup itself, e.g. an upstream error
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        if (country == null) {
+            throw new IllegalArgumentException("Country not found: " + countryName);
+        }
+        return country;
+    }
         // - Calculate population ratio (population of country1 / population of country2)
         // - Calculate area ratio (area of country1 / area of country2)
         // - Find shared languages between the countries
@@ -338,30 +715,4 @@ public class CountryService {
         // Return results in a Map with keys: "populationRatio", "areaRatio",
         // "sharedLanguages", "directlyBordering"
 
-
-
-    /**
-     * Returns the top N entries from a map, sorted by value in descending order.
-     * @param map   The map to get the top N entries from.
-     * @param n     The number of entries to return.
-     * @return A    LinkedHashMap containing the top N entries from the input map.
-     * @param <K>   The type of the keys in the map.
-     */
-    private <K> Map<K, Long> getTopN(Map<K, Long> map, int n) {
-        logger.debug("Getting top {} entries from map: {}", n, map);
-
-        LinkedHashMap<K, Long> result = map.entrySet().stream()
-                    .sorted(Map.Entry.<K, Long>comparingByValue().reversed())
-                    .limit(n)
-                    .collect(Collectors.toMap(
-                            Map.Entry::getKey,
-                            Map.Entry::getValue,
-                            (e1, e2) -> e1,
-                            LinkedHashMap::new
-                    ));
-        logger.debug("Top {} entries: {}", n, result);
-
-        return result;
-    }
-
 }
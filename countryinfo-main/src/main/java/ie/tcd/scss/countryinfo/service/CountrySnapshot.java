@@ -0,0 +1,260 @@
+package ie.tcd.scss.countryinfo.service;
+
+import ie.tcd.scss.countryinfo.domain.Country;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable view of the full country dataset as loaded from the upstream at one point in time. A new instance is
+ * created for every refresh; readers keep using the instance they obtained, so they never see a partially updated
+ * dataset.
+ * <p>
+ * If a refresh finds the upstream data unchanged, the snapshot is {@linkplain #revalidated revalidated} instead: the
+ * copy has a new load time but shares the records and indexes, which are not rebuilt.
+ * <p>
+ * A snapshot loaded with all attributes also holds the full {@link Country} objects, and answers lookups by name
+ * itself with a {@link CountryNameResolver}, see {@link #hasDetails()}. Records and full countries are compacted with
+ * a {@link CountryDictionary} when the snapshot is created; the full countries passed in are compacted in place.
+ */
+public final class CountrySnapshot {
+
+    private final long version;
+    private final Instant loadedAt;
+    private final List<CountryRecord> countries;
+    private final CountryCodeIndex codeIndex;
+    private final CountryColumns columns;
+    private final CountryNameIndex nameIndex;
+    private final CountryBitsetIndex bitsetIndex;
+    private final CountryRegionStatistics regionStatistics;
+    private final CountryBorderGraph borderGraph;
+    // over the coordinates of the countries and of their capitals
+    private final CountryGeoIndex locationIndex;
+    private final CountryGeoIndex capitalIndex;
+    private final CountryDistanceMatrix distanceMatrix;
+    // the full countries indexed like the records, empty if only the record attributes were loaded
+    private final List<Country> details;
+    private final CountryNameResolver nameResolver;
+    private final CountryTranslationIndex translationIndex;
+    private final UpstreamValidators validators;
+
+    public CountrySnapshot(long version, Instant loadedAt, List<CountryRecord> countries) {
+        this(version, loadedAt, countries, UpstreamValidators.NONE);
+    }
+
+    public CountrySnapshot(long version, Instant loadedAt, List<CountryRecord> countries,
+                           UpstreamValidators validators) {
+        this(version, loadedAt, countries, List.of(), validators);
+    }
+
+    /**
+     * @param details The full countries, indexed like the records, or an empty list if only the record attributes
+     *                were loaded.
+     * @throws IllegalArgumentException if there are details, but not one per record
+     */
+    public CountrySnapshot(long version, Instant loadedAt, List<CountryRecord> countries, List<Country> details,
+                           UpstreamValidators validators) {
+        if (!details.isEmpty() && details.size() != countries.size()) {
+            throw new IllegalArgumentException(
+                    details.size() + " full countries do not match " + countries.size() + " records");
+        }
+        // one instance per distinct string, shared by the records and the full countries
+        CountryDictionary dictionary = new CountryDictionary();
+        this.version = version;
+        this.loadedAt = loadedAt;
+        this.countries = List.copyOf(dictionary.compactRecords(countries));
+        this.codeIndex = new CountryCodeIndex(this.countries);
+        this.columns = new CountryColumns(this.countries);
+        this.nameIndex = new CountryNameIndex(this.countries, this.columns);
+        this.bitsetIndex = new CountryBitsetIndex(this.countries, this.columns);
+        this.regionStatistics = new CountryRegionStatistics(this.columns, this.bitsetIndex);
+        this.borderGraph = new CountryBorderGraph(this.countries);
+        this.locationIndex = geoIndex(this.countries, false);
+        this.capitalIndex = geoIndex(this.countries, true);
+        this.distanceMatrix = new CountryDistanceMatrix(this.countries);
+        this.details = List.copyOf(dictionary.compactDetails(details));
+        this.nameResolver = new CountryNameResolver(this.details);
+        this.translationIndex = new CountryTranslationIndex(this.details);
+        this.validators = validators;
+    }
+
+    // copy with a new load time and validators, sharing the data and indexes
+    private CountrySnapshot(CountrySnapshot source, Instant loadedAt, UpstreamValidators validators) {
+        this.version = source.version;
+        this.loadedAt = loadedAt;
+        this.countries = source.countries;
+        this.codeIndex = source.codeIndex;
+        this.columns = source.columns;
+        this.nameIndex = source.nameIndex;
+        this.bitsetIndex = source.bitsetIndex;
+        this.regionStatistics = source.regionStatistics;
+        this.borderGraph = source.borderGraph;
+        this.locationIndex = source.locationIndex;
+        this.capitalIndex = source.capitalIndex;
+        this.distanceMatrix = source.distanceMatrix;
+        this.details = source.details;
+        this.nameResolver = source.nameResolver;
+        this.translationIndex = source.translationIndex;
+        this.validators = validators;
+    }
+
+    /**
+     * @param loadedAt   When the upstream confirmed the data.
+     * @param validators The validators of the upstream's current data.
+     * @return A snapshot with the same version, records and indexes, loaded at the given time.
+     */
+    public CountrySnapshot revalidated(Instant loadedAt, UpstreamValidators validators) {
+        return new CountrySnapshot(this, loadedAt, validators);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Instant getLoadedAt() {
+        return loadedAt;
+    }
+
+    public List<CountryRecord> getCountries() {
+        return countries;
+    }
+
+    public CountryCodeIndex getCodeIndex() {
+        return codeIndex;
+    }
+
+    /**
+     * @return The numeric and categorical attributes as columns, indexed like {@link #getCountries()}.
+     */
+    public CountryColumns getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return The substring index over the common names.
+     */
+    public CountryNameIndex getNameIndex() {
+        return nameIndex;
+    }
+
+    /**
+     * @return The language, currency and region bitsets over the countries.
+     */
+    public CountryBitsetIndex getBitsetIndex() {
+        return bitsetIndex;
+    }
+
+    /**
+     * @return The statistics of every region and subregion, computed with the snapshot.
+     */
+    public CountryRegionStatistics getRegionStatistics() {
+        return regionStatistics;
+    }
+
+    /**
+     * @return The land borders between the countries as a graph.
+     */
+    public CountryBorderGraph getBorderGraph() {
+        return borderGraph;
+    }
+
+    /**
+     * @param country A cca2 or cca3 code or a complete common name, case-insensitive.
+     * @return The ordinal of the country, or {@link CountryBorderGraph#NONE} if it is unknown.
+     */
+    public int ordinalOf(String country) {
+        return borderGraph.ordinalOf(country);
+    }
+
+    /**
+     * @return The spatial index over the coordinates of the countries.
+     */
+    public CountryGeoIndex getLocationIndex() {
+        return locationIndex;
+    }
+
+    /**
+     * @return The spatial index over the coordinates of the capitals.
+     */
+    public CountryGeoIndex getCapitalIndex() {
+        return capitalIndex;
+    }
+
+    /**
+     * @return The distances between all pairs of countries.
+     */
+    public CountryDistanceMatrix getDistanceMatrix() {
+        return distanceMatrix;
+    }
+
+    /**
+     * @return True if the snapshot holds the full countries and can answer lookups by name.
+     */
+    public boolean hasDetails() {
+        return !details.isEmpty();
+    }
+
+    /**
+     * @return The full countries, indexed like {@link #getCountries()}, empty if {@link #hasDetails()} is false.
+     */
+    public List<Country> getDetails() {
+        return details;
+    }
+
+    /**
+     * Looks up countries by name like the upstream's {@code /name/} endpoint, see {@link CountryNameResolver}. The
+     * returned objects are shared by all callers and must not be modified.
+     *
+     * @param name A name or part of a name, case-insensitive.
+     * @return The full matching countries in snapshot order, empty if there is none or {@link #hasDetails()} is false.
+     */
+    public List<Country> findByName(String name) {
+        int[] ordinals = nameResolver.resolve(name);
+        List<Country> matches = new ArrayList<>(ordinals.length);
+        for (int ordinal : ordinals) {
+            matches.add(details.get(ordinal));
+        }
+        return matches;
+    }
+
+    /**
+     * @return The index of the country names in all languages, empty if {@link #hasDetails()} is false.
+     */
+    public CountryTranslationIndex getTranslationIndex() {
+        return translationIndex;
+    }
+
+    /**
+     * @param name A complete name in any language, e.g. "Allemagne", see {@link CountryTranslationIndex}.
+     * @return The first full country with that name, or null if there is none or {@link #hasDetails()} is false.
+     */
+    public Country findByTranslation(String name) {
+        List<CountryTranslationIndex.Match> matches = translationIndex.find(name);
+        return !matches.isEmpty() ? details.get(matches.get(0).ordinal()) : null;
+    }
+
+    public UpstreamValidators getValidators() {
+        return validators;
+    }
+
+    /**
+     * @param now The reference time.
+     * @return How long ago this snapshot was loaded.
+     */
+    public Duration age(Instant now) {
+        return Duration.between(loadedAt, now);
+    }
+
+    private static CountryGeoIndex geoIndex(List<CountryRecord> countries, boolean capitals) {
+        double[] latitudes = new double[countries.size()];
+        double[] longitudes = new double[countries.size()];
+        for (int ordinal = 0; ordinal < latitudes.length; ordinal++) {
+            CountryRecord country = countries.get(ordinal);
+            latitudes[ordinal] = capitals ? country.capitalLat() : country.latitude();
+            longitudes[ordinal] = capitals ? country.capitalLng() : country.longitude();
+        }
+        return new CountryGeoIndex(latitudes, longitudes);
+    }
+}
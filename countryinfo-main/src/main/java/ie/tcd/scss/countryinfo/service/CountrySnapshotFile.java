@@ -0,0 +1,331 @@
+package ie.tcd.scss.countryinfo.service;
+
+import ie.tcd.scss.countryinfo.config.CountryInfoProperties;
+import ie.tcd.scss.countryinfo.domain.Country;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persists the country snapshot to a compact binary file, so a restarted service can serve from the last known
+ * dataset before (or without) reaching the upstream. The whole file is read into memory and decoded at once, the
+ * snapshot holds only heap objects.
+ * <p>
+ * Layout, all numbers big-endian:
+ * <pre>
+ * int     magic "CSNP"
+ * int     format version
+ * long    snapshot version
+ * long    loadedAt, epoch milliseconds
+ * 3 x     upstream validators (ETag, Last-Modified, SHA-256 of the body),
+ *         each as int length (-1 for null) and UTF-8 bytes
+ * int     number of strings, followed by each string as int length and UTF-8 bytes
+ * int     number of countries, followed by each country as
+ *         7 string refs (common and official name, cca2, cca3, ccn3, region, subregion),
+ *         long population, double area, 4 doubles (latitude and longitude of the country and of its capital, NaN
+ *         if unknown) and 3 lists (languages, currency codes, borders) of int count and string refs
+ * int     number of full countries (-1 if the snapshot has none), followed by each country in the encoding of
+ *         {@link CountryDetailsCodec}
+ * </pre>
+ * String refs are indexes into the string table, -1 for null; region names, languages and codes repeat a lot, so each
+ * is stored once. Files with another magic or format version are ignored; bump {@link #FORMAT_VERSION} whenever the
+ * layout changes.
+ */
+@Component
+public class CountrySnapshotFile {
+    private static final Logger logger = LoggerFactory.getLogger(CountrySnapshotFile.class);
+
+    static final int MAGIC = 0x43534E50; // "CSNP"
+    static final int FORMAT_VERSION = 5;
+
+    private final Path path;
+
+    @Autowired
+    public CountrySnapshotFile(CountryInfoProperties properties) {
+        this(properties.getSnapshot().getFile());
+    }
+
+    /**
+     * @param path The snapshot file, or null to disable persistence. A relative path is resolved against the working
+     *             directory now, so the file stays the same if the working directory changes later.
+     */
+    public CountrySnapshotFile(Path path) {
+        this.path = path != null ? path.toAbsolutePath() : null;
+    }
+
+    /**
+     * @return The absolute path of the snapshot file, or null if persistence is disabled.
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Reads the persisted snapshot.
+     *
+     * @return The snapshot stored in the file, or null if persistence is disabled, there is no file, or the file is
+     * unreadable or in another format.
+     */
+    public CountrySnapshot read() {
+        if (path == null || !Files.isRegularFile(path)) {
+            return null;
+        }
+        try {
+            return decode(ByteBuffer.wrap(Files.readAllBytes(path)));
+        } catch (IOException | RuntimeException e) {
+            // a damaged or foreign file only costs us the fast start, the upstream is still there
+            logger.warn("Ignoring unreadable country snapshot file {}", path, e);
+            return null;
+        }
+    }
+
+    /**
+     * Writes the snapshot to the file. The data is written to a temporary file first and then moved into place, so
+     * a crash while writing never leaves a truncated snapshot file behind.
+     *
+     * @param snapshot The snapshot to persist.
+     * @throws IOException if the file cannot be written
+     */
+    public void write(CountrySnapshot snapshot) throws IOException {
+        if (path == null) {
+            return;
+        }
+        replace(temp -> {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                encode(snapshot, out);
+            }
+        });
+    }
+
+    /**
+     * Writes a revalidated snapshot, whose countries are unchanged: only the header, the time the snapshot was
+     * loaded at and the validators, is encoded again, the rest is copied from the file as it is, without decoding it. If the file does not
+     * hold this version of the snapshot, the whole snapshot is written like by {@link #write}.
+     *
+     * @param snapshot The revalidated snapshot to persist.
+     * @throws IOException if the file cannot be written
+     */
+    public void writeHeader(CountrySnapshot snapshot) throws IOException {
+        if (path == null) {
+            return;
+        }
+        byte[] file;
+        int bodyStart;
+        try {
+            file = Files.readAllBytes(path);
+            ByteBuffer buffer = ByteBuffer.wrap(file);
+            if (decodeHeader(buffer).version() != snapshot.getVersion()) {
+                throw new IOException("The file holds another snapshot version");
+            }
+            bodyStart = buffer.position();
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Writing the whole country snapshot to {}: {}", path, e.toString());
+            write(snapshot);
+            return;
+        }
+
+        replace(temp -> {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                encodeHeader(snapshot, out);
+                out.write(file, bodyStart, file.length - bodyStart);
+            }
+        });
+    }
+
+    // writes to a temporary file that is then moved into place
+    private void replace(FileWriter writer) throws IOException {
+        Path directory = path.getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            writer.writeTo(temp);
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    static void encode(CountrySnapshot snapshot, DataOutputStream out) throws IOException {
+        // the countries first, as they add to the string table that precedes them in the file
+        StringTable strings = new StringTable();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream body = new DataOutputStream(bytes);
+        List<CountryRecord> countries = snapshot.getCountries();
+        body.writeInt(countries.size());
+        for (CountryRecord country : countries) {
+            body.writeInt(strings.ref(country.commonName()));
+            body.writeInt(strings.ref(country.officialName()));
+            body.writeInt(strings.ref(country.cca2()));
+            body.writeInt(strings.ref(country.cca3()));
+            body.writeInt(strings.ref(country.ccn3()));
+            body.writeInt(strings.ref(country.region()));
+            body.writeInt(strings.ref(country.subregion()));
+            body.writeLong(country.population());
+            body.writeDouble(country.area());
+            body.writeDouble(country.latitude());
+            body.writeDouble(country.longitude());
+            body.writeDouble(country.capitalLat());
+            body.writeDouble(country.capitalLng());
+            writeRefs(body, strings, country.languages());
+            writeRefs(body, strings, country.currencyCodes());
+            writeRefs(body, strings, country.borders());
+        }
+        if (snapshot.hasDetails()) {
+            body.writeInt(snapshot.getDetails().size());
+            for (Country country : snapshot.getDetails()) {
+                CountryDetailsCodec.write(body, strings::ref, country);
+            }
+        } else {
+            body.writeInt(-1);
+        }
+
+        encodeHeader(snapshot, out);
+        out.writeInt(strings.values.size());
+        for (String value : strings.values) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(utf8.length);
+            out.write(utf8);
+        }
+        bytes.writeTo(out);
+    }
+
+    // magic, format and snapshot version, load time and validators
+    private static void encodeHeader(CountrySnapshot snapshot, DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(snapshot.getVersion());
+        out.writeLong(snapshot.getLoadedAt().toEpochMilli());
+        writeNullable(out, snapshot.getValidators().etag());
+        writeNullable(out, snapshot.getValidators().lastModified());
+        writeNullable(out, snapshot.getValidators().contentHash());
+    }
+
+    // checks magic and format version, leaves the buffer after the header
+    private static Header decodeHeader(ByteBuffer buffer) throws IOException {
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("Not a country snapshot file");
+        }
+        int formatVersion = buffer.getInt();
+        if (formatVersion != FORMAT_VERSION) {
+            throw new IOException("Unsupported snapshot format version " + formatVersion);
+        }
+        return new Header(buffer.getLong(), Instant.ofEpochMilli(buffer.getLong()),
+                new UpstreamValidators(readNullable(buffer), readNullable(buffer), readNullable(buffer)));
+    }
+
+    static CountrySnapshot decode(ByteBuffer buffer) throws IOException {
+        try {
+            Header header = decodeHeader(buffer);
+
+            String[] strings = new String[buffer.getInt()];
+            for (int i = 0; i < strings.length; i++) {
+                byte[] bytes = new byte[buffer.getInt()];
+                buffer.get(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+
+            int count = buffer.getInt();
+            List<CountryRecord> countries = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                countries.add(new CountryRecord(
+                        string(strings, buffer.getInt()), string(strings, buffer.getInt()),
+                        string(strings, buffer.getInt()), string(strings, buffer.getInt()),
+                        string(strings, buffer.getInt()), string(strings, buffer.getInt()),
+                        string(strings, buffer.getInt()),
+                        buffer.getLong(), buffer.getDouble(),
+                        buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(),
+                        readRefs(buffer, strings), readRefs(buffer, strings), readRefs(buffer, strings)));
+            }
+            List<Country> details = List.of();
+            int detailCount = buffer.getInt();
+            if (detailCount >= 0) {
+                details = new ArrayList<>(detailCount);
+                for (int i = 0; i < detailCount; i++) {
+                    details.add(CountryDetailsCodec.read(buffer, strings));
+                }
+            }
+            return new CountrySnapshot(header.version(), header.loadedAt(), countries, details, header.validators());
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+            throw new IOException("Truncated or corrupt snapshot file", e);
+        }
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readNullable(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeRefs(DataOutputStream out, StringTable strings, List<String> values) throws IOException {
+        out.writeInt(values.size());
+        for (String value : values) {
+            out.writeInt(strings.ref(value));
+        }
+    }
+
+    private static List<String> readRefs(ByteBuffer buffer, String[] strings) {
+        String[] values = new String[buffer.getInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = string(strings, buffer.getInt());
+        }
+        return List.of(values);
+    }
+
+    private static String string(String[] strings, int ref) {
+        return ref >= 0 ? strings[ref] : null;
+    }
+
+    private record Header(long version, Instant loadedAt, UpstreamValidators validators) {
+    }
+
+    private interface FileWriter {
+        void writeTo(Path temp) throws IOException;
+    }
+
+    // assigns each distinct string an index, in order of first use
+    private static final class StringTable {
+        private final Map<String, Integer> refs = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int ref(String value) {
+            if (value == null) {
+                return -1;
+            }
+            return refs.computeIfAbsent(value, key -> {
+                values.add(key);
+                return values.size() - 1;
+            });
+        }
+    }
+}
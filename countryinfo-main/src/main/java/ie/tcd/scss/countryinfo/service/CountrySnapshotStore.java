@@ -0,0 +1,227 @@
+package ie.tcd.scss.countryinfo.service;
+
+import ie.tcd.scss.countryinfo.config.CountryInfoProperties;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the current {@link CountrySnapshot} of all countries. The dataset is loaded once from the upstream and then
+ * refreshed in the background every {@code countryinfo.snapshot.refresh-interval}. A refresh builds a completely new
+ * snapshot and swaps it in atomically (copy-on-write), so readers never block on a refresh.
+ * <p>
+ * Every refreshed snapshot is persisted to the {@link CountrySnapshotFile}, for a revalidated one only the header of
+ * the file is rewritten. On startup the persisted snapshot is
+ * restored, so the service answers right away, even if the upstream is down, and a stale restored snapshot is
+ * refreshed by the first background run.
+ * <p>
+ * Refreshes are conditional, see {@link RestCountriesClient#fetchAll(UpstreamValidators)}: if the upstream data is
+ * unchanged, the current snapshot is only revalidated and nothing is parsed or rebuilt. The bytes downloaded and the
+ * CPU time spent per refresh are counted in {@link #getRefreshStats()}.
+ * <p>
+ * A snapshot older than the refresh interval, e.g. while the upstream is down, is still served and reported to the
+ * {@link StalenessTracker}.
+ */
+@Component
+public class CountrySnapshotStore {
+    private static final Logger logger = LoggerFactory.getLogger(CountrySnapshotStore.class);
+
+    private final RestCountriesClient client;
+    private final CountrySnapshotFile snapshotFile;
+    private final StalenessTracker staleness;
+    private final Duration refreshInterval;
+    private final Clock clock;
+
+    private final AtomicReference<CountrySnapshot> current = new AtomicReference<>();
+    private final AtomicLong versions = new AtomicLong();
+    private final Object refreshLock = new Object();
+
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong notModified = new AtomicLong();
+    private final AtomicLong unchanged = new AtomicLong();
+    private final AtomicLong bytesTransferred = new AtomicLong();
+    private final AtomicLong cpuNanos = new AtomicLong();
+    private final AtomicLong lastBytesTransferred = new AtomicLong();
+    private final AtomicLong lastCpuNanos = new AtomicLong();
+
+    @Autowired
+    public CountrySnapshotStore(RestCountriesClient client, CountrySnapshotFile snapshotFile,
+                                StalenessTracker staleness, CountryInfoProperties properties) {
+        this(client, snapshotFile, staleness, properties.getSnapshot().getRefreshInterval(), Clock.systemUTC());
+    }
+
+    CountrySnapshotStore(RestCountriesClient client, CountrySnapshotFile snapshotFile, StalenessTracker staleness,
+                         Duration refreshInterval, Clock clock) {
+        this.client = client;
+        this.snapshotFile = snapshotFile;
+        this.staleness = staleness;
+        this.refreshInterval = refreshInterval;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the current snapshot. If no snapshot has been loaded or restored yet, it is loaded synchronously.
+     *
+     * @return The current snapshot, never null.
+     * @throws RestClientException if no snapshot is available and the initial load fails
+     */
+    public CountrySnapshot current() {
+        CountrySnapshot snapshot = current.get();
+        if (snapshot != null) {
+            Duration age = snapshot.age(clock.instant());
+            if (age.compareTo(refreshInterval) > 0) {
+                staleness.recordStale(age);
+            }
+            return snapshot;
+        }
+        synchronized (refreshLock) {
+            // another thread may have loaded the snapshot while we were waiting for the lock
+            snapshot = current.get();
+            return snapshot != null ? snapshot : refresh();
+        }
+    }
+
+    /**
+     * Returns the current snapshot without loading one, for callers that can do without the snapshot and must not
+     * wait for the full dataset.
+     *
+     * @return The current snapshot, or null if none has been loaded or restored yet.
+     */
+    public CountrySnapshot installed() {
+        return current.get();
+    }
+
+    /**
+     * Loads the full dataset from the upstream and installs it as the new current snapshot. If the upstream data is
+     * unchanged since the current snapshot, the current snapshot is revalidated instead.
+     *
+     * @return The newly installed snapshot.
+     */
+    public CountrySnapshot refresh() {
+        synchronized (refreshLock) {
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            long cpuStart = threads.getCurrentThreadCpuTime();
+
+            CountrySnapshot previous = current.get();
+            RestCountriesClient.AllCountries response = client.fetchAll(
+                    previous != null ? previous.getValidators() : UpstreamValidators.NONE);
+            CountrySnapshot snapshot;
+            boolean revalidated = previous != null && !response.modified();
+            if (revalidated) {
+                snapshot = previous.revalidated(clock.instant(), response.validators());
+                (response.notModified() ? notModified : unchanged).incrementAndGet();
+                logger.info("Country snapshot version {} is unchanged ({})", snapshot.getVersion(),
+                        response.notModified() ? "not modified" : "same content hash");
+            } else {
+                snapshot = new CountrySnapshot(versions.incrementAndGet(), clock.instant(), response.countries(),
+                        response.details(), response.validators());
+                logger.info("Installed country snapshot version {} with {} countries",
+                        snapshot.getVersion(), snapshot.getCountries().size());
+            }
+            current.set(snapshot);
+            persist(snapshot, revalidated);
+
+            long cpu = threads.getCurrentThreadCpuTime() - cpuStart;
+            refreshes.incrementAndGet();
+            bytesTransferred.addAndGet(response.bytes());
+            cpuNanos.addAndGet(cpu);
+            lastBytesTransferred.set(response.bytes());
+            lastCpuNanos.set(cpu);
+            return snapshot;
+        }
+    }
+
+    /**
+     * @return A point-in-time copy of the refresh counters.
+     */
+    public RefreshStats getRefreshStats() {
+        CountrySnapshot snapshot = current.get();
+        return new RefreshStats(snapshot != null ? snapshot.getVersion() : 0,
+                snapshot != null ? snapshot.getLoadedAt() : null, refreshes.get(), notModified.get(), unchanged.get(),
+                bytesTransferred.get(), cpuNanos.get() / 1000, lastBytesTransferred.get(), lastCpuNanos.get() / 1000,
+                snapshot != null ? snapshot.getDistanceMatrix().bytes() : 0);
+    }
+
+    /**
+     * Background refresh, runs once at startup and then with a fixed delay. Failures are logged and the previous
+     * snapshot (if any) stays in place.
+     */
+    @Scheduled(fixedDelayString = "${countryinfo.snapshot.refresh-interval:PT1H}")
+    public void scheduledRefresh() {
+        CountrySnapshot snapshot = current.get();
+        if (snapshot != null && snapshot.age(clock.instant()).compareTo(refreshInterval) < 0) {
+            return; // still fresh, e.g., loaded on demand just before the first scheduled run
+        }
+        try {
+            refresh();
+        } catch (RestClientException e) {
+            logger.warn("Refreshing country snapshot failed, keeping version {}",
+                    snapshot != null ? snapshot.getVersion() : "none", e);
+        }
+    }
+
+    /**
+     * Restores the persisted snapshot, once the store is set up and before the first background refresh. A missing
+     * or unusable file is logged and leaves the store empty, the snapshot is then loaded from the upstream.
+     */
+    @PostConstruct
+    public void restore() {
+        if (snapshotFile.getPath() == null) {
+            return;
+        }
+        try {
+            CountrySnapshot snapshot = snapshotFile.read();
+            if (snapshot == null) {
+                logger.info("No country snapshot to restore from {}", snapshotFile.getPath());
+                return;
+            }
+            versions.set(snapshot.getVersion());
+            current.compareAndSet(null, snapshot);
+            logger.info("Restored country snapshot version {} with {} countries from {}, loaded at {}",
+                    snapshot.getVersion(), snapshot.getCountries().size(), snapshotFile.getPath(),
+                    snapshot.getLoadedAt());
+        } catch (RuntimeException e) {
+            logger.warn("Restoring the country snapshot from {} failed", snapshotFile.getPath(), e);
+        }
+    }
+
+    private void persist(CountrySnapshot snapshot, boolean revalidated) {
+        try {
+            // the countries of a revalidated snapshot are in the file already
+            if (revalidated) {
+                snapshotFile.writeHeader(snapshot);
+            } else {
+                snapshotFile.write(snapshot);
+            }
+        } catch (IOException e) {
+            // the snapshot in memory is fine, only the next restart will have to load from upstream
+            logger.warn("Persisting country snapshot version {} to {} failed",
+                    snapshot.getVersion(), snapshotFile.getPath(), e);
+        }
+    }
+
+    /**
+     * Counters of the snapshot refreshes. Not modified are refreshes answered with 304 by the upstream, unchanged are
+     * refreshes whose body had the same content hash; neither parses the body or rebuilds the indexes. Bytes are
+     * response body bytes, CPU time is that of the refreshing thread, both in total and for the last refresh. The
+     * distance matrix bytes are the memory held by the distances of the current snapshot.
+     */
+    public record RefreshStats(long version, Instant loadedAt, long refreshes, long notModified, long unchanged,
+                               long bytesTransferred, long cpuTimeMicros, long lastBytesTransferred,
+                               long lastCpuTimeMicros, long distanceMatrixBytes) {
+    }
+}
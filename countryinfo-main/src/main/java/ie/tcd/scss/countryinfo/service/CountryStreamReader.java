@@ -0,0 +1,280 @@
+package ie.tcd.scss.countryinfo.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ie.tcd.scss.countryinfo.domain.Country;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the JSON array returned by the {@code /all} endpoint of the upstream incrementally with a Jackson
+ * {@link JsonParser}. Each country is written directly into a {@link CountryRecord}; attributes that are not part of
+ * the record (translations, native names, flags, ...) are skipped at the token level and never materialized.
+ * <p>
+ * {@link #readWithDetails(InputStream)} additionally keeps each country as a full {@link Country}, for a snapshot that
+ * answers lookups by name itself; each array element is then read into a tree once and both are built from it.
+ */
+public class CountryStreamReader {
+
+    /**
+     * The upstream attributes read into a {@link CountryRecord}, to be requested with the {@code fields} parameter.
+     */
+    public static final CountryFields FIELDS = CountryFields.of("name", "cca2", "cca3", "ccn3", "region",
+            "subregion", "population", "area", "latlng", "capitalInfo", "languages", "currencies", "borders");
+
+    /**
+     * The most fields the upstream accepts in one request for all countries; it rejects {@code /all} with more.
+     */
+    public static final int MAX_FIELDS = 10;
+
+    /**
+     * {@link #FIELDS} split into requests of at most {@link #MAX_FIELDS} fields, see {@link #merge}: the countries,
+     * then their borders and coordinates. Both have cca3 to match them by.
+     */
+    public static final CountryFields COUNTRY_FIELDS = CountryFields.of("name", "cca2", "cca3", "ccn3", "region",
+            "subregion", "population", "area", "languages", "currencies");
+    public static final CountryFields LOCATION_FIELDS = CountryFields.of("cca3", "latlng", "capitalInfo", "borders");
+
+    private static final double[] NO_COORDINATES = {Double.NaN, Double.NaN};
+
+    private final JsonFactory jsonFactory;
+    // binds the full countries, ignoring attributes the domain classes do not model, like the RestTemplate does
+    private final ObjectMapper mapper;
+
+    public CountryStreamReader() {
+        this(new JsonFactory());
+    }
+
+    public CountryStreamReader(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+        this.mapper = new ObjectMapper(jsonFactory).disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    /**
+     * @param in The response body, an array of country objects. The stream is not closed.
+     * @return The countries, in the order of the array.
+     * @throws IOException if the body cannot be read or is not an array of objects
+     */
+    public List<CountryRecord> read(InputStream in) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "Expected an array of countries");
+            }
+            List<CountryRecord> countries = new ArrayList<>(256);
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                countries.add(readCountry(parser));
+            }
+            return countries;
+        }
+    }
+
+    /**
+     * @param in The response body of a request for all attributes, an array of country objects. The stream is not
+     *           closed.
+     * @return The countries as records and as full objects, both in the order of the array.
+     * @throws IOException if the body cannot be read or is not an array of objects
+     */
+    public Dataset readWithDetails(InputStream in) throws IOException {
+        try (JsonParser parser = mapper.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "Expected an array of countries");
+            }
+            List<CountryRecord> countries = new ArrayList<>(256);
+            List<Country> details = new ArrayList<>(256);
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                JsonNode tree = parser.readValueAsTree();
+                try (JsonParser country = tree.traverse(mapper)) {
+                    country.nextToken();
+                    countries.add(readCountry(country));
+                }
+                details.add(mapper.treeToValue(tree, Country.class));
+            }
+            return new Dataset(countries, details);
+        }
+    }
+
+    private static CountryRecord readCountry(JsonParser parser) throws IOException {
+        String commonName = null;
+        String officialName = null;
+        String cca2 = null;
+        String cca3 = null;
+        String ccn3 = null;
+        String region = null;
+        String subregion = null;
+        long population = 0;
+        double area = 0;
+        double[] latlng = NO_COORDINATES;
+        double[] capitalLatlng = NO_COORDINATES;
+        List<String> languages = List.of();
+        List<String> currencyCodes = List.of();
+        List<String> borders = List.of();
+
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "name" -> {
+                    if (value == JsonToken.START_OBJECT) {
+                        String nameField;
+                        while ((nameField = parser.nextFieldName()) != null) {
+                            parser.nextToken();
+                            if (nameField.equals("common")) {
+                                commonName = parser.getValueAsString();
+                            } else if (nameField.equals("official")) {
+                                officialName = parser.getValueAsString();
+                            } else {
+                                parser.skipChildren(); // nativeName
+                            }
+                        }
+                    }
+                }
+                case "cca2" -> cca2 = parser.getValueAsString();
+                case "cca3" -> cca3 = parser.getValueAsString();
+                case "ccn3" -> ccn3 = parser.getValueAsString();
+                case "region" -> region = parser.getValueAsString();
+                case "subregion" -> subregion = parser.getValueAsString();
+                case "population" -> population = parser.getValueAsLong();
+                case "area" -> area = parser.getValueAsDouble();
+                case "latlng" -> latlng = readCoordinates(parser);
+                case "capitalInfo" -> {
+                    if (value == JsonToken.START_OBJECT) {
+                        String capitalField;
+                        while ((capitalField = parser.nextFieldName()) != null) {
+                            parser.nextToken();
+                            if (capitalField.equals("latlng")) {
+                                capitalLatlng = readCoordinates(parser);
+                            } else {
+                                parser.skipChildren();
+                            }
+                        }
+                    }
+                }
+                case "languages" -> languages = readValues(parser);
+                case "currencies" -> currencyCodes = readKeys(parser);
+                case "borders" -> borders = readArray(parser);
+                default -> parser.skipChildren();
+            }
+        }
+        return new CountryRecord(commonName, officialName, cca2, cca3, ccn3, region, subregion, population, area,
+                latlng[0], latlng[1], capitalLatlng[0], capitalLatlng[1], languages, currencyCodes, borders);
+    }
+
+    /**
+     * Combines the countries read from a request for {@link #COUNTRY_FIELDS} with their borders and coordinates read
+     * from a request for {@link #LOCATION_FIELDS}, matched by cca3.
+     *
+     * @param countries The countries, without borders and coordinates.
+     * @param locations The same countries with only cca3, borders and coordinates, in any order.
+     * @return The complete countries, in the order of the countries; without borders and coordinates if their cca3
+     * is not among the locations.
+     */
+    public static List<CountryRecord> merge(List<CountryRecord> countries, List<CountryRecord> locations) {
+        Map<String, CountryRecord> byCode = new HashMap<>(locations.size() * 2);
+        for (CountryRecord location : locations) {
+            if (location.cca3() != null) {
+                byCode.putIfAbsent(location.cca3(), location);
+            }
+        }
+        List<CountryRecord> merged = new ArrayList<>(countries.size());
+        for (CountryRecord country : countries) {
+            CountryRecord location = country.cca3() != null ? byCode.get(country.cca3()) : null;
+            merged.add(location == null ? country : new CountryRecord(country.commonName(), country.officialName(),
+                    country.cca2(), country.cca3(), country.ccn3(), country.region(), country.subregion(),
+                    country.population(), country.area(),
+                    location.latitude(), location.longitude(), location.capitalLat(), location.capitalLng(),
+                    country.languages(), country.currencyCodes(), location.borders()));
+        }
+        return merged;
+    }
+
+    // a [latitude, longitude] array, NO_COORDINATES unless it holds two numbers
+    private static double[] readCoordinates(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return NO_COORDINATES;
+        }
+        double[] coordinates = new double[2];
+        int count = 0;
+        boolean numeric = true;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (!parser.currentToken().isNumeric()) {
+                numeric = false;
+            } else if (count < 2) {
+                coordinates[count] = parser.getValueAsDouble();
+            }
+            parser.skipChildren();
+            count++;
+        }
+        // a null or a string in place of a number would otherwise put the country on the equator or the meridian
+        return numeric && count == 2 ? coordinates : NO_COORDINATES;
+    }
+
+    // the values of an object of strings, e.g. {"deu": "German"} -> ["German"]
+    private static List<String> readValues(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return List.of();
+        }
+        List<String> values = new ArrayList<>(4);
+        while (parser.nextFieldName() != null) {
+            parser.nextToken();
+            if (parser.currentToken().isScalarValue() && parser.currentToken() != JsonToken.VALUE_NULL) {
+                values.add(parser.getValueAsString());
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return values;
+    }
+
+    // the keys of an object, e.g. {"EUR": {...}} -> ["EUR"]
+    private static List<String> readKeys(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return List.of();
+        }
+        List<String> keys = new ArrayList<>(2);
+        String key;
+        while ((key = parser.nextFieldName()) != null) {
+            keys.add(key);
+            parser.nextToken();
+            parser.skipChildren();
+        }
+        return keys;
+    }
+
+    private static List<String> readArray(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return List.of();
+        }
+        List<String> values = new ArrayList<>(8);
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.currentToken().isScalarValue() && parser.currentToken() != JsonToken.VALUE_NULL) {
+                values.add(parser.getValueAsString());
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Countries read with {@link #readWithDetails(InputStream)}.
+     *
+     * @param countries The compact records.
+     * @param details   The full countries, indexed like the records.
+     */
+    public record Dataset(List<CountryRecord> countries, List<Country> details) {
+    }
+}
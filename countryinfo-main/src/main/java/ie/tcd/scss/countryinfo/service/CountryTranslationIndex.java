@@ -0,0 +1,116 @@
+package ie.tcd.scss.countryinfo.service;
+
+import ie.tcd.scss.countryinfo.domain.Country;
+import ie.tcd.scss.countryinfo.domain.Name;
+import ie.tcd.scss.countryinfo.domain.NativeName;
+import ie.tcd.scss.countryinfo.domain.Translation;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Finds countries by their name in any language: every common and official value of the translations, the native
+ * names and the English names is indexed under its folded form, so "Allemagne", "deutschland" and "Osterreich" each
+ * resolve to their country with one hash lookup.
+ * <p>
+ * Folding applies Unicode compatibility normalization, removes the diacritics of Latin, Greek and Cyrillic letters and
+ * lower-cases, so "Ouzbékistan" and "OUZBEKISTAN" are the same key. Marks of other scripts, like the Japanese voicing
+ * marks, are kept, they distinguish names rather than decorate them.
+ */
+public final class CountryTranslationIndex {
+
+    /**
+     * The language under which the English common and official names are indexed; the upstream has no "eng"
+     * translation.
+     */
+    public static final String ENGLISH = "eng";
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{InCombiningDiacriticalMarks}+");
+
+    // by folded name, the countries with that name in snapshot order
+    private final Map<String, List<Match>> matches;
+
+    public CountryTranslationIndex(List<Country> countries) {
+        Map<String, Map<Integer, Set<String>>> languages = new HashMap<>();
+        for (int ordinal = 0; ordinal < countries.size(); ordinal++) {
+            Country country = countries.get(ordinal);
+            Name name = country.getName();
+            if (name != null) {
+                add(languages, name.getCommon(), ordinal, ENGLISH);
+                add(languages, name.getOfficial(), ordinal, ENGLISH);
+                if (name.getNativeName() != null) {
+                    for (Map.Entry<String, NativeName> nativeName : name.getNativeName().entrySet()) {
+                        if (nativeName.getValue() != null) {
+                            add(languages, nativeName.getValue().getCommon(), ordinal, nativeName.getKey());
+                            add(languages, nativeName.getValue().getOfficial(), ordinal, nativeName.getKey());
+                        }
+                    }
+                }
+            }
+            if (country.getTranslations() != null) {
+                for (Map.Entry<String, Translation> translation : country.getTranslations().entrySet()) {
+                    if (translation.getValue() != null) {
+                        add(languages, translation.getValue().getCommon(), ordinal, translation.getKey());
+                        add(languages, translation.getValue().getOfficial(), ordinal, translation.getKey());
+                    }
+                }
+            }
+        }
+
+        matches = new HashMap<>();
+        languages.forEach((key, byOrdinal) -> {
+            List<Match> countriesWithName = new ArrayList<>(byOrdinal.size());
+            byOrdinal.entrySet().stream()
+                    .sorted(Map.Entry.comparingByKey())
+                    .forEach(entry -> countriesWithName.add(new Match(entry.getKey(), List.copyOf(entry.getValue()))));
+            matches.put(key, List.copyOf(countriesWithName));
+        });
+    }
+
+    /**
+     * @param name A complete common or official name in any language, e.g. "Allemagne"; case and diacritics do not
+     *             matter.
+     * @return The countries with that name, in snapshot order, empty if there is none. The list is shared.
+     */
+    public List<Match> find(String name) {
+        if (name == null || name.isBlank()) {
+            return List.of();
+        }
+        return matches.getOrDefault(fold(name), List.of());
+    }
+
+    /**
+     * @return The folded form of a name: compatibility decomposed, without Latin, Greek and Cyrillic diacritics,
+     * recomposed and lower-cased.
+     */
+    static String fold(String name) {
+        String decomposed = Normalizer.normalize(name.trim(), Normalizer.Form.NFKD);
+        String stripped = DIACRITICS.matcher(decomposed).replaceAll("");
+        return Normalizer.normalize(stripped, Normalizer.Form.NFC).toLowerCase(Locale.ROOT);
+    }
+
+    private static void add(Map<String, Map<Integer, Set<String>>> languages, String name, int ordinal,
+                            String language) {
+        if (name != null && !name.isBlank()) {
+            languages.computeIfAbsent(fold(name), key -> new HashMap<>())
+                    .computeIfAbsent(ordinal, key -> new LinkedHashSet<>())
+                    .add(language);
+        }
+    }
+
+    /**
+     * A country with a given name.
+     *
+     * @param ordinal   The ordinal of the country in the snapshot.
+     * @param languages The language codes the name is in, e.g. ["fra"], {@link #ENGLISH} for the English name.
+     */
+    public record Match(int ordinal, List<String> languages) {
+    }
+}
@@ -0,0 +1,111 @@
+package ie.tcd.scss.countryinfo.service;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * An immutable map of a few entries in two flat arrays, keeping the order of the source map. Unlike
+ * {@link Map#copyOf}, the iteration order is that of the upstream JSON, which the responses and the translation index
+ * rely on. Lookups are linear scans, as the maps of a country have at most a few dozen entries.
+ *
+ * @param <V> The type of the values.
+ */
+final class FlatMap<V> extends AbstractMap<String, V> {
+
+    private final String[] keys;
+    private final Object[] values;
+
+    private FlatMap(String[] keys, Object[] values) {
+        this.keys = keys;
+        this.values = values;
+    }
+
+    /**
+     * @param source The map to copy, entries with a null key or value are left out.
+     * @param key    Maps each key, e.g. to its canonical instance.
+     * @param value  Maps each value.
+     */
+    static <S, V> FlatMap<V> copyOf(Map<String, S> source, UnaryOperator<String> key, Function<S, V> value) {
+        String[] keys = new String[source.size()];
+        Object[] values = new Object[source.size()];
+        int size = 0;
+        for (Map.Entry<String, S> entry : source.entrySet()) {
+            if (entry.getKey() != null && entry.getValue() != null) {
+                keys[size] = key.apply(entry.getKey());
+                values[size] = value.apply(entry.getValue());
+                size++;
+            }
+        }
+        if (size < keys.length) {
+            keys = Arrays.copyOf(keys, size);
+            values = Arrays.copyOf(values, size);
+        }
+        return new FlatMap<>(keys, values);
+    }
+
+    @Override
+    public int size() {
+        return keys.length;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        int index = indexOf(key);
+        return index >= 0 ? (V) values[index] : null;
+    }
+
+    @Override
+    public Set<Entry<String, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public int size() {
+                return keys.length;
+            }
+
+            @Override
+            public Iterator<Entry<String, V>> iterator() {
+                return new Iterator<>() {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < keys.length;
+                    }
+
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public Entry<String, V> next() {
+                        if (next >= keys.length) {
+                            throw new NoSuchElementException();
+                        }
+                        Entry<String, V> entry = new SimpleImmutableEntry<>(keys[next], (V) values[next]);
+                        next++;
+                        return entry;
+                    }
+                };
+            }
+        };
+    }
+
+    private int indexOf(Object key) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,152 @@
+package ie.tcd.scss.countryinfo.service;
+
+import ie.tcd.scss.countryinfo.config.CountryInfoProperties;
+import ie.tcd.scss.countryinfo.domain.Country;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Non-blocking counterpart of the lookups by name in {@link CountryService}, used with
+ * {@code countryinfo.mode=reactive}. The methods return a {@link Mono} that is empty where CountryService returns
+ * null; cached results are served from the same {@link CountryLookupCache}, misses are loaded with the
+ * {@link ReactiveRestCountriesClient}. Operations on the snapshot stay in CountryService. With
+ * {@code countryinfo.snapshot.resolve-names} the lookups by name are answered from the snapshot, like in
+ * CountryService, but only from an installed one: loading the snapshot blocks until the full dataset is downloaded,
+ * so until the first load or restore has finished the lookups go to the upstream.
+ */
+@Service
+@ConditionalOnProperty(name = "countryinfo.mode", havingValue = "reactive")
+public class ReactiveCountryService {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveCountryService.class);
+
+    // non-blocking access to the upstream API for lookups by name
+    private final ReactiveRestCountriesClient client;
+
+    // results of lookups by name, shared with the blocking mode
+    private final CountryLookupCache lookupCache;
+
+    // in-memory snapshot of all countries, answers lookups by name if it holds the full countries
+    private final CountrySnapshotStore snapshotStore;
+
+    // resolves country codes from the snapshot
+    private final CountryService countryService;
+
+    // lookups by name are answered from the snapshot instead of the upstream
+    private final boolean resolveNames;
+
+    public ReactiveCountryService(ReactiveRestCountriesClient client, CountryLookupCache lookupCache,
+                                  CountrySnapshotStore snapshotStore, CountryService countryService,
+                                  CountryInfoProperties properties) {
+        this.client = client;
+        this.lookupCache = lookupCache;
+        this.snapshotStore = snapshotStore;
+        this.countryService = countryService;
+        this.resolveNames = properties.getSnapshot().isResolveNames();
+    }
+
+    public Mono<String> getFlagForCountry(String countryName) {
+        return getCountryInfo(countryName, CountryService.FLAG_FIELDS)
+                .mapNotNull(country -> country.getFlags() != null ? country.getFlags().getPng() : null);
+    }
+
+    public Mono<String> getMapForCountry(String countryName) {
+        return getCountryInfo(countryName, CountryService.MAP_FIELDS)
+                .mapNotNull(country -> country.getMaps() != null ? country.getMaps().getGoogleMaps() : null);
+    }
+
+    public Mono<List<String>> getContinentsForCountry(String countryName) {
+        return getCountryInfo(countryName, CountryService.CONTINENT_FIELDS)
+                .mapNotNull(Country::getContinents);
+    }
+
+    public Mono<String> getTranslationForCountry(String countryName, String language) {
+        // a name typed in any language, e.g. "Allemagne", is found in the translation index, not by a lookup by name
+        return Mono.defer(() -> {
+                    CountrySnapshot snapshot = resolveNames ? snapshotStore.installed() : null;
+                    Country country = snapshot != null ? snapshot.findByTranslation(countryName) : null;
+                    return country != null ? Mono.just(country)
+                            : getCountryInfo(countryName, CountryService.TRANSLATION_FIELDS);
+                })
+                .mapNotNull(country -> CountryService.translationOf(country, language));
+    }
+
+    /**
+     * Retrieves information about a country matching the given name, requesting only the given attributes from the
+     * upstream. If multiple countries are found, only the first one is returned.
+     *
+     * @return The first country found, or an empty Mono if no country was found.
+     */
+    public Mono<Country> getCountryInfo(String countryName, CountryFields fields) {
+        return lookup(countryName, fields)
+                .mapNotNull(countries -> !countries.isEmpty() ? countries.get(0) : null);
+    }
+
+    public Mono<Country> getCountryInfo(String countryName) {
+        return getCountryInfo(countryName, CountryFields.ALL);
+    }
+
+    /**
+     * Compares two countries like {@link CountryService#compareCountries}. Both lookups are subscribed at once, so
+     * they run concurrently without an extra thread; comparing a country with itself needs only one lookup.
+     *
+     * @return The comparison results; fails with an {@link IllegalArgumentException} if one of the countries is not
+     * found.
+     */
+    public Mono<Map<String, Object>> compareCountries(String country1Name, String country2Name) {
+        logger.debug("Comparing countries: {} and {}", country1Name, country2Name);
+
+        Mono<Country> country1 = requireCountry(country1Name).cache();
+        Mono<Country> country2 = normalize(country1Name).equals(normalize(country2Name))
+                ? country1 : requireCountry(country2Name);
+        return Mono.zip(country1, country2)
+                // the distances only if a snapshot is installed, loading one here would block the event loop
+                .map(countries -> CountryService.compare(countries.getT1(), countries.getT2(), snapshotStore.installed()));
+    }
+
+    /**
+     * Resolves country codes like {@link CountryService#getCountriesByCodes}. If no snapshot is installed yet, it is
+     * loaded on a worker thread instead of the calling one, which may be an event loop.
+     *
+     * @return The countries found, in the order of the codes; fails if the snapshot cannot be loaded.
+     */
+    public Mono<List<CountryRecord>> getCountriesByCodes(List<String> codes) {
+        Mono<List<CountryRecord>> countries = Mono.fromSupplier(() -> countryService.getCountriesByCodes(codes));
+        return snapshotStore.installed() != null ? countries : countries.subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private Mono<Country> requireCountry(String countryName) {
+        return getCountryInfo(countryName, CountryService.COMPARISON_FIELDS)
+                .switchIfEmpty(Mono.error(() -> new IllegalArgumentException("Country not found: " + countryName)));
+    }
+
+    private Mono<List<Country>> lookup(String countryName, CountryFields fields) {
+        return Mono.defer(() -> {
+            if (resolveNames) {
+                CountrySnapshot snapshot = snapshotStore.installed();
+                if (snapshot != null && snapshot.hasDetails()) {
+                    return Mono.just(snapshot.findByName(countryName));
+                }
+            }
+            // stale entries are revalidated on the upstream executor, where blocking is fine
+            CountryLookupCache.Lookup cached = lookupCache.find(countryName, fields,
+                    (name, staleFields) -> client.fetchByName(name, staleFields).block());
+            if (cached.countries() != null) {
+                return Mono.just(cached.countries());
+            }
+            return client.fetchByName(countryName, cached.fieldsToLoad())
+                    .map(countries -> lookupCache.store(countryName, cached.fieldsToLoad(), countries));
+        });
+    }
+
+    private static String normalize(String countryName) {
+        return countryName.trim().toLowerCase(Locale.ROOT);
+    }
+}
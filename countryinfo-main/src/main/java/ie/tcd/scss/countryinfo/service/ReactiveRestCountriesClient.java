@@ -0,0 +1,110 @@
+package ie.tcd.scss.countryinfo.service;
+
+import ie.tcd.scss.countryinfo.config.CountryInfoProperties;
+import ie.tcd.scss.countryinfo.domain.Country;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Non-blocking counterpart of {@link RestCountriesClient} for lookups by name, used with
+ * {@code countryinfo.mode=reactive}. A lookup waiting for the upstream holds no thread, so the number of lookups in
+ * flight is limited by the connection pool instead of the servlet threads.
+ * <p>
+ * Like the blocking client, concurrent requests for the same URL share one upstream request and all requests go
+ * through the {@link UpstreamCircuitBreaker}. The list of all countries is still loaded by the blocking client, see
+ * {@link CountrySnapshotStore}.
+ */
+@Component
+@ConditionalOnProperty(name = "countryinfo.mode", havingValue = "reactive")
+public class ReactiveRestCountriesClient {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveRestCountriesClient.class);
+
+    private final WebClient webClient;
+    private final UpstreamCircuitBreaker circuitBreaker;
+    private final String baseUrl;
+
+    // in-flight upstream requests, keyed by URL; each is cached so late subscribers get the same response
+    private final Map<String, Mono<List<Country>>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    public ReactiveRestCountriesClient(WebClient upstreamWebClient, UpstreamCircuitBreaker circuitBreaker,
+                                       CountryInfoProperties properties) {
+        this.webClient = upstreamWebClient;
+        this.circuitBreaker = circuitBreaker;
+        this.baseUrl = properties.getApi().getBaseUrl();
+    }
+
+    /**
+     * Retrieves all countries matching the given name, with only the given attributes populated.
+     *
+     * @param countryName The name (or part of the name) of the country.
+     * @param fields      The attributes to request.
+     * @return The matching countries, an empty list for names the upstream does not know (NOT_FOUND). Fails with
+     * {@link UpstreamUnavailableException} if the circuit breaker is open, and with a
+     * {@link WebClientResponseException} for other error responses.
+     */
+    public Mono<List<Country>> fetchByName(String countryName, CountryFields fields) {
+        String value = fields.toQueryValue();
+        String url = baseUrl + "/name/" + countryName + (value != null ? "?fields=" + value : "");
+        Mono<List<Country>> existing = inFlight.get(url);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return existing;
+        }
+        Mono<List<Country>> request = fetch(url).doFinally(signal -> inFlight.remove(url)).cache();
+        Mono<List<Country>> raced = inFlight.putIfAbsent(url, request);
+        if (raced != null) {
+            coalesced.incrementAndGet();
+            return raced;
+        }
+        return request;
+    }
+
+    /**
+     * @return The number of requests that were answered by joining an identical request already in flight.
+     */
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    private Mono<List<Country>> fetch(String url) {
+        return Mono.defer(() -> {
+            circuitBreaker.acquirePermission();
+            logger.debug("Fetching {}", url);
+            long start = System.nanoTime();
+            return webClient.get().uri(url)
+                    .retrieve()
+                    .bodyToMono(Country[].class)
+                    .map(countries -> Arrays.asList(countries))
+                    .defaultIfEmpty(List.of())
+                    .doOnSuccess(countries -> circuitBreaker.onCompleted(elapsedSince(start)))
+                    .doOnError(e -> {
+                        if (e instanceof WebClientResponseException response
+                                && response.getStatusCode().is4xxClientError()) {
+                            circuitBreaker.onCompleted(elapsedSince(start)); // the upstream is working
+                        } else {
+                            circuitBreaker.onFailure();
+                        }
+                    })
+                    .doOnCancel(circuitBreaker::onFailure)
+                    // no countries found with that name
+                    .onErrorResume(WebClientResponseException.NotFound.class, e -> Mono.just(List.of()));
+        });
+    }
+
+    private static Duration elapsedSince(long start) {
+        return Duration.ofNanos(System.nanoTime() - start);
+    }
+}
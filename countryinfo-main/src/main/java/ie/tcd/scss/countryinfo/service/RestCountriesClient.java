@@ -0,0 +1,228 @@
+package ie.tcd.scss.countryinfo.service;
+
+import ie.tcd.scss.countryinfo.config.CountryInfoProperties;
+import ie.tcd.scss.countryinfo.domain.Country;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Low-level access to the <a href="https://restcountries.com/">https://restcountries.com/</a> REST API. All upstream
+ * requests of the application go through this class, so the base URL can be pointed at a different server (e.g., a
+ * local stub in tests) with the {@code countryinfo.api.base-url} property.
+ * <p>
+ * Concurrent requests for the same URL are coalesced into one upstream request, see {@link SingleFlight}, and the
+ * upstream requests go through the {@link UpstreamCircuitBreaker}.
+ */
+@Component
+public class RestCountriesClient {
+    private static final Logger logger = LoggerFactory.getLogger(RestCountriesClient.class);
+
+    private final RestTemplate restTemplate;
+    private final UpstreamCircuitBreaker circuitBreaker;
+    private final String baseUrl;
+    // load all attributes of all countries, for a snapshot that answers lookups by name itself
+    private final boolean loadDetails;
+
+    // streaming parser for the /all payload
+    private final CountryStreamReader streamReader = new CountryStreamReader();
+
+    // in-flight upstream requests, keyed by URL
+    private final SingleFlight<String, Country[]> inFlight = new SingleFlight<>();
+    // in-flight requests for all countries, keyed by the validators they are conditional on
+    private final SingleFlight<UpstreamValidators, AllCountries> allInFlight = new SingleFlight<>();
+
+    public RestCountriesClient(RestTemplate restTemplate, CountryInfoProperties properties) {
+        this(restTemplate, new UpstreamCircuitBreaker(properties), properties);
+    }
+
+    @Autowired
+    public RestCountriesClient(RestTemplate restTemplate, UpstreamCircuitBreaker circuitBreaker,
+                               CountryInfoProperties properties) {
+        this.restTemplate = restTemplate;
+        this.circuitBreaker = circuitBreaker;
+        this.baseUrl = properties.getApi().getBaseUrl();
+        this.loadDetails = properties.getSnapshot().isResolveNames();
+    }
+
+    /**
+     * Retrieves all countries, unconditionally.
+     *
+     * @return A list with all countries, empty if the upstream returned no body.
+     * @throws UpstreamUnavailableException if the circuit breaker is open
+     */
+    public List<CountryRecord> fetchAll() {
+        return fetchAll(UpstreamValidators.NONE).countries();
+    }
+
+    /**
+     * Retrieves all countries unless they are unchanged since the version described by the given validators. The
+     * request is conditional if the validators hold an ETag or Last-Modified value. If the upstream still sends the
+     * full body, its SHA-256 is compared with the previous hash, and an unchanged body is not parsed. A changed body
+     * is parsed into compact records, see {@link CountryStreamReader}. With {@code countryinfo.snapshot.resolve-names}
+     * all attributes are requested and the full countries are returned as well.
+     * <p>
+     * Otherwise the record attributes are more fields than the upstream accepts in one request for all countries, so
+     * they are requested in two parts, see {@link CountryStreamReader#merge}. The first is conditional and stands for
+     * the dataset: after a 304 the second is not requested. Otherwise the hash covers both bodies.
+     *
+     * @param previous The validators of the data the caller has, {@link UpstreamValidators#NONE} if it has none.
+     * @return The countries, or no countries if they are unchanged, together with the new validators.
+     * @throws UpstreamUnavailableException if the circuit breaker is open
+     */
+    public AllCountries fetchAll(UpstreamValidators previous) {
+        return allInFlight.execute(previous, () -> circuitBreaker.execute(() -> {
+            try {
+                return readAll(previous);
+            } catch (IOException e) {
+                // like read errors, which RestTemplate reports as ResourceAccessException
+                throw new ResourceAccessException("Reading all countries failed: " + e.getMessage(), e);
+            }
+        }));
+    }
+
+    /**
+     * Retrieves all countries matching the given name, with all attributes.
+     *
+     * @param countryName The name (or part of the name) of the country.
+     * @return An array with the matching countries, or null if the upstream returned no body.
+     * @throws org.springframework.web.client.HttpClientErrorException if the upstream answers with a 4xx status,
+     *                                                                  in particular NOT_FOUND for unknown names
+     * @throws UpstreamUnavailableException                             if the circuit breaker is open
+     */
+    public Country[] fetchByName(String countryName) {
+        return fetchByName(countryName, CountryFields.ALL);
+    }
+
+    /**
+     * Retrieves all countries matching the given name, with only the given attributes populated.
+     *
+     * @param countryName The name (or part of the name) of the country.
+     * @param fields      The attributes to request.
+     * @return An array with the matching countries, or null if the upstream returned no body.
+     * @throws org.springframework.web.client.HttpClientErrorException if the upstream answers with a 4xx status,
+     *                                                                  in particular NOT_FOUND for unknown names
+     * @throws UpstreamUnavailableException                             if the circuit breaker is open
+     */
+    public Country[] fetchByName(String countryName, CountryFields fields) {
+        return fetch(withFields(baseUrl + "/name/" + countryName, fields));
+    }
+
+    /**
+     * @return The number of requests that were answered by joining an identical request already in flight.
+     */
+    public long getCoalescedCount() {
+        return inFlight.getCoalescedCount() + allInFlight.getCoalescedCount();
+    }
+
+    private AllCountries readAll(UpstreamValidators previous) throws IOException {
+        Download all = download(withFields(baseUrl + "/all",
+                loadDetails ? CountryFields.ALL : CountryStreamReader.COUNTRY_FIELDS), previous);
+        if (all == null) {
+            return new AllCountries(null, List.of(), previous, 0, true);
+        }
+        Download locations = loadDetails ? null
+                : download(withFields(baseUrl + "/all", CountryStreamReader.LOCATION_FIELDS), UpstreamValidators.NONE);
+        byte[] body = all.body();
+        byte[] locationBody = locations != null ? locations.body() : new byte[0];
+        long bytes = body.length + locationBody.length;
+        // the bodies are hashed before they are parsed, so an unchanged dataset costs the download but no parsing
+        UpstreamValidators validators = new UpstreamValidators(all.etag(), all.lastModified(),
+                sha256(body, locationBody));
+        if (validators.contentHash().equals(previous.contentHash())) {
+            return new AllCountries(null, List.of(), validators, bytes, false);
+        }
+        if (body.length == 0) {
+            return new AllCountries(List.of(), List.of(), validators, 0, false);
+        }
+        if (loadDetails) {
+            CountryStreamReader.Dataset dataset = streamReader.readWithDetails(new ByteArrayInputStream(body));
+            return new AllCountries(dataset.countries(), dataset.details(), validators, bytes, false);
+        }
+        List<CountryRecord> countries = streamReader.read(new ByteArrayInputStream(body));
+        if (locationBody.length > 0) {
+            countries = CountryStreamReader.merge(countries,
+                    streamReader.read(new ByteArrayInputStream(locationBody)));
+        }
+        return new AllCountries(countries, List.of(), validators, bytes, false);
+    }
+
+    // null for 304 NOT MODIFIED
+    private Download download(String url, UpstreamValidators previous) {
+        logger.debug("Fetching {} with {}", url, previous);
+        return restTemplate.execute(url, HttpMethod.GET,
+                request -> previous.applyTo(request.getHeaders()),
+                response -> {
+                    if (response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+                        return null;
+                    }
+                    HttpHeaders headers = response.getHeaders();
+                    return new Download(response.getBody().readAllBytes(), headers.getETag(),
+                            headers.getFirst(HttpHeaders.LAST_MODIFIED));
+                });
+    }
+
+    // of all bodies in order; of one body the same as its SHA-256, as persisted with earlier snapshots
+    private static String sha256(byte[]... bodies) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (byte[] body : bodies) {
+                digest.update(body);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required to be available", e);
+        }
+    }
+
+    // a response body with the validators the upstream sent for it
+    private record Download(byte[] body, String etag, String lastModified) {
+    }
+
+    private static String withFields(String url, CountryFields fields) {
+        String value = fields.toQueryValue();
+        return value != null ? url + "?fields=" + value : url;
+    }
+
+    private Country[] fetch(String url) {
+        return inFlight.execute(url, () -> circuitBreaker.execute(() -> {
+            logger.debug("Fetching {}", url);
+            return restTemplate.getForObject(url, Country[].class);
+        }));
+    }
+
+    /**
+     * Result of a conditional request for all countries.
+     *
+     * @param countries   The countries, or null if they are unchanged.
+     * @param details     The full countries, indexed like the countries; empty if they are unchanged or only the
+     *                    record attributes were requested.
+     * @param validators  The validators of the current upstream data.
+     * @param bytes       Size of the response body, 0 for 304 NOT MODIFIED.
+     * @param notModified True if the upstream answered 304 NOT MODIFIED.
+     */
+    public record AllCountries(List<CountryRecord> countries, List<Country> details, UpstreamValidators validators,
+                               long bytes, boolean notModified) {
+
+        /**
+         * @return True if the countries changed and must be installed.
+         */
+        public boolean modified() {
+            return countries != null;
+        }
+    }
+}
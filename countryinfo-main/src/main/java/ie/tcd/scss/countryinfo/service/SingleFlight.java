@@ -0,0 +1,73 @@
+package ie.tcd.scss.countryinfo.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key: the first caller (the leader) runs the call, all callers arriving
+ * while it is in flight wait for it and receive the same result or exception. Once the call has completed, the next
+ * caller for that key starts a new one, so nothing is cached beyond the lifetime of a single call.
+ *
+ * @param <K> The type of the keys, e.g. the upstream URL.
+ * @param <V> The type of the results.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * Runs the given call for the key, or joins the call already in flight for that key.
+     *
+     * @param key  The key identifying identical calls.
+     * @param call The call to run if no call for the key is in flight.
+     * @return The result of the call.
+     * @throws RuntimeException the exception thrown by the call, passed on to every waiting caller
+     */
+    public V execute(K key, Supplier<V> call) {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return await(existing);
+        }
+
+        try {
+            V result = call.get();
+            created.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, created);
+        }
+    }
+
+    /**
+     * @return The number of calls that were answered by joining a call already in flight.
+     */
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    private static <V> V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            // pass on the leader's exception unchanged, so callers can handle it as if they had made the call
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
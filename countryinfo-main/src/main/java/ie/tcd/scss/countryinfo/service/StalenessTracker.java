@@ -0,0 +1,72 @@
+package ie.tcd.scss.countryinfo.service;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Collects, per request, the age of stale data that was served instead of fresh upstream data, so the web layer can
+ * report it in the response headers. The age is bound to the request thread between {@link #begin()} and
+ * {@link #end()}; work handed to other threads carries it along with {@link #propagate(Supplier)}.
+ */
+@Component
+public class StalenessTracker {
+
+    private final ThreadLocal<AtomicReference<Duration>> current = new ThreadLocal<>();
+
+    /**
+     * Starts tracking for the request handled by the current thread.
+     */
+    public void begin() {
+        current.set(new AtomicReference<>());
+    }
+
+    /**
+     * Stops tracking for the current thread.
+     */
+    public void end() {
+        current.remove();
+    }
+
+    /**
+     * Records that data of the given age was served as a stale fallback. Does nothing outside of a tracked request.
+     *
+     * @param age Time since the data was fetched from the upstream.
+     */
+    public void recordStale(Duration age) {
+        AtomicReference<Duration> maxAge = current.get();
+        if (maxAge != null) {
+            maxAge.accumulateAndGet(age, (a, b) -> a == null || b.compareTo(a) > 0 ? b : a);
+        }
+    }
+
+    /**
+     * @return The age of the oldest stale data served for the current request, or null if all data was fresh.
+     */
+    public Duration staleAge() {
+        AtomicReference<Duration> maxAge = current.get();
+        return maxAge != null ? maxAge.get() : null;
+    }
+
+    /**
+     * Wraps the given task so that stale data it serves on another thread is recorded for the calling request.
+     */
+    public <T> Supplier<T> propagate(Supplier<T> task) {
+        AtomicReference<Duration> maxAge = current.get();
+        return () -> {
+            AtomicReference<Duration> previous = current.get();
+            current.set(maxAge);
+            try {
+                return task.get();
+            } finally {
+                if (previous != null) {
+                    current.set(previous);
+                } else {
+                    current.remove();
+                }
+            }
+        };
+    }
+}
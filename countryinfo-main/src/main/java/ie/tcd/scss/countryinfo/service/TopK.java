@@ -0,0 +1,148 @@
+package ie.tcd.scss.countryinfo.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Top-K selection with a heap of at most K entries, so picking the K largest of N values costs O(N log K) and
+ * allocates only the heap, instead of sorting all N. Ties keep the input order, like a stable sort.
+ */
+public final class TopK {
+
+    private static final int[] NO_ORDINALS = new int[0];
+
+    private TopK() {
+    }
+
+    // whether slot a ranks strictly before slot b
+    private interface Ranking {
+        boolean before(int a, int b);
+    }
+
+    /**
+     * @return The ordinals of the k largest keys, largest first; equal keys by ascending ordinal.
+     */
+    public static int[] largest(long[] keys, int k) {
+        return select(keys.length, k, (a, b) -> keys[a] > keys[b] || keys[a] == keys[b] && a < b);
+    }
+
+    /**
+     * @return The ordinals of the k largest keys, largest first; equal keys by ascending ordinal.
+     */
+    public static int[] largest(double[] keys, int k) {
+        return select(keys.length, k, (a, b) -> {
+            int c = Double.compare(keys[a], keys[b]);
+            return c > 0 || c == 0 && a < b;
+        });
+    }
+
+    /**
+     * @return The k entries with the largest counts, largest first; equal counts in the iteration order of the map.
+     */
+    public static <K> Map<K, Long> largest(Map<K, Long> counts, int k) {
+        int capacity = Math.min(k, counts.size());
+        Map<K, Long> result = new LinkedHashMap<>();
+        if (capacity <= 0) {
+            return result;
+        }
+
+        // the heap holds slots into these arrays, an evicted entry's slot is reused
+        Object[] keys = new Object[capacity];
+        long[] values = new long[capacity];
+        int[] sequence = new int[capacity];
+        int[] heap = new int[capacity];
+        Ranking ranking = (a, b) -> values[a] > values[b] || values[a] == values[b] && sequence[a] < sequence[b];
+
+        int size = 0;
+        int position = 0;
+        for (Map.Entry<K, Long> entry : counts.entrySet()) {
+            long value = entry.getValue();
+            if (size < capacity) {
+                keys[size] = entry.getKey();
+                values[size] = value;
+                sequence[size] = position;
+                heap[size] = size;
+                siftUp(heap, size++, ranking);
+            } else if (value > values[heap[0]]) {
+                // a later entry only displaces the smallest if it is strictly larger
+                int slot = heap[0];
+                keys[slot] = entry.getKey();
+                values[slot] = value;
+                sequence[slot] = position;
+                siftDown(heap, size, 0, ranking);
+            }
+            position++;
+        }
+
+        sort(heap, size, ranking);
+        for (int i = 0; i < size; i++) {
+            @SuppressWarnings("unchecked")
+            K key = (K) keys[heap[i]];
+            result.put(key, values[heap[i]]);
+        }
+        return result;
+    }
+
+    private static int[] select(int n, int k, Ranking ranking) {
+        int capacity = Math.min(k, n);
+        if (capacity <= 0) {
+            return NO_ORDINALS;
+        }
+        int[] heap = new int[capacity];
+        int size = 0;
+        for (int ordinal = 0; ordinal < n; ordinal++) {
+            if (size < capacity) {
+                heap[size] = ordinal;
+                siftUp(heap, size++, ranking);
+            } else if (ranking.before(ordinal, heap[0])) {
+                heap[0] = ordinal;
+                siftDown(heap, size, 0, ranking);
+            }
+        }
+        sort(heap, size, ranking);
+        return heap;
+    }
+
+    // the root is the lowest ranked slot, so it is the one to evict
+    private static void siftUp(int[] heap, int i, Ranking ranking) {
+        int slot = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!ranking.before(heap[parent], slot)) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = slot;
+    }
+
+    private static void siftDown(int[] heap, int size, int i, Ranking ranking) {
+        int slot = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && ranking.before(heap[child], heap[child + 1])) {
+                child++;
+            }
+            if (!ranking.before(slot, heap[child])) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = slot;
+    }
+
+    // in-place heapsort, moving the lowest ranked slot to the end each round leaves the highest ranked first
+    private static void sort(int[] heap, int size, Ranking ranking) {
+        for (int end = size - 1; end > 0; end--) {
+            int lowest = heap[0];
+            heap[0] = heap[end];
+            heap[end] = lowest;
+            siftDown(heap, end, 0, ranking);
+        }
+    }
+}
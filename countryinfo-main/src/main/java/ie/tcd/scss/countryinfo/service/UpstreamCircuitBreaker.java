@@ -0,0 +1,153 @@
+package ie.tcd.scss.countryinfo.service;
+
+import ie.tcd.scss.countryinfo.config.CountryInfoProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker for the upstream. After {@code countryinfo.breaker.failure-threshold} consecutive failed or slow
+ * calls it opens and rejects calls with an {@link UpstreamUnavailableException} for
+ * {@code countryinfo.breaker.open-duration}, so callers fall back to stale data immediately instead of each waiting
+ * for a timeout. Then a single trial call is let through (half-open): if it succeeds the breaker closes, otherwise it
+ * opens again.
+ * <p>
+ * 4xx responses, e.g. NOT_FOUND for unknown names, show that the upstream is working and do not count as failures.
+ * <p>
+ * Blocking calls go through {@link #execute(Supplier)}; non-blocking callers, see {@link ReactiveRestCountriesClient},
+ * report the outcome of their calls themselves with {@link #acquirePermission()}, {@link #onCompleted(Duration)} and
+ * {@link #onFailure()}.
+ */
+@Component
+public class UpstreamCircuitBreaker {
+    private static final Logger logger = LoggerFactory.getLogger(UpstreamCircuitBreaker.class);
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final Duration slowCallThreshold;
+    private final Duration openDuration;
+    private final Clock clock;
+
+    // guarded by this
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private Instant openedAt;
+    private long failures;
+    private long slowCalls;
+    private long rejections;
+    private long opens;
+
+    @Autowired
+    public UpstreamCircuitBreaker(CountryInfoProperties properties) {
+        this(properties.getBreaker().getFailureThreshold(), properties.getBreaker().getSlowCallThreshold(),
+                properties.getBreaker().getOpenDuration(), Clock.systemUTC());
+    }
+
+    UpstreamCircuitBreaker(int failureThreshold, Duration slowCallThreshold, Duration openDuration, Clock clock) {
+        this.failureThreshold = failureThreshold;
+        this.slowCallThreshold = slowCallThreshold;
+        this.openDuration = openDuration;
+        this.clock = clock;
+    }
+
+    /**
+     * Runs the given upstream call if the breaker permits it and records its outcome.
+     *
+     * @param call The upstream call.
+     * @return The result of the call.
+     * @throws UpstreamUnavailableException if the breaker is open
+     */
+    public <T> T execute(Supplier<T> call) {
+        acquirePermission();
+        long start = System.nanoTime();
+        try {
+            T result = call.get();
+            onCompleted(Duration.ofNanos(System.nanoTime() - start));
+            return result;
+        } catch (HttpClientErrorException e) {
+            onCompleted(Duration.ofNanos(System.nanoTime() - start));
+            throw e;
+        } catch (RuntimeException | Error e) {
+            onFailure();
+            throw e;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * @return A point-in-time copy of the breaker state and counters.
+     */
+    public synchronized Stats getStats() {
+        return new Stats(state, consecutiveFailures, failures, slowCalls, rejections, opens);
+    }
+
+    /**
+     * Called before an upstream call.
+     *
+     * @throws UpstreamUnavailableException if the breaker is open
+     */
+    synchronized void acquirePermission() {
+        if (state == State.CLOSED) {
+            return;
+        }
+        if (state == State.OPEN && !clock.instant().isBefore(openedAt.plus(openDuration))) {
+            state = State.HALF_OPEN; // this caller makes the trial call
+            return;
+        }
+        rejections++;
+        throw new UpstreamUnavailableException("Upstream circuit breaker is " + state);
+    }
+
+    /**
+     * Called when a permitted call returned a response, including a 4xx one.
+     */
+    synchronized void onCompleted(Duration duration) {
+        if (duration.compareTo(slowCallThreshold) > 0) {
+            slowCalls++;
+            recordFailure();
+            return;
+        }
+        consecutiveFailures = 0;
+        if (state != State.CLOSED) {
+            logger.info("Upstream circuit breaker closed");
+            state = State.CLOSED;
+        }
+    }
+
+    /**
+     * Called when a permitted call failed, or was cancelled, without a response.
+     */
+    synchronized void onFailure() {
+        failures++;
+        recordFailure();
+    }
+
+    private void recordFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            logger.warn("Upstream circuit breaker opened after {} consecutive failures", consecutiveFailures);
+            state = State.OPEN;
+            openedAt = clock.instant();
+            opens++;
+        }
+    }
+
+    /**
+     * Counters of the breaker. Failures are calls that threw, slow calls are calls that exceeded the slow call
+     * threshold, rejections are calls that were not made because the breaker was open.
+     */
+    public record Stats(State state, int consecutiveFailures, long failures, long slowCalls, long rejections,
+                        long opens) {
+    }
+}
@@ -0,0 +1,13 @@
+package ie.tcd.scss.countryinfo.service;
+
+import org.springframework.web.client.RestClientException;
+
+/**
+ * Thrown instead of calling the upstream while the {@link UpstreamCircuitBreaker} is open.
+ */
+public class UpstreamUnavailableException extends RestClientException {
+
+    public UpstreamUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,32 @@
+package ie.tcd.scss.countryinfo.service;
+
+import org.springframework.http.HttpHeaders;
+
+/**
+ * What is known about the version of the {@code /all} payload a snapshot was built from: the upstream's validators
+ * for conditional requests, if it sent any, and the SHA-256 of the body. A refresh sends the validators so the
+ * upstream can answer 304 NOT MODIFIED, and compares the hash to detect an unchanged body the upstream sent anyway.
+ *
+ * @param etag         The ETag response header, or null.
+ * @param lastModified The Last-Modified response header, or null.
+ * @param contentHash  Hex SHA-256 of the response body, or null.
+ */
+public record UpstreamValidators(String etag, String lastModified, String contentHash) {
+
+    /**
+     * Nothing known, requests are unconditional.
+     */
+    public static final UpstreamValidators NONE = new UpstreamValidators(null, null, null);
+
+    /**
+     * Adds If-None-Match and If-Modified-Since for the known validators.
+     */
+    public void applyTo(HttpHeaders headers) {
+        if (etag != null) {
+            headers.set(HttpHeaders.IF_NONE_MATCH, etag);
+        }
+        if (lastModified != null) {
+            headers.set(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+        }
+    }
+}
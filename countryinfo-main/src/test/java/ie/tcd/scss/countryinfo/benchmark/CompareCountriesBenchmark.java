@@ -0,0 +1,92 @@
+package ie.tcd.scss.countryinfo.benchmark;
+
+import ie.tcd.scss.countryinfo.config.CountryInfoProperties;
+import ie.tcd.scss.countryinfo.service.CountryLookupCache;
+import ie.tcd.scss.countryinfo.service.CountryService;
+import ie.tcd.scss.countryinfo.service.CountrySnapshotFile;
+import ie.tcd.scss.countryinfo.service.CountrySnapshotStore;
+import ie.tcd.scss.countryinfo.service.RestCountriesClient;
+import ie.tcd.scss.countryinfo.service.StalenessTracker;
+import ie.tcd.scss.countryinfo.support.LatencyStats;
+import ie.tcd.scss.countryinfo.support.StubUpstream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Latency of CountryService.compareCountries against a stub upstream with injected latency, compared to the previous
+ * implementation that made eight sequential lookups. Opt-in, run with
+ * {@code mvn test -Dbenchmark=true -Dtest=CompareCountriesBenchmark}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class CompareCountriesBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(CompareCountriesBenchmark.class);
+
+    private static final Duration UPSTREAM_LATENCY = Duration.ofMillis(50);
+
+    private StubUpstream upstream;
+    private RestCountriesClient client;
+    private CountryLookupCache lookupCache;
+    private CountryService countryService;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        upstream = StubUpstream.start();
+        upstream.setLatency(UPSTREAM_LATENCY);
+        CountryInfoProperties properties = new CountryInfoProperties();
+        properties.getApi().setBaseUrl(upstream.baseUrl());
+        properties.getSnapshot().setResolveNames(false); // measure the lookups at the upstream
+        client = new RestCountriesClient(new RestTemplate(), properties);
+        StalenessTracker staleness = new StalenessTracker();
+        executor = Executors.newFixedThreadPool(4);
+        lookupCache = new CountryLookupCache(properties, staleness, executor);
+        CountrySnapshotStore snapshotStore = new CountrySnapshotStore(client, new CountrySnapshotFile(properties),
+                staleness, properties);
+        countryService = new CountryService(client, snapshotStore, lookupCache, executor, staleness,
+                properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        upstream.close();
+    }
+
+    @Test
+    public void compareCountries_shouldTakeAboutOneUpstreamRoundTrip() {
+        // a single upstream round trip, including the stub's injected latency
+        LatencyStats roundTrip = LatencyStats.measure(2, 10, () -> client.fetchByName("Germany"));
+
+        // previous implementation: one uncached lookup per attribute and country
+        LatencyStats sequential = LatencyStats.measure(2, 10, () -> {
+            for (int i = 0; i < 4; i++) {
+                client.fetchByName("Germany");
+                client.fetchByName("France");
+            }
+        });
+
+        // current implementation, with a cold cache in every iteration
+        LatencyStats parallel = LatencyStats.measure(2, 20, () -> {
+            lookupCache.clear();
+            countryService.compareCountries("Germany", "France");
+        });
+
+        logger.info("single upstream round trip: {}", roundTrip);
+        logger.info("compareCountries, 8 sequential lookups: {}", sequential);
+        logger.info("compareCountries, memoized parallel lookups: {}", parallel);
+
+        assertThat(parallel.percentileMillis(50)).isLessThan(1.5 * roundTrip.percentileMillis(50));
+        assertThat(parallel.percentileMillis(50)).isLessThan(sequential.percentileMillis(50) / 4);
+    }
+}
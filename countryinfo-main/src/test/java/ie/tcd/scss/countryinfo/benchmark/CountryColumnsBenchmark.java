@@ -0,0 +1,137 @@
+package ie.tcd.scss.countryinfo.benchmark;
+
+import ie.tcd.scss.countryinfo.service.CountryColumns;
+import ie.tcd.scss.countryinfo.service.CountryNameIndex;
+import ie.tcd.scss.countryinfo.service.CountryRecord;
+import ie.tcd.scss.countryinfo.service.CountryStreamReader;
+import ie.tcd.scss.countryinfo.support.Allocations;
+import ie.tcd.scss.countryinfo.support.LatencyStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Time and allocated bytes of the snapshot queries behind the region, ranking and statistics endpoints (countries of a
+ * region by population, names containing a substring by population, region totals) over about 250 countries: the
+ * previous streams over the CountryRecords versus CountryColumns and the CountryNameIndex. Opt-in, run with
+ * {@code mvn test -Dbenchmark=true -Dtest=CountryColumnsBenchmark}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class CountryColumnsBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(CountryColumnsBenchmark.class);
+
+    private List<CountryRecord> countries;
+    private CountryColumns columns;
+    private CountryNameIndex nameIndex;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // the fixture has 10 countries, repeat it to get the size of the real dataset
+        try (InputStream in = getClass().getResourceAsStream("/stub/countries.json")) {
+            List<CountryRecord> fixture = new CountryStreamReader().read(in);
+            countries = new ArrayList<>();
+            for (int i = 0; i < 25; i++) {
+                countries.addAll(fixture);
+            }
+        }
+        columns = new CountryColumns(countries);
+        nameIndex = new CountryNameIndex(countries, columns);
+    }
+
+    @Test
+    public void columnScans_shouldBeFasterThanStreams() {
+        Runnable streams = () -> {
+            regionByPopulationStream("Europe");
+            mostPopulousStream("stan");
+            regionTotalsStream("Asia");
+        };
+        Runnable scans = () -> {
+            regionByPopulationColumns("Europe");
+            mostPopulousColumns("stan");
+            regionTotalsColumns("Asia");
+        };
+
+        LatencyStats streamTime = LatencyStats.measure(20_000, 20_000, streams);
+        LatencyStats scanTime = LatencyStats.measure(20_000, 20_000, scans);
+        long streamBytes = Allocations.bytesPerRun(1_000, streams);
+        long scanBytes = Allocations.bytesPerRun(1_000, scans);
+
+        logger.info("{} countries", countries.size());
+        logger.info("streams over records: {}, {} bytes allocated per run", streamTime, streamBytes);
+        logger.info("scans over columns:   {}, {} bytes allocated per run", scanTime, scanBytes);
+
+        assertThat(regionByPopulationColumns("Europe")).isEqualTo(regionByPopulationStream("Europe"));
+        assertThat(mostPopulousColumns("stan")).isEqualTo(mostPopulousStream("stan"));
+        assertThat(regionTotalsColumns("Asia")).isEqualTo(regionTotalsStream("Asia"));
+        assertThat(scanTime.meanMillis()).isLessThan(streamTime.meanMillis());
+    }
+
+    // previous implementation of CountryService.getCountriesByRegion with sortBy=population
+    private List<CountryRecord> regionByPopulationStream(String region) {
+        return countries.stream()
+                .filter(country -> region.equalsIgnoreCase(country.region()))
+                .sorted((c1, c2) -> Long.compare(c2.population(), c1.population()))
+                .collect(Collectors.toList());
+    }
+
+    private List<CountryRecord> regionByPopulationColumns(String region) {
+        int[] ordinals = columns.inRegionByPopulation(columns.regionId(region));
+        List<CountryRecord> result = new ArrayList<>(ordinals.length);
+        for (int ordinal : ordinals) {
+            result.add(countries.get(ordinal));
+        }
+        return result;
+    }
+
+    // previous implementation of CountryService.getNamesMostPopulousCountries
+    private List<String> mostPopulousStream(String substring) {
+        return countries.stream()
+                .filter(country -> country.commonName().toLowerCase().contains(substring.toLowerCase()))
+                .sorted((c1, c2) -> Long.compare(c2.population(), c1.population()))
+                .map(CountryRecord::commonName)
+                .collect(Collectors.toList());
+    }
+
+    private List<String> mostPopulousColumns(String substring) {
+        int[] ordinals = nameIndex.search(substring);
+        List<String> names = new ArrayList<>(ordinals.length);
+        for (int ordinal : ordinals) {
+            names.add(countries.get(ordinal).commonName());
+        }
+        return names;
+    }
+
+    // totals of the previous CountryService.calculateRegionStatistics
+    private List<Double> regionTotalsStream(String region) {
+        List<CountryRecord> inRegion = countries.stream()
+                .filter(country -> region.equalsIgnoreCase(country.region()))
+                .collect(Collectors.toList());
+        double totalPopulation = 0.0;
+        double totalArea = 0.0;
+        for (CountryRecord country : inRegion) {
+            totalPopulation += country.population();
+            totalArea += country.area();
+        }
+        return List.of(totalPopulation, totalArea);
+    }
+
+    private List<Double> regionTotalsColumns(String region) {
+        double totalPopulation = 0.0;
+        double totalArea = 0.0;
+        for (int ordinal : columns.inRegion(columns.regionId(region))) {
+            totalPopulation += columns.population(ordinal);
+            totalArea += columns.area(ordinal);
+        }
+        return List.of(totalPopulation, totalArea);
+    }
+}
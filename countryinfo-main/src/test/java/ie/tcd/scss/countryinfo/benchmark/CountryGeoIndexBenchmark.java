@@ -0,0 +1,116 @@
+package ie.tcd.scss.countryinfo.benchmark;
+
+import ie.tcd.scss.countryinfo.service.CountryGeoIndex;
+import ie.tcd.scss.countryinfo.service.CountryRecord;
+import ie.tcd.scss.countryinfo.service.CountryStreamReader;
+import ie.tcd.scss.countryinfo.service.TopK;
+import ie.tcd.scss.countryinfo.support.LatencyStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Latency of k-nearest-neighbour queries over about 250 countries while {@value #THREADS} threads query at the same
+ * time: a scan computing the great-circle distance to every country and keeping the k nearest with {@link TopK}, versus
+ * the k-d tree of CountryGeoIndex. Opt-in,
+ * run with {@code mvn test -Dbenchmark=true -Dtest=CountryGeoIndexBenchmark}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class CountryGeoIndexBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(CountryGeoIndexBenchmark.class);
+
+    private static final int THREADS = 2 * Runtime.getRuntime().availableProcessors();
+    private static final int QUERIES_PER_THREAD = 20_000;
+    private static final int K = 5;
+
+    private double[] latitudes;
+    private double[] longitudes;
+    private double[][] queries;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // the fixture has 10 countries, repeat it scattered by a few degrees to get the size of the real dataset
+        List<CountryRecord> fixture;
+        try (InputStream in = getClass().getResourceAsStream("/stub/countries.json")) {
+            fixture = new CountryStreamReader().read(in);
+        }
+        Random random = new Random(42);
+        latitudes = new double[fixture.size() * 25];
+        longitudes = new double[latitudes.length];
+        for (int i = 0; i < latitudes.length; i++) {
+            CountryRecord country = fixture.get(i % fixture.size());
+            latitudes[i] = Math.max(-90, Math.min(90, country.latitude() + random.nextGaussian() * 5));
+            longitudes[i] = country.longitude() + random.nextGaussian() * 5;
+        }
+        queries = new double[1024][];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = new double[]{random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180};
+        }
+    }
+
+    @Test
+    public void nearest_shouldStaySubMillisecondUnderConcurrentLoad() throws Exception {
+        CountryGeoIndex index = new CountryGeoIndex(latitudes, longitudes);
+
+        LatencyStats scan = underLoad(query -> scan(queries[query][0], queries[query][1]));
+        LatencyStats indexed = underLoad(query -> index.nearest(queries[query][0], queries[query][1], K));
+
+        logger.info("{} countries, k={}, {} threads", latitudes.length, K, THREADS);
+        logger.info("scan over all countries: {}", scan);
+        logger.info("k-d tree:                {}", indexed);
+
+        assertThat(indexed.percentileMillis(99)).isLessThan(1.0);
+        assertThat(indexed.meanMillis()).isLessThan(scan.meanMillis());
+    }
+
+    private LatencyStats underLoad(IntConsumer query) throws Exception {
+        // warm up on this thread, so the measured runs are compiled
+        for (int i = 0; i < QUERIES_PER_THREAD; i++) {
+            query.accept(i % queries.length);
+        }
+        long[] nanos = new long[THREADS * QUERIES_PER_THREAD];
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> threads = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                threads.add(executor.submit(() -> {
+                    for (int i = 0; i < QUERIES_PER_THREAD; i++) {
+                        long start = System.nanoTime();
+                        query.accept((thread * 31 + i) % queries.length);
+                        nanos[thread * QUERIES_PER_THREAD + i] = System.nanoTime() - start;
+                    }
+                }));
+            }
+            for (Future<?> thread : threads) {
+                thread.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        return LatencyStats.of(nanos);
+    }
+
+    // what a nearest-country query takes without an index: every distance, then the k smallest with a bounded heap
+    private int[] scan(double latitude, double longitude) {
+        double[] negatedDistances = new double[latitudes.length];
+        for (int i = 0; i < latitudes.length; i++) {
+            negatedDistances[i] = -CountryGeoIndex.distanceKm(latitudes[i], longitudes[i], latitude, longitude);
+        }
+        return TopK.largest(negatedDistances, K);
+    }
+}
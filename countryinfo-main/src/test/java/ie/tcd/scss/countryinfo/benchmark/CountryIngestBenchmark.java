@@ -0,0 +1,85 @@
+package ie.tcd.scss.countryinfo.benchmark;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import ie.tcd.scss.countryinfo.domain.Country;
+import ie.tcd.scss.countryinfo.service.CountryRecord;
+import ie.tcd.scss.countryinfo.service.CountryStreamReader;
+import ie.tcd.scss.countryinfo.support.Allocations;
+import ie.tcd.scss.countryinfo.support.LatencyStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Time and allocated bytes of ingesting a full {@code /all} payload (about 250 countries): binding into Country[] with
+ * the ObjectMapper, as before, versus streaming into CountryRecords with CountryStreamReader. Opt-in, run with
+ * {@code mvn test -Dbenchmark=true -Dtest=CountryIngestBenchmark}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class CountryIngestBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(CountryIngestBenchmark.class);
+
+    private final ObjectMapper mapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final CountryStreamReader streamReader = new CountryStreamReader();
+    private byte[] payload;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // the fixture has 10 countries, repeat it to get the size of the real dataset
+        try (InputStream in = getClass().getResourceAsStream("/stub/countries.json")) {
+            ArrayNode fixture = (ArrayNode) mapper.readTree(in);
+            ArrayNode all = mapper.createArrayNode();
+            for (int i = 0; i < 25; i++) {
+                all.addAll(fixture);
+            }
+            payload = mapper.writeValueAsBytes(all);
+        }
+    }
+
+    @Test
+    public void streamingIngest_shouldAllocateLessThanBinding() {
+        Runnable binding = () -> bindCountries();
+        Runnable streaming = () -> streamRecords();
+
+        LatencyStats bindingTime = LatencyStats.measure(200, 500, binding);
+        LatencyStats streamingTime = LatencyStats.measure(200, 500, streaming);
+        long bindingBytes = Allocations.bytesPerRun(100, binding);
+        long streamingBytes = Allocations.bytesPerRun(100, streaming);
+
+        logger.info("payload: {} bytes, {} countries", payload.length, streamRecords().size());
+        logger.info("Country[] binding:   {}, {} bytes allocated per run", bindingTime, bindingBytes);
+        logger.info("CountryStreamReader: {}, {} bytes allocated per run", streamingTime, streamingBytes);
+
+        assertThat(streamRecords()).hasSize(bindCountries().length);
+        assertThat(streamingBytes).isLessThan(bindingBytes);
+    }
+
+    private Country[] bindCountries() {
+        try {
+            return mapper.readValue(payload, Country[].class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private List<CountryRecord> streamRecords() {
+        try {
+            return streamReader.read(new ByteArrayInputStream(payload));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
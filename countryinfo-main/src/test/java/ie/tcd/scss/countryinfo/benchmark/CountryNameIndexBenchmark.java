@@ -0,0 +1,113 @@
+package ie.tcd.scss.countryinfo.benchmark;
+
+import ie.tcd.scss.countryinfo.service.CountryColumns;
+import ie.tcd.scss.countryinfo.service.CountryNameIndex;
+import ie.tcd.scss.countryinfo.service.CountryRecord;
+import ie.tcd.scss.countryinfo.service.CountryStreamReader;
+import ie.tcd.scss.countryinfo.support.Allocations;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Searches per second and allocated bytes per search of the substring lookup behind
+ * {@code /countries/{substring}/mostPopulous} over about 250 countries, on all cores: the previous lower-casing filter
+ * and sort versus the CountryNameIndex. Opt-in, run with
+ * {@code mvn test -Dbenchmark=true -Dtest=CountryNameIndexBenchmark}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class CountryNameIndexBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(CountryNameIndexBenchmark.class);
+
+    private static final String[] SUBSTRINGS = {"stan", "an", "Uni", "GERMANY", "ia", "land", "x"};
+    private static final long RUN_MILLIS = 2_000;
+
+    private List<CountryRecord> countries;
+    private CountryNameIndex index;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // the fixture has 10 countries, repeat it to get the size of the real dataset
+        try (InputStream in = getClass().getResourceAsStream("/stub/countries.json")) {
+            List<CountryRecord> fixture = new CountryStreamReader().read(in);
+            countries = new ArrayList<>();
+            for (int i = 0; i < 25; i++) {
+                countries.addAll(fixture);
+            }
+        }
+        index = new CountryNameIndex(countries, new CountryColumns(countries));
+    }
+
+    @Test
+    public void index_shouldAnswerMoreSearchesPerSecond() throws Exception {
+        Function<String, Object> scan = this::linearScan;
+        Function<String, Object> indexed = index::search;
+
+        throughput(scan); // warm-up
+        throughput(indexed);
+        long scanQps = throughput(scan);
+        long indexQps = throughput(indexed);
+        long scanBytes = Allocations.bytesPerRun(10_000, () -> searchAll(scan));
+        long indexBytes = Allocations.bytesPerRun(10_000, () -> searchAll(indexed));
+
+        logger.info("{} countries, {} threads", countries.size(), Runtime.getRuntime().availableProcessors());
+        logger.info("filter and sort: {} searches/s, {} bytes allocated per search", scanQps, scanBytes / SUBSTRINGS.length);
+        logger.info("name index:      {} searches/s, {} bytes allocated per search", indexQps, indexBytes / SUBSTRINGS.length);
+
+        assertThat(indexQps).isGreaterThan(scanQps);
+        assertThat(indexBytes).isLessThan(scanBytes);
+    }
+
+    // searches per second with one searching thread per core
+    private long throughput(Function<String, Object> search) throws Exception {
+        int threads = Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        LongAdder searches = new LongAdder();
+        long deadline = System.nanoTime() + RUN_MILLIS * 1_000_000;
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                workers.add(executor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        searchAll(search);
+                        searches.add(SUBSTRINGS.length);
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        return searches.sum() * 1000 / RUN_MILLIS;
+    }
+
+    private static void searchAll(Function<String, Object> search) {
+        for (String substring : SUBSTRINGS) {
+            search.apply(substring);
+        }
+    }
+
+    // previous implementation of CountryService.getNamesMostPopulousCountries, without the mapping to names
+    private List<CountryRecord> linearScan(String substring) {
+        return countries.stream()
+                .filter(country -> country.commonName().toLowerCase().contains(substring.toLowerCase()))
+                .sorted((c1, c2) -> Long.compare(c2.population(), c1.population()))
+                .toList();
+    }
+}
@@ -0,0 +1,80 @@
+package ie.tcd.scss.countryinfo.benchmark;
+
+import ie.tcd.scss.countryinfo.domain.Country;
+import ie.tcd.scss.countryinfo.domain.Translation;
+import ie.tcd.scss.countryinfo.service.CountryStreamReader;
+import ie.tcd.scss.countryinfo.service.CountryTranslationIndex;
+import ie.tcd.scss.countryinfo.support.LatencyStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Time to resolve a name typed in any language over about 250 countries: a scan over the translations of every
+ * country versus the CountryTranslationIndex. Opt-in, run with
+ * {@code mvn test -Dbenchmark=true -Dtest=CountryTranslationIndexBenchmark}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class CountryTranslationIndexBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(CountryTranslationIndexBenchmark.class);
+
+    private static final String[] NAMES = {"Allemagne", "ÖSTERREICH", "イギリス", "Ouzbekistan", "Atlantis"};
+
+    private List<Country> countries;
+    private CountryTranslationIndex index;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // the fixture has 10 countries, repeat it to get the size of the real dataset
+        try (InputStream in = getClass().getResourceAsStream("/stub/countries.json")) {
+            List<Country> fixture = new CountryStreamReader().readWithDetails(in).details();
+            countries = new ArrayList<>();
+            for (int i = 0; i < 25; i++) {
+                countries.addAll(fixture);
+            }
+        }
+        index = new CountryTranslationIndex(countries);
+    }
+
+    @Test
+    public void index_shouldResolveNamesInMicroseconds() {
+        LatencyStats scan = LatencyStats.measure(20_000, 20_000, () -> {
+            for (String name : NAMES) {
+                scan(name);
+            }
+        });
+        LatencyStats indexed = LatencyStats.measure(20_000, 20_000, () -> {
+            for (String name : NAMES) {
+                index.find(name);
+            }
+        });
+
+        logger.info("{} countries, {} names per run", countries.size(), NAMES.length);
+        logger.info("scan over translations: {}", scan);
+        logger.info("translation index:      {}", indexed);
+
+        assertThat(indexed.meanMillis() / NAMES.length).isLessThan(0.01);
+        assertThat(indexed.meanMillis()).isLessThan(scan.meanMillis());
+    }
+
+    // what resolving a translated name without an index takes, with only case folded
+    private Country scan(String name) {
+        for (Country country : countries) {
+            for (Translation translation : country.getTranslations().values()) {
+                if (name.equalsIgnoreCase(translation.getCommon()) || name.equalsIgnoreCase(translation.getOfficial())) {
+                    return country;
+                }
+            }
+        }
+        return null;
+    }
+}
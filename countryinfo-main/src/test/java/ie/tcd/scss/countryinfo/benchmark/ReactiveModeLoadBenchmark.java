@@ -0,0 +1,100 @@
+package ie.tcd.scss.countryinfo.benchmark;
+
+import ie.tcd.scss.countryinfo.CountryinfoApplication;
+import ie.tcd.scss.countryinfo.support.StubUpstream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Concurrency each {@code countryinfo.mode} sustains with few servlet threads against a slow upstream: sends
+ * {@value #REQUESTS} concurrent lookups of distinct names, so none is answered from the cache, to the application
+ * running with {@value #SERVLET_THREADS} Tomcat threads, with the stub upstream answering after 500 ms. In blocking
+ * mode each lookup holds a servlet thread while it waits, in reactive mode it does not. Opt-in, run with
+ * {@code mvn test -Dbenchmark=true -Dtest=ReactiveModeLoadBenchmark}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class ReactiveModeLoadBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveModeLoadBenchmark.class);
+
+    private static final int SERVLET_THREADS = 10;
+    private static final int REQUESTS = 200;
+    private static final Duration UPSTREAM_LATENCY = Duration.ofMillis(500);
+
+    private StubUpstream upstream;
+
+    @BeforeEach
+    void setUp() {
+        upstream = StubUpstream.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        upstream.close();
+    }
+
+    @Test
+    public void reactiveMode_shouldSustainMoreConcurrentLookups() {
+        long blocking = run("blocking");
+        long reactive = run("reactive");
+
+        logger.info("{} concurrent lookups, {} servlet threads, {} ms upstream latency",
+                REQUESTS, SERVLET_THREADS, UPSTREAM_LATENCY.toMillis());
+        logger.info("blocking: {} ms, {} lookups/s", blocking, REQUESTS * 1000 / blocking);
+        logger.info("reactive: {} ms, {} lookups/s", reactive, REQUESTS * 1000 / reactive);
+        assertThat(reactive).isLessThan(blocking);
+    }
+
+    private long run(String mode) {
+        upstream.setLatency(Duration.ZERO); // for the initial snapshot
+        // command line arguments, as they take precedence over application.properties
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(CountryinfoApplication.class)
+                .run("--server.port=0",
+                        "--server.tomcat.threads.max=" + SERVLET_THREADS,
+                        "--server.tomcat.threads.min-spare=" + SERVLET_THREADS,
+                        "--countryinfo.mode=" + mode,
+                        "--countryinfo.api.base-url=" + upstream.baseUrl(),
+                        "--countryinfo.snapshot.file=",
+                        "--countryinfo.snapshot.resolve-names=false",
+                        "--countryinfo.http.max-connections=" + REQUESTS,
+                        "--countryinfo.http.max-connections-per-route=" + REQUESTS,
+                        "--countryinfo.http.pool-timeout=PT30S",
+                        "--countryinfo.breaker.slow-call-threshold=PT10S")) {
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            send(client, baseUrl + "/countries/Warmup-" + mode + "/flag").join();
+
+            upstream.setLatency(UPSTREAM_LATENCY);
+            long start = System.nanoTime();
+            List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+            for (int i = 0; i < REQUESTS; i++) {
+                responses.add(send(client, baseUrl + "/countries/Unknown-" + mode + "-" + i + "/flag"));
+            }
+            for (CompletableFuture<HttpResponse<String>> response : responses) {
+                assertThat(response.join().statusCode()).isEqualTo(404);
+            }
+            return (System.nanoTime() - start) / 1_000_000;
+        }
+    }
+
+    private static CompletableFuture<HttpResponse<String>> send(HttpClient client, String url) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(60)).build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
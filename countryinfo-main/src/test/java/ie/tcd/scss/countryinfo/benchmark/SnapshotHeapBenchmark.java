@@ -0,0 +1,96 @@
+package ie.tcd.scss.countryinfo.benchmark;
+
+import ie.tcd.scss.countryinfo.service.CountryDictionary;
+import ie.tcd.scss.countryinfo.service.CountrySnapshot;
+import ie.tcd.scss.countryinfo.service.CountryStreamReader;
+import ie.tcd.scss.countryinfo.service.UpstreamValidators;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Retained heap of the countries held by a snapshot, as parsed versus compacted by CountryDictionary. The fixture is
+ * parsed {@value #COPIES} times into separate datasets, each compacted with its own dictionary like a snapshot, so
+ * values are only shared within the 10 countries of one copy; with the real ~250 countries in one snapshot, more of
+ * them repeat. Retained bytes are the difference in used heap after a full GC. Opt-in, run with
+ * {@code mvn test -Dbenchmark=true -Dtest=SnapshotHeapBenchmark}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class SnapshotHeapBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotHeapBenchmark.class);
+
+    private static final int COPIES = 25;
+
+    @Test
+    public void compactedCountries_shouldRetainLessHeap() {
+        long parsed = retainedBytes(() -> datasets(false));
+        long compacted = retainedBytes(() -> datasets(true));
+        long snapshots = retainedBytes(() -> {
+            List<CountrySnapshot> all = new ArrayList<>();
+            for (CountryStreamReader.Dataset dataset : datasets(false)) {
+                all.add(new CountrySnapshot(1, Instant.now(), dataset.countries(), dataset.details(),
+                        UpstreamValidators.NONE));
+            }
+            return all;
+        });
+
+        int countries = COPIES * 10;
+        logger.info("{} countries with all attributes", countries);
+        logger.info("as parsed:         {} KB, {} bytes per country", parsed / 1024, parsed / countries);
+        logger.info("compacted:         {} KB, {} bytes per country", compacted / 1024, compacted / countries);
+        logger.info("snapshots (+index): {} KB, {} bytes per country", snapshots / 1024, snapshots / countries);
+
+        assertThat(compacted).isLessThan(parsed);
+    }
+
+    private List<CountryStreamReader.Dataset> datasets(boolean compact) {
+        List<CountryStreamReader.Dataset> datasets = new ArrayList<>(COPIES);
+        for (int i = 0; i < COPIES; i++) {
+            try (InputStream in = getClass().getResourceAsStream("/stub/countries.json")) {
+                CountryStreamReader.Dataset dataset = new CountryStreamReader().readWithDetails(in);
+                if (compact) {
+                    CountryDictionary dictionary = new CountryDictionary();
+                    dataset = new CountryStreamReader.Dataset(dictionary.compactRecords(dataset.countries()),
+                            dictionary.compactDetails(dataset.details()));
+                }
+                datasets.add(dataset);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return datasets;
+    }
+
+    private static long retainedBytes(Supplier<Object> build) {
+        long before = usedAfterGc();
+        Object retained = build.get();
+        long after = usedAfterGc();
+        Reference.reachabilityFence(retained);
+        return after - before;
+    }
+
+    private static long usedAfterGc() {
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
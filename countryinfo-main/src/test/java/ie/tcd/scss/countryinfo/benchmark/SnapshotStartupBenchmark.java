@@ -0,0 +1,130 @@
+package ie.tcd.scss.countryinfo.benchmark;
+
+import ie.tcd.scss.countryinfo.CountryinfoApplication;
+import ie.tcd.scss.countryinfo.domain.Country;
+import ie.tcd.scss.countryinfo.service.CountryRecord;
+import ie.tcd.scss.countryinfo.service.CountrySnapshot;
+import ie.tcd.scss.countryinfo.service.CountrySnapshotFile;
+import ie.tcd.scss.countryinfo.service.CountryStreamReader;
+import ie.tcd.scss.countryinfo.service.UpstreamValidators;
+import ie.tcd.scss.countryinfo.support.StubUpstream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Time from starting the application to its first response from an endpoint that needs all countries, with and
+ * without a persisted snapshot file, against a stub upstream with 500 ms latency; and the time to restore a snapshot
+ * with the full countries from its file, for {@value #COPIES} copies of the fixture in one snapshot. Opt-in, run with
+ * {@code mvn test -Dbenchmark=true -Dtest=SnapshotStartupBenchmark}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class SnapshotStartupBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotStartupBenchmark.class);
+
+    private static final int RUNS = 3;
+
+    private static final int COPIES = 25;
+    private static final int READS = 200;
+
+    @TempDir
+    Path directory;
+
+    private StubUpstream upstream;
+
+    @BeforeEach
+    void setUp() {
+        upstream = StubUpstream.start();
+        upstream.setLatency(Duration.ofMillis(500));
+    }
+
+    @AfterEach
+    void tearDown() {
+        upstream.close();
+    }
+
+    @Test
+    public void snapshotFile_shouldShortenTimeToFirstResponse() {
+        Path file = directory.resolve("countries.snapshot");
+
+        // the first run without a file also writes the file used by the runs with it
+        long withoutFile = 0;
+        for (int i = 0; i < RUNS; i++) {
+            withoutFile += timeToFirstResponse("");
+        }
+        assertThat(Files.exists(file)).isFalse();
+        timeToFirstResponse(file.toString());
+        assertThat(Files.exists(file)).isTrue();
+        long withFile = 0;
+        for (int i = 0; i < RUNS; i++) {
+            withFile += timeToFirstResponse(file.toString());
+        }
+
+        logger.info("time to first response without snapshot file: {} ms", withoutFile / RUNS);
+        logger.info("time to first response with snapshot file:    {} ms", withFile / RUNS);
+        assertThat(withFile).isLessThan(withoutFile);
+    }
+
+    @Test
+    public void restore_withFullCountries() throws IOException {
+        // the fixture 25 times, 250 countries like the upstream
+        List<CountryRecord> countries = new ArrayList<>();
+        List<Country> details = new ArrayList<>();
+        for (int i = 0; i < COPIES; i++) {
+            try (InputStream in = getClass().getResourceAsStream("/stub/countries.json")) {
+                CountryStreamReader.Dataset dataset = new CountryStreamReader().readWithDetails(in);
+                countries.addAll(dataset.countries());
+                details.addAll(dataset.details());
+            }
+        }
+        CountrySnapshotFile file = new CountrySnapshotFile(directory.resolve("countries.snapshot"));
+        file.write(new CountrySnapshot(1, Instant.now(), countries, details, UpstreamValidators.NONE));
+
+        // warm up, then the mean of the remaining reads
+        for (int i = 0; i < READS; i++) {
+            assertThat(file.read().hasDetails()).isTrue();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < READS; i++) {
+            assertThat(file.read().hasDetails()).isTrue();
+        }
+        long micros = (System.nanoTime() - start) / 1000 / READS;
+
+        logger.info("snapshot file with {} full countries: {} KB", details.size(), Files.size(file.getPath()) / 1024);
+        logger.info("restoring it: {} us", micros);
+    }
+
+    private long timeToFirstResponse(String snapshotFile) {
+        long start = System.nanoTime();
+        // command line arguments, as they take precedence over application.properties
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(CountryinfoApplication.class)
+                .run("--server.port=0",
+                        "--countryinfo.api.base-url=" + upstream.baseUrl(),
+                        "--countryinfo.snapshot.file=" + snapshotFile)) {
+            String port = context.getEnvironment().getProperty("local.server.port");
+            String body = new RestTemplate().getForObject(
+                    "http://localhost:" + port + "/countries/region/Europe/countries", String.class);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            assertThat(body).contains("Germany");
+            return millis;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package ie.tcd.scss.countryinfo.benchmark;
+
+import ie.tcd.scss.countryinfo.service.CountryColumns;
+import ie.tcd.scss.countryinfo.service.CountryRecord;
+import ie.tcd.scss.countryinfo.service.CountryStreamReader;
+import ie.tcd.scss.countryinfo.service.TopK;
+import ie.tcd.scss.countryinfo.support.Allocations;
+import ie.tcd.scss.countryinfo.support.LatencyStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Time and allocated bytes per call of the top-K selections: the 10 densest of about 250 countries, as behind
+ * {@code /countries/top}, and the 5 most common of about 150 languages, as in the region statistics. The previous sort
+ * of everything followed by a limit versus the bounded heap of CountryColumns. Opt-in, run with
+ * {@code mvn test -Dbenchmark=true -Dtest=TopKBenchmark}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class TopKBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(TopKBenchmark.class);
+
+    private List<CountryRecord> countries;
+    private CountryColumns columns;
+    private Map<String, Long> languageCounts;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // the fixture has 10 countries, repeat it to get the size of the real dataset
+        try (InputStream in = getClass().getResourceAsStream("/stub/countries.json")) {
+            List<CountryRecord> fixture = new CountryStreamReader().read(in);
+            countries = new ArrayList<>();
+            for (int i = 0; i < 25; i++) {
+                countries.addAll(fixture);
+            }
+        }
+        columns = new CountryColumns(countries);
+        Random random = new Random(1);
+        languageCounts = new HashMap<>();
+        for (int i = 0; i < 150; i++) {
+            languageCounts.put("language" + i, (long) 1 + random.nextInt(20));
+        }
+    }
+
+    @Test
+    public void heap_shouldAllocateLessThanSorting() {
+        Runnable sortDensity = () -> densestSorted(10);
+        Runnable heapDensity = () -> columns.topByDensity(10);
+        Runnable sortCounts = () -> topNSorted(languageCounts, 5);
+        Runnable heapCounts = () -> TopK.largest(languageCounts, 5);
+
+        LatencyStats sortDensityTime = LatencyStats.measure(50_000, 50_000, sortDensity);
+        LatencyStats heapDensityTime = LatencyStats.measure(50_000, 50_000, heapDensity);
+        LatencyStats sortCountsTime = LatencyStats.measure(50_000, 50_000, sortCounts);
+        LatencyStats heapCountsTime = LatencyStats.measure(50_000, 50_000, heapCounts);
+        long sortDensityBytes = Allocations.bytesPerRun(10_000, sortDensity);
+        long heapDensityBytes = Allocations.bytesPerRun(10_000, heapDensity);
+        long sortCountsBytes = Allocations.bytesPerRun(10_000, sortCounts);
+        long heapCountsBytes = Allocations.bytesPerRun(10_000, heapCounts);
+
+        logger.info("top 10 of {} countries by density", countries.size());
+        logger.info("  sort and limit: {}, {} bytes allocated per call", sortDensityTime, sortDensityBytes);
+        logger.info("  bounded heap:   {}, {} bytes allocated per call", heapDensityTime, heapDensityBytes);
+        logger.info("top 5 of {} language counts", languageCounts.size());
+        logger.info("  sort and limit: {}, {} bytes allocated per call", sortCountsTime, sortCountsBytes);
+        logger.info("  bounded heap:   {}, {} bytes allocated per call", heapCountsTime, heapCountsBytes);
+
+        assertThat(columns.topByDensity(10)).containsExactly(densestSorted(10));
+        assertThat(TopK.largest(languageCounts, 5)).containsExactlyEntriesOf(topNSorted(languageCounts, 5));
+        assertThat(heapDensityBytes).isLessThan(sortDensityBytes);
+        assertThat(heapCountsBytes).isLessThan(sortCountsBytes);
+    }
+
+    private int[] densestSorted(int k) {
+        return IntStream.range(0, columns.size()).boxed()
+                .sorted((a, b) -> Double.compare(columns.density(b), columns.density(a)))
+                .limit(k)
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    // previous implementation of CountryService.getTopN, without the logging
+    private static Map<String, Long> topNSorted(Map<String, Long> map, int n) {
+        return map.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(n)
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (e1, e2) -> e1, LinkedHashMap::new));
+    }
+}
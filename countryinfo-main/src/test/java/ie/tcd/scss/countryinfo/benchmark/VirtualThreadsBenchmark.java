@@ -0,0 +1,116 @@
+package ie.tcd.scss.countryinfo.benchmark;
+
+import ie.tcd.scss.countryinfo.CountryinfoApplication;
+import ie.tcd.scss.countryinfo.support.LatencyStats;
+import ie.tcd.scss.countryinfo.support.StubUpstream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.condition.JRE;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Throughput and p99 latency of platform and virtual threads under upstream latency: sends {@value #REQUESTS}
+ * concurrent comparisons of distinct names, so each needs two parallel upstream lookups, to the application with the
+ * stub upstream answering after 500 ms. With platform threads the requests queue for the {@value #SERVLET_THREADS}
+ * Tomcat threads and the fan-out pool, with virtual threads only the HTTP connection pool limits them. Opt-in and
+ * needs Java 21, run with {@code mvn -Pjava21 test -Dbenchmark=true -Dtest=VirtualThreadsBenchmark}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@EnabledForJreRange(min = JRE.JAVA_21)
+public class VirtualThreadsBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadsBenchmark.class);
+
+    private static final int SERVLET_THREADS = 50;
+    private static final int REQUESTS = 400;
+    private static final Duration UPSTREAM_LATENCY = Duration.ofMillis(500);
+
+    private StubUpstream upstream;
+
+    @BeforeEach
+    void setUp() {
+        upstream = StubUpstream.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        upstream.close();
+    }
+
+    @Test
+    public void virtualThreads_shouldSustainMoreConcurrentRequests() {
+        Result platform = run(false);
+        Result virtual = run(true);
+
+        logger.info("{} concurrent comparisons, {} servlet threads, {} ms upstream latency",
+                REQUESTS, SERVLET_THREADS, UPSTREAM_LATENCY.toMillis());
+        logger.info("platform threads: {}", platform);
+        logger.info("virtual threads:  {}", virtual);
+        assertThat(virtual.latencies().percentileMillis(99)).isLessThan(platform.latencies().percentileMillis(99));
+    }
+
+    private Result run(boolean virtualThreads) {
+        upstream.setLatency(Duration.ZERO); // for the initial snapshot
+        // command line arguments, as they take precedence over application.properties
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(CountryinfoApplication.class)
+                .run("--server.port=0",
+                        "--server.tomcat.threads.max=" + SERVLET_THREADS,
+                        "--countryinfo.threads.virtual=" + virtualThreads,
+                        "--countryinfo.api.base-url=" + upstream.baseUrl(),
+                        "--countryinfo.snapshot.file=",
+                        "--countryinfo.snapshot.resolve-names=false",
+                        "--countryinfo.http.max-connections=" + 2 * REQUESTS,
+                        "--countryinfo.http.max-connections-per-route=" + 2 * REQUESTS,
+                        "--countryinfo.http.pool-timeout=PT30S",
+                        "--countryinfo.breaker.slow-call-threshold=PT10S")) {
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            String run = virtualThreads ? "virtual" : "platform";
+            send(client, baseUrl + "/countries/Warmup-" + run + "/flag").join();
+
+            upstream.setLatency(UPSTREAM_LATENCY);
+            long[] nanos = new long[REQUESTS];
+            List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int i = 0; i < REQUESTS; i++) {
+                int request = i;
+                long sent = System.nanoTime();
+                responses.add(send(client, baseUrl + "/countries/compare/A-" + run + "-" + i + "/B-" + run + "-" + i)
+                        .whenComplete((response, e) -> nanos[request] = System.nanoTime() - sent));
+            }
+            for (CompletableFuture<HttpResponse<String>> response : responses) {
+                assertThat(response.join().statusCode()).isEqualTo(400); // both names are unknown
+            }
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            return new Result(millis, LatencyStats.of(nanos));
+        }
+    }
+
+    private static CompletableFuture<HttpResponse<String>> send(HttpClient client, String url) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(60)).build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private record Result(long millis, LatencyStats latencies) {
+        @Override
+        public String toString() {
+            return String.format("%d ms, %d requests/s, latency %s", millis, REQUESTS * 1000 / millis, latencies);
+        }
+    }
+}
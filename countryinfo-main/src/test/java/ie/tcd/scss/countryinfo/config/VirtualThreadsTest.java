@@ -0,0 +1,61 @@
+package ie.tcd.scss.countryinfo.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for VirtualThreads, verifies that the executor runs tasks on virtual threads on Java 21 and that enabling
+ * virtual threads on an older runtime fails instead of falling back to platform threads, and that Tomcat's executor is
+ * closed with the application.
+ */
+public class VirtualThreadsTest {
+
+    @Test
+    @EnabledForJreRange(max = JRE.JAVA_20)
+    public void beforeJava21_shouldRefuseToCreateTheExecutor() {
+        assertThat(VirtualThreads.isSupported()).isFalse();
+        assertThatThrownBy(VirtualThreads::newVirtualThreadPerTaskExecutor)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("countryinfo.threads.virtual");
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    public void fromJava21_shouldRunTasksOnVirtualThreads() throws Exception {
+        assertThat(VirtualThreads.isSupported()).isTrue();
+        ExecutorService executor = VirtualThreads.newVirtualThreadPerTaskExecutor();
+        try {
+            // Thread.isVirtual() does not exist on the Java 17 this is compiled for
+            Future<Object> virtual = executor.submit(() -> Thread.class.getMethod("isVirtual").invoke(Thread.currentThread()));
+            assertThat(virtual.get()).isEqualTo(true);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    public void tomcatExecutor_shouldBeClosedWithTheContext() {
+        AtomicReference<ExecutorService> executor = new AtomicReference<>();
+
+        new ApplicationContextRunner()
+                .withUserConfiguration(ExecutorConfig.class)
+                .withBean(CountryInfoProperties.class)
+                .withPropertyValues("countryinfo.threads.virtual=true")
+                .run(context -> {
+                    executor.set(context.getBean("tomcatExecutor", ExecutorService.class));
+                    assertThat(executor.get().isShutdown()).isFalse();
+                });
+
+        assertThat(executor.get().isShutdown()).isTrue();
+    }
+}
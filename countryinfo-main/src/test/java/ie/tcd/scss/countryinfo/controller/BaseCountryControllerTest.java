@@ -7,11 +7,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.TestPropertySource;
 
 /**
  * Base class for controller tests. Contains common setup and helper methods.
  */
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+// don't restore a snapshot persisted by an earlier run, tests start from the upstream they configure
+@TestPropertySource(properties = "countryinfo.snapshot.file=")
 public class BaseCountryControllerTest {
     @LocalServerPort
     protected int port;
@@ -0,0 +1,139 @@
+package ie.tcd.scss.countryinfo.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import ie.tcd.scss.countryinfo.service.CountryLookupCache;
+import ie.tcd.scss.countryinfo.service.CountrySnapshotStore;
+import ie.tcd.scss.countryinfo.service.CountryStreamReader;
+import ie.tcd.scss.countryinfo.support.StubUpstream;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the cache of lookups by country name, run against a local stub instead of the real upstream.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class CountryControllerCacheTest extends BaseCountryControllerTest {
+
+    static final StubUpstream upstream = StubUpstream.start();
+
+    @DynamicPropertySource
+    static void upstreamProperties(DynamicPropertyRegistry registry) {
+        registry.add("countryinfo.api.base-url", upstream::baseUrl);
+        // lookups by name go to the upstream, which is what these tests are about
+        registry.add("countryinfo.snapshot.resolve-names", () -> "false");
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        upstream.close();
+    }
+
+    @Autowired
+    private CountryLookupCache lookupCache;
+
+    @Autowired
+    private CountrySnapshotStore snapshotStore;
+
+    @BeforeEach
+    void clearCache() {
+        lookupCache.clear();
+        upstream.resetHits();
+    }
+
+    @Test
+    public void repeatedLookups_shouldReachUpstreamOnce() {
+        // When requesting different attributes of the same country several times
+        ResponseEntity<String> country = restTemplate.getForEntity("http://localhost:" + port + "/countries/France", String.class);
+        ResponseEntity<String> flag = restTemplate.getForEntity("http://localhost:" + port + "/countries/France/flag", String.class);
+        ResponseEntity<String> map = restTemplate.getForEntity("http://localhost:" + port + "/countries/france/map", String.class);
+
+        // Then all are answered, but only the first one reached the upstream
+        assertThat(country.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(flag.getBody()).isEqualTo("https://flagcdn.com/w320/fr.png");
+        assertThat(map.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(upstream.hits("/name/France")).isEqualTo(1);
+        assertThat(upstream.hits("/name/france")).isZero();
+    }
+
+    @Test
+    public void unknownCountry_shouldBeCachedAsNegativeEntry() {
+        // When looking up an unknown country twice
+        ResponseEntity<String> first = restTemplate.getForEntity("http://localhost:" + port + "/countries/Atlantis", String.class);
+        ResponseEntity<String> second = restTemplate.getForEntity("http://localhost:" + port + "/countries/Atlantis", String.class);
+
+        // Then both are not found, and the second one is answered from the cache
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(second.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(upstream.hits("/name/Atlantis")).isEqualTo(1);
+    }
+
+    @Test
+    public void cacheStatistics_shouldReportHitsAndMisses() {
+        // Given one miss and one hit
+        CountryLookupCache.Stats before = lookupCache.getStats();
+        restTemplate.getForEntity("http://localhost:" + port + "/countries/Germany", String.class);
+        restTemplate.getForEntity("http://localhost:" + port + "/countries/Germany/continents", String.class);
+
+        // When requesting the statistics
+        ResponseEntity<String> response = restTemplate.getForEntity("http://localhost:" + port + "/status/cache", String.class);
+
+        // Then the counters reflect the lookups
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Integer size = JsonPath.parse(response.getBody()).read("$.size");
+        Integer misses = JsonPath.parse(response.getBody()).read("$.misses");
+        Integer hits = JsonPath.parse(response.getBody()).read("$.hits");
+        assertThat(size).isEqualTo(1);
+        assertThat(misses).isEqualTo(before.misses() + 1);
+        assertThat(hits).isEqualTo(before.hits() + 1);
+    }
+
+    @Test
+    public void attributeLookups_shouldRequestOnlyTheNeededFields() {
+        // When requesting the flag, then the map, then the flag again of a country not cached yet
+        ResponseEntity<String> flag = restTemplate.getForEntity("http://localhost:" + port + "/countries/Austria/flag", String.class);
+        ResponseEntity<String> map = restTemplate.getForEntity("http://localhost:" + port + "/countries/Austria/map", String.class);
+        restTemplate.getForEntity("http://localhost:" + port + "/countries/Austria/flag", String.class);
+
+        // Then the upstream was asked for the flag only, then for both, and the repeated flag was served from the cache
+        assertThat(flag.getBody()).isEqualTo("https://flagcdn.com/w320/at.png");
+        assertThat(map.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(upstream.requestedFields("/name/Austria")).containsExactly("flags", "flags,maps");
+    }
+
+    @Test
+    public void fullLookup_shouldUpgradePartialEntry() {
+        // Given a country cached with its demographic fields only
+        restTemplate.getForEntity("http://localhost:" + port + "/countries/Ireland/demographics", String.class);
+
+        // When requesting the full country
+        ResponseEntity<String> country = restTemplate.getForEntity("http://localhost:" + port + "/countries/Ireland", String.class);
+
+        // Then the complete object is fetched, as the cached entry does not cover it
+        assertThat(country.getStatusCode()).isEqualTo(HttpStatus.OK);
+        String common = JsonPath.parse(country.getBody()).read("$.name.common");
+        assertThat(common).isEqualTo("Ireland");
+        assertThat(upstream.requestedFields("/name/Ireland")).containsExactly(
+                "area,currencies,languages,population,timezones", "*");
+    }
+
+    @Test
+    public void snapshot_shouldRequestOnlyTheIngestedFields() {
+        // When the snapshot is (re)loaded
+        snapshotStore.refresh();
+
+        // Then the full dataset was requested with the ingested fields only, in two parts the upstream accepts; the
+        // locations only if the countries are not unchanged
+        String countries = CountryStreamReader.COUNTRY_FIELDS.toQueryValue();
+        String locations = CountryStreamReader.LOCATION_FIELDS.toQueryValue();
+        assertThat(upstream.requestedFields("/all")).startsWith(countries).isSubsetOf(countries, locations);
+    }
+}
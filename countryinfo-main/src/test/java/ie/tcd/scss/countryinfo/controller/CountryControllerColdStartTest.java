@@ -0,0 +1,75 @@
+package ie.tcd.scss.countryinfo.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import ie.tcd.scss.countryinfo.service.CountryService;
+import ie.tcd.scss.countryinfo.service.CountrySnapshotStore;
+import ie.tcd.scss.countryinfo.support.StubUpstream;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the lookups by name while no snapshot could be loaded, run against a local stub whose {@code /all}
+ * endpoint fails from the start. Features that only add to a response from the snapshot must not need it. Runs with
+ * {@code countryinfo.mode=reactive}, where loading the snapshot during a request would also block the event loop; the
+ * blocking service is called directly.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class CountryControllerColdStartTest extends BaseCountryControllerTest {
+
+    static final StubUpstream upstream = StubUpstream.start();
+
+    static {
+        upstream.setFailureStatus("/all", 503);
+    }
+
+    @DynamicPropertySource
+    static void upstreamProperties(DynamicPropertyRegistry registry) {
+        registry.add("countryinfo.api.base-url", upstream::baseUrl);
+        registry.add("countryinfo.mode", () -> "reactive");
+        // lookups by name go to the upstream, so they work without the snapshot
+        registry.add("countryinfo.snapshot.resolve-names", () -> "false");
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        upstream.close();
+    }
+
+    @Autowired
+    private CountrySnapshotStore snapshotStore;
+
+    @Autowired
+    private CountryService countryService;
+
+    @Test
+    public void compare_withoutSnapshot_shouldLeaveOutTheDistances() {
+        // Given no snapshot, as the upstream fails to send all countries
+        assertThat(snapshotStore.installed()).isNull();
+        int hitsBefore = upstream.hits("/all");
+
+        // When comparing two countries found by name, reactively and blocking
+        ResponseEntity<String> response = restTemplate.getForEntity(
+                "http://localhost:" + port + "/countries/compare/Austria/Germany", String.class);
+        Map<String, Object> comparison = countryService.compareCountries("Ireland", "United Kingdom");
+
+        // Then they are compared without the distances, and without trying to load the snapshot
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(JsonPath.parse(response.getBody()).read("$.directlyBordering", Boolean.class)).isTrue();
+        assertThat(JsonPath.parse(response.getBody()).read("$.capitalDistanceKm", Double.class)).isNull();
+        assertThat(JsonPath.parse(response.getBody()).read("$.centroidDistanceKm", Double.class)).isNull();
+        assertThat(comparison).containsKey("populationRatio")
+                .containsEntry("capitalDistanceKm", null).containsEntry("centroidDistanceKm", null);
+        assertThat(upstream.hits("/all")).isEqualTo(hitsBefore);
+        assertThat(snapshotStore.installed()).isNull();
+    }
+}
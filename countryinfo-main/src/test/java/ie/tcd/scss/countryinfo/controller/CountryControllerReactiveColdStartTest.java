@@ -0,0 +1,94 @@
+package ie.tcd.scss.countryinfo.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import ie.tcd.scss.countryinfo.service.CountrySnapshotStore;
+import ie.tcd.scss.countryinfo.support.StubUpstream;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the reactive mode while no snapshot is installed, with {@code countryinfo.snapshot.resolve-names}, run
+ * against a local stub whose {@code /all} endpoint fails from the start. Loading the snapshot blocks until the full
+ * dataset is downloaded, so the lookups by name must not wait for it, and the border codes are only resolved after
+ * loading it on a worker thread.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class) // the last test loads the snapshot
+public class CountryControllerReactiveColdStartTest extends BaseCountryControllerTest {
+
+    static final StubUpstream upstream = StubUpstream.start();
+
+    static {
+        upstream.setFailureStatus("/all", 503);
+    }
+
+    @DynamicPropertySource
+    static void upstreamProperties(DynamicPropertyRegistry registry) {
+        registry.add("countryinfo.api.base-url", upstream::baseUrl);
+        registry.add("countryinfo.mode", () -> "reactive");
+        registry.add("countryinfo.snapshot.resolve-names", () -> "true");
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        upstream.close();
+    }
+
+    @Autowired
+    private CountrySnapshotStore snapshotStore;
+
+    @Test
+    @Order(1)
+    public void lookups_withoutSnapshot_shouldGoToTheUpstream() {
+        // Given no snapshot, as the upstream fails to send all countries
+        assertThat(snapshotStore.installed()).isNull();
+        int hitsBefore = upstream.hits("/all");
+
+        // When looking up a flag and a translation by name
+        ResponseEntity<String> flag = get("/countries/France/flag");
+        ResponseEntity<String> translation = get("/countries/Germany/translation/fra");
+
+        // Then both are answered by the upstream, without trying to load the snapshot
+        assertThat(flag.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(flag.getBody()).isEqualTo("https://flagcdn.com/w320/fr.png");
+        assertThat(translation.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(translation.getBody()).isEqualTo("Allemagne");
+        assertThat(upstream.hits("/name/France")).isEqualTo(1);
+        assertThat(upstream.hits("/name/Germany")).isEqualTo(1);
+        assertThat(upstream.hits("/all")).isEqualTo(hitsBefore);
+        assertThat(snapshotStore.installed()).isNull();
+    }
+
+    @Test
+    @Order(2)
+    public void borders_withoutSnapshot_shouldLoadIt() {
+        // Given no snapshot yet, and the upstream has recovered
+        assertThat(snapshotStore.installed()).isNull();
+        upstream.setFailureStatus("/all", 0);
+
+        // When requesting the bordering countries
+        ResponseEntity<String> response = get("/countries/Austria/borders");
+
+        // Then the snapshot is loaded to resolve the border codes, and installed for the next requests
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(JsonPath.<List<String>>read(response.getBody(), "$")).containsExactly("Germany", "Switzerland");
+        assertThat(snapshotStore.installed()).isNotNull();
+    }
+
+    private ResponseEntity<String> get(String path) {
+        return restTemplate.getForEntity("http://localhost:" + port + path, String.class);
+    }
+}
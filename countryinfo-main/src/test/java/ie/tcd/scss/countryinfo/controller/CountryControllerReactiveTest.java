@@ -0,0 +1,127 @@
+package ie.tcd.scss.countryinfo.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import ie.tcd.scss.countryinfo.service.CountryLookupCache;
+import ie.tcd.scss.countryinfo.service.ReactiveCountryService;
+import ie.tcd.scss.countryinfo.support.StubUpstream;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the lookups by name with {@code countryinfo.mode=reactive}, run against a local stub instead of the real
+ * upstream. The responses must be the same as in the blocking mode.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class CountryControllerReactiveTest extends BaseCountryControllerTest {
+
+    static final StubUpstream upstream = StubUpstream.start();
+
+    @DynamicPropertySource
+    static void upstreamProperties(DynamicPropertyRegistry registry) {
+        registry.add("countryinfo.api.base-url", upstream::baseUrl);
+        registry.add("countryinfo.mode", () -> "reactive");
+        // lookups by name go to the upstream, which is what these tests are about
+        registry.add("countryinfo.snapshot.resolve-names", () -> "false");
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        upstream.close();
+    }
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private CountryLookupCache lookupCache;
+
+    @BeforeEach
+    void clearCache() {
+        lookupCache.clear();
+        upstream.resetHits();
+    }
+
+    @Test
+    public void reactiveMode_shouldReplaceTheBlockingController() {
+        assertThat(context.getBeansOfType(ReactiveCountryController.class)).hasSize(1);
+        assertThat(context.getBeansOfType(ReactiveCountryService.class)).hasSize(1);
+        assertThat(context.getBeansOfType(CountryController.class)).isEmpty();
+    }
+
+    @Test
+    public void flag_shouldBeServedAndCached() {
+        // When requesting the flag twice
+        ResponseEntity<String> first = get("/countries/France/flag");
+        ResponseEntity<String> second = get("/countries/france/flag");
+
+        // Then both are answered with only the flags attribute requested once from the upstream
+        assertThat(first.getBody()).isEqualTo("https://flagcdn.com/w320/fr.png");
+        assertThat(second.getBody()).isEqualTo("https://flagcdn.com/w320/fr.png");
+        assertThat(upstream.requestedFields("/name/France")).containsExactly("flags");
+        assertThat(upstream.hits("/name/france")).isZero();
+    }
+
+    @Test
+    public void unknownCountry_shouldAnswerNotFound() {
+        ResponseEntity<String> country = get("/countries/Atlantis");
+        ResponseEntity<String> demographics = get("/countries/Atlantis/demographics");
+
+        assertThat(country.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(demographics.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(JsonPath.<String>read(demographics.getBody(), "$.error")).isEqualTo("Country not found");
+        assertThat(upstream.hits("/name/Atlantis")).isEqualTo(1);
+    }
+
+    @Test
+    public void compare_shouldLookUpBothCountries() {
+        // When comparing two neighbours
+        ResponseEntity<String> response = get("/countries/compare/Austria/Germany");
+
+        // Then the comparison is the same as in blocking mode
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(JsonPath.<Boolean>read(response.getBody(), "$.directlyBordering")).isTrue();
+        assertThat(JsonPath.<List<String>>read(response.getBody(), "$.sharedLanguages")).contains("German");
+        assertThat(upstream.hits("/name/Austria")).isEqualTo(1);
+        assertThat(upstream.hits("/name/Germany")).isEqualTo(1);
+    }
+
+    @Test
+    public void compare_withUnknownCountry_shouldAnswerBadRequest() {
+        ResponseEntity<String> response = get("/countries/compare/France/Atlantis");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(JsonPath.<String>read(response.getBody(), "$.message")).isEqualTo("Country not found: Atlantis");
+    }
+
+    @Test
+    public void borders_shouldBeResolvedFromTheSnapshot() {
+        ResponseEntity<String> response = get("/countries/Austria/borders");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(JsonPath.<List<String>>read(response.getBody(), "$")).contains("Germany", "Switzerland");
+    }
+
+    @Test
+    public void snapshotEndpoints_shouldWorkInReactiveMode() {
+        ResponseEntity<String> response = get("/countries/region/Europe/countries");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).contains("Germany");
+    }
+
+    private ResponseEntity<String> get(String path) {
+        return restTemplate.getForEntity("http://localhost:" + port + path, String.class);
+    }
+}
@@ -0,0 +1,150 @@
+package ie.tcd.scss.countryinfo.controller;
+
+import ie.tcd.scss.countryinfo.service.UpstreamCircuitBreaker;
+import ie.tcd.scss.countryinfo.support.StubUpstream;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for serving stale data while the upstream fails, run against a local stub that injects errors. The tests
+ * walk through one outage (healthy, failing, breaker open, recovered) and therefore run in order.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class CountryControllerResilienceTest extends BaseCountryControllerTest {
+
+    static final StubUpstream upstream = StubUpstream.start();
+
+    @DynamicPropertySource
+    static void upstreamProperties(DynamicPropertyRegistry registry) {
+        registry.add("countryinfo.api.base-url", upstream::baseUrl);
+        // lookups by name go to the upstream, which is what these tests are about
+        registry.add("countryinfo.snapshot.resolve-names", () -> "false");
+        registry.add("countryinfo.cache.ttl", () -> "PT0.5S");
+        registry.add("countryinfo.snapshot.refresh-interval", () -> "PT2S");
+        registry.add("countryinfo.breaker.failure-threshold", () -> "2");
+        registry.add("countryinfo.breaker.open-duration", () -> "PT5S");
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        upstream.close();
+    }
+
+    @Autowired
+    private UpstreamCircuitBreaker circuitBreaker;
+
+    @Test
+    @Order(1)
+    public void healthyUpstream_shouldServeFreshData() {
+        // When the upstream is working
+        ResponseEntity<String> flag = get("/countries/France/flag");
+        ResponseEntity<String> region = get("/countries/region/Europe/countries");
+
+        // Then the responses carry no staleness headers
+        assertThat(flag.getBody()).isEqualTo("https://flagcdn.com/w320/fr.png");
+        assertThat(flag.getHeaders().containsKey(HttpHeaders.WARNING)).isFalse();
+        assertThat(region.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(region.getHeaders().containsKey(HttpHeaders.WARNING)).isFalse();
+    }
+
+    @Test
+    @Order(2)
+    public void failingUpstream_shouldServeStaleDataAndOpenTheBreaker() throws InterruptedException {
+        // Given an expired cache entry and an upstream that starts failing
+        Thread.sleep(600);
+        upstream.setFailureStatus(503);
+
+        // When requesting the flag while the background reloads fail
+        ResponseEntity<String> flag = get("/countries/France/flag");
+        await(() -> {
+            get("/countries/France/flag");
+            return circuitBreaker.getState() == UpstreamCircuitBreaker.State.OPEN;
+        });
+
+        // Then the stale flag is served and marked as stale
+        assertThat(flag.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(flag.getBody()).isEqualTo("https://flagcdn.com/w320/fr.png");
+        assertThat(flag.getHeaders().getFirst(HttpHeaders.WARNING)).isEqualTo(UpstreamResponseAdvice.STALE_WARNING);
+        assertThat(flag.getHeaders().getFirst(HttpHeaders.AGE)).isNotNull();
+
+        // and once the breaker is open, requests no longer reach the upstream
+        int hits = upstream.hits("/name/France");
+        ResponseEntity<String> again = get("/countries/France/flag");
+        assertThat(again.getBody()).isEqualTo("https://flagcdn.com/w320/fr.png");
+        assertThat(upstream.hits("/name/France")).isEqualTo(hits);
+    }
+
+    @Test
+    @Order(3)
+    public void openBreaker_shouldServeStaleSnapshot() {
+        // When requesting a snapshot endpoint once the refresh interval has passed, with refreshes failing
+        await(() -> get("/countries/region/Europe/countries").getHeaders().containsKey(HttpHeaders.WARNING));
+        ResponseEntity<String> region = get("/countries/region/Europe/countries");
+
+        // Then the old snapshot is served and marked as stale
+        assertThat(region.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(region.getBody()).contains("Germany");
+        assertThat(region.getHeaders().getFirst(HttpHeaders.WARNING)).isEqualTo(UpstreamResponseAdvice.STALE_WARNING);
+        assertThat(Long.parseLong(region.getHeaders().getFirst(HttpHeaders.AGE))).isGreaterThanOrEqualTo(2);
+    }
+
+    @Test
+    @Order(4)
+    public void openBreaker_withoutStaleData_shouldAnswerServiceUnavailable() {
+        // When requesting a country that was never cached while the breaker is open
+        ResponseEntity<String> response = get("/countries/Austria");
+
+        // Then the request fails fast with 503 instead of passing the upstream error on
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(upstream.hits("/name/Austria")).isZero();
+    }
+
+    @Test
+    @Order(5)
+    public void recoveredUpstream_shouldCloseTheBreakerAndServeFreshData() {
+        // When the upstream recovers, the trial call after the open duration closes the breaker
+        upstream.setFailureStatus(0);
+        await(() -> {
+            get("/countries/France/flag");
+            return circuitBreaker.getState() == UpstreamCircuitBreaker.State.CLOSED;
+        });
+
+        // Then fresh data is served again once it has been reloaded
+        await(() -> !get("/countries/France/flag").getHeaders().containsKey(HttpHeaders.WARNING));
+        ResponseEntity<String> country = get("/countries/Austria");
+        assertThat(country.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    private ResponseEntity<String> get(String path) {
+        return restTemplate.getForEntity("http://localhost:" + port + path, String.class);
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met within 10 seconds").isLessThan(deadline);
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
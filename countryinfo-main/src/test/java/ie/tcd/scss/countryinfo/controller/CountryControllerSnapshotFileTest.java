@@ -0,0 +1,119 @@
+package ie.tcd.scss.countryinfo.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import ie.tcd.scss.countryinfo.config.CountryInfoProperties;
+import ie.tcd.scss.countryinfo.service.CountrySnapshot;
+import ie.tcd.scss.countryinfo.service.CountrySnapshotFile;
+import ie.tcd.scss.countryinfo.service.CountrySnapshotStore;
+import ie.tcd.scss.countryinfo.service.RestCountriesClient;
+import ie.tcd.scss.countryinfo.support.StubUpstream;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for starting from a persisted snapshot file, run against a local stub instead of the real upstream.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class) // the startup test must see the restored snapshot
+public class CountryControllerSnapshotFileTest extends BaseCountryControllerTest {
+
+    static final StubUpstream upstream = StubUpstream.start();
+    static final Path snapshotPath = persistStubSnapshot();
+
+    @DynamicPropertySource
+    static void upstreamProperties(DynamicPropertyRegistry registry) {
+        registry.add("countryinfo.api.base-url", upstream::baseUrl);
+        registry.add("countryinfo.snapshot.file", snapshotPath::toString);
+    }
+
+    @AfterAll
+    static void stopUpstream() throws IOException {
+        upstream.close();
+        Files.deleteIfExists(snapshotPath);
+        Files.deleteIfExists(snapshotPath.getParent());
+    }
+
+    @Autowired
+    private CountrySnapshotStore snapshotStore;
+
+    @Test
+    @Order(1)
+    public void startup_shouldServeFromSnapshotFileWithoutUpstream() {
+        // When calling an endpoint that needs all countries right after startup
+        ResponseEntity<String> response = restTemplate.getForEntity(
+                "http://localhost:" + port + "/countries/region/Asia/countries?sortBy=population", String.class);
+
+        // Then it is answered from the restored snapshot, the upstream was never asked for the full dataset
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        List<String> countries = JsonPath.parse(response.getBody()).read("$");
+        assertThat(countries).containsExactly("China", "Pakistan", "Afghanistan", "Uzbekistan");
+        assertThat(snapshotStore.current().getVersion()).isEqualTo(41);
+        assertThat(upstream.hits("/all")).isZero();
+    }
+
+    @Test
+    @Order(2)
+    public void refresh_shouldPersistTheNewSnapshot() {
+        // When refreshing from the upstream
+        CountrySnapshot refreshed = snapshotStore.refresh();
+
+        // Then versions continue after the restored one and the file holds the new snapshot
+        CountrySnapshot persisted = new CountrySnapshotFile(snapshotPath).read();
+        assertThat(refreshed.getVersion()).isGreaterThan(41);
+        assertThat(persisted.getVersion()).isEqualTo(refreshed.getVersion());
+        assertThat(persisted.getCountries()).isEqualTo(refreshed.getCountries());
+    }
+
+    @Test
+    @Order(3)
+    public void revalidation_shouldRewriteTheHeader() {
+        // Given the persisted snapshot
+        CountrySnapshot persistedBefore = new CountrySnapshotFile(snapshotPath).read();
+
+        // When refreshing again, and the upstream data is not modified
+        CountrySnapshot revalidated = snapshotStore.refresh();
+
+        // Then the file holds the same version with the new load time
+        CountrySnapshot persisted = new CountrySnapshotFile(snapshotPath).read();
+        assertThat(revalidated.getVersion()).isEqualTo(persistedBefore.getVersion());
+        assertThat(persisted.getVersion()).isEqualTo(revalidated.getVersion());
+        assertThat(persisted.getLoadedAt()).isEqualTo(revalidated.getLoadedAt().truncatedTo(ChronoUnit.MILLIS));
+        assertThat(persisted.getValidators()).isEqualTo(revalidated.getValidators());
+        assertThat(persisted.getCountries()).isEqualTo(persistedBefore.getCountries());
+    }
+
+    // writes the stub's dataset as a fresh snapshot file, before the application context starts
+    private static Path persistStubSnapshot() {
+        try {
+            CountryInfoProperties properties = new CountryInfoProperties();
+            properties.getApi().setBaseUrl(upstream.baseUrl());
+            RestCountriesClient client = new RestCountriesClient(new RestTemplate(), properties);
+            Path path = Files.createTempDirectory("countryinfo").resolve("countries.snapshot");
+            new CountrySnapshotFile(path).write(new CountrySnapshot(41, Instant.now(), client.fetchAll()));
+            upstream.resetHits();
+            return path;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
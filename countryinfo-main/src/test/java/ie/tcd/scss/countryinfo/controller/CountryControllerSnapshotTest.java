@@ -0,0 +1,397 @@
+package ie.tcd.scss.countryinfo.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import ie.tcd.scss.countryinfo.service.CountrySnapshot;
+import ie.tcd.scss.countryinfo.service.CountrySnapshotStore;
+import ie.tcd.scss.countryinfo.support.StubUpstream;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the in-memory country snapshot, run against a local stub instead of the real upstream.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class CountryControllerSnapshotTest extends BaseCountryControllerTest {
+
+    static final StubUpstream upstream = StubUpstream.start();
+
+    @DynamicPropertySource
+    static void upstreamProperties(DynamicPropertyRegistry registry) {
+        registry.add("countryinfo.api.base-url", upstream::baseUrl);
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        upstream.close();
+    }
+
+    @Autowired
+    private CountrySnapshotStore snapshotStore;
+
+    @Test
+    public void snapshotEndpoints_shouldFetchAllCountriesOnlyOnce() {
+        // Given a loaded snapshot
+        snapshotStore.current();
+        int hitsBefore = upstream.hits("/all");
+
+        // When calling several endpoints that need all countries
+        ResponseEntity<String> region = restTemplate.getForEntity(
+                "http://localhost:" + port + "/countries/region/Asia/countries?sortBy=population", String.class);
+        ResponseEntity<String> populous = restTemplate.getForEntity(
+                "http://localhost:" + port + "/countries/stan/mostPopulousWithPopulation", String.class);
+        ResponseEntity<String> statistics = restTemplate.getForEntity(
+                "http://localhost:" + port + "/countries/region/Europe/statistics", String.class);
+
+        // Then all are answered from the snapshot without further upstream requests
+        assertThat(region.getStatusCode()).isEqualTo(HttpStatus.OK);
+        List<String> countries = JsonPath.parse(region.getBody()).read("$");
+        assertThat(countries).containsExactly("China", "Pakistan", "Afghanistan", "Uzbekistan");
+
+        assertThat(populous.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(populous.getBody()).isEqualTo("Pakistan (220892331); Afghanistan (40218234); Uzbekistan (34232050)");
+
+        assertThat(statistics.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(upstream.hits("/all")).isEqualTo(hitsBefore);
+    }
+
+    @Test
+    public void regionCountries_shouldUseThePrecomputedOrders() {
+        assertThat(regionCountries("name")).containsExactly("Afghanistan", "China", "Pakistan", "Uzbekistan");
+        assertThat(regionCountries("AREA")).containsExactly("China", "Pakistan", "Afghanistan", "Uzbekistan");
+        // unknown criteria leave the countries unsorted, in the order of the upstream data
+        assertThat(regionCountries("colour")).containsExactly("Pakistan", "Afghanistan", "Uzbekistan", "China");
+    }
+
+    @Test
+    public void languageAndCurrency_shouldBeAnsweredFromTheBitsets() {
+        // Given a loaded snapshot
+        snapshotStore.current();
+        upstream.resetHits();
+
+        // When looking up the countries by language and by currency, in any case
+        ResponseEntity<String> german = restTemplate.getForEntity(
+                "http://localhost:" + port + "/countries/language/german", String.class);
+        ResponseEntity<String> euro = restTemplate.getForEntity(
+                "http://localhost:" + port + "/countries/currency/eur", String.class);
+        ResponseEntity<String> unknown = restTemplate.getForEntity(
+                "http://localhost:" + port + "/countries/currency/XYZ", String.class);
+
+        // Then the countries come in snapshot order, without asking the upstream
+        assertThat(german.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(JsonPath.parse(german.getBody()).read("$", List.class)).containsExactly("Germany", "Austria");
+        assertThat(euro.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(JsonPath.parse(euro.getBody()).read("$", List.class))
+                .containsExactly("Germany", "France", "Austria", "Ireland");
+        assertThat(unknown.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(upstream.hits("/all")).isZero();
+    }
+
+    @Test
+    public void top_shouldRankTheSnapshotByAttribute() {
+        // When ranking by population and by density
+        ResponseEntity<String> population = restTemplate.getForEntity(
+                "http://localhost:" + port + "/countries/top?by=population&k=3", String.class);
+        ResponseEntity<String> density = restTemplate.getForEntity(
+                "http://localhost:" + port + "/countries/top?by=DENSITY&k=3", String.class);
+
+        // Then the k highest come first, with their values
+        assertThat(population.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(JsonPath.parse(population.getBody()).read("$[*].name", List.class))
+                .containsExactly("China", "Pakistan", "Germany");
+        assertThat(JsonPath.parse(population.getBody()).read("$[0].population", Long.class)).isEqualTo(1402112000L);
+        assertThat(JsonPath.parse(density.getBody()).read("$[*].name", List.class))
+                .containsExactly("United Kingdom", "Pakistan", "Germany");
+
+        // And unknown attributes or an empty ranking are rejected
+        assertThat(restTemplate.getForEntity("http://localhost:" + port + "/countries/top?by=gdp", String.class)
+                .getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(restTemplate.getForEntity("http://localhost:" + port + "/countries/top?by=area&k=0", String.class)
+                .getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    public void lookupsByName_shouldBeResolvedInTheSnapshot() {
+        // Given a loaded snapshot
+        snapshotStore.current();
+        upstream.resetHits();
+
+        // When looking up countries by a native name, a partial name and an unknown name
+        ResponseEntity<String> germany = restTemplate.getForEntity(
+                "http://localhost:" + port + "/countries/Deutschland", String.class);
+        ResponseEntity<String> flag = restTemplate.getForEntity(
+                "http://localhost:" + port + "/countries/ireland/flag", String.class);
+        ResponseEntity<String> unknown = restTemplate.getForEntity(
+                "http://localhost:" + port + "/countries/Atlantis", String.class);
+
+        // Then they are answered like the upstream would, the first match for "ireland" being Ireland, without it
+        assertThat(germany.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(JsonPath.parse(germany.getBody()).read("$.name.common", String.class)).isEqualTo("Germany");
+        assertThat(JsonPath.parse(germany.getBody()).read("$.name.nativeName.deu.common", String.class))
+                .isEqualTo("Deutschland");
+        assertThat(flag.getBody()).isEqualTo("https://flagcdn.com/w320/ie.png");
+        assertThat(unknown.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(upstream.hits("/name/Deutschland") + upstream.hits("/name/ireland")
+                + upstream.hits("/name/Atlantis")).isZero();
+    }
+
+    @Test
+    public void translations_shouldBeFoundInAnyLanguage() {
+        // Given a loaded snapshot
+        snapshotStore.current();
+        upstream.resetHits();
+
+        // When translating a name typed in French, and looking up the countries with a Japanese name
+        ResponseEntity<String> translation = restTemplate.getForEntity(
+                "http://localhost:" + port + "/countries/Allemagne/translation/deu", String.class);
+        ResponseEntity<String> reverse = restTemplate.getForEntity(
+                "http://localhost:" + port + "/countries/translation/オーストリア?language=fra", String.class);
+        ResponseEntity<String> unknown = restTemplate.getForEntity(
+                "http://localhost:" + port + "/countries/translation/Atlantis", String.class);
+
+        // Then both are answered from the translation index, without a failed lookup by name
+        assertThat(translation.getBody()).isEqualTo("Deutschland");
+        assertThat(reverse.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(JsonPath.parse(reverse.getBody()).read("$[0].name", String.class)).isEqualTo("Austria");
+        assertThat(JsonPath.parse(reverse.getBody()).read("$[0].languages", List.class)).containsExactly("jpn");
+        assertThat(JsonPath.parse(reverse.getBody()).read("$[0].translation", String.class)).isEqualTo("Autriche");
+        assertThat(unknown.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(upstream.hits("/name/Allemagne")).isZero();
+    }
+
+    @Test
+    public void borderGraph_shouldAnswerRoutesAndNeighbourhoods() {
+        // Given a loaded snapshot
+        snapshotStore.current();
+        upstream.resetHits();
+
+        // When querying routes, neighbourhoods and landmasses
+        ResponseEntity<String> route = restTemplate.getForEntity(
+                "http://localhost:" + port + "/countries/route/Austria/FRA", String.class);
+        ResponseEntity<String> noRoute = restTemplate.getForEntity(
+                "http://localhost:" + port + "/countries/route/Ireland/France", String.class);
+        ResponseEntity<String> neighbours = restTemplate.getForEntity(
+                "http://localhost:" + port + "/countries/PK/neighbours?hops=2", String.class);
+        ResponseEntity<String> invalidHops = restTemplate.getForEntity(
+                "http://localhost:" + port + "/countries/Pakistan/neighbours?hops=0", String.class);
+        ResponseEntity<String> landmasses = restTemplate.getForEntity(
+                "http://localhost:" + port + "/countries/landmasses", String.class);
+
+        // Then all are answered from the border graph of the snapshot
+        assertThat(route.getStatusCode()).isEqualTo(HttpStatus.OK);
+        List<String> countries = JsonPath.parse(route.getBody()).read("$");
+        assertThat(countries).containsExactly("Austria", "Germany", "France");
+        assertThat(noRoute.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+
+        assertThat(neighbours.getStatusCode()).isEqualTo(HttpStatus.OK);
+        List<String> names = JsonPath.parse(neighbours.getBody()).read("$[*].name");
+        List<Integer> hops = JsonPath.parse(neighbours.getBody()).read("$[*].hops");
+        assertThat(names).containsExactly("Afghanistan", "China", "Uzbekistan");
+        assertThat(hops).containsExactly(1, 1, 2);
+        assertThat(invalidHops.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+
+        assertThat(landmasses.getStatusCode()).isEqualTo(HttpStatus.OK);
+        List<List<String>> groups = JsonPath.parse(landmasses.getBody()).read("$");
+        assertThat(groups).containsExactly(
+                List.of("Germany", "France", "Austria", "Switzerland"),
+                List.of("Pakistan", "Afghanistan", "Uzbekistan", "China"),
+                List.of("Ireland", "United Kingdom"));
+        assertThat(upstream.hits("/all")).isZero();
+        assertThat(upstream.hits("/name/Austria")).isZero();
+    }
+
+    @Test
+    public void geoQueries_shouldMeasureGreatCircleDistances() {
+        // Given a loaded snapshot
+        snapshotStore.current();
+        upstream.resetHits();
+
+        // When querying around Dublin
+        ResponseEntity<String> nearest = restTemplate.getForEntity(
+                "http://localhost:" + port + "/countries/nearest?lat=53.35&lng=-6.26&k=2", String.class);
+        ResponseEntity<String> capitals = restTemplate.getForEntity(
+                "http://localhost:" + port + "/countries/within?lat=53.35&lng=-6.26&radiusKm=1000&by=capital",
+                String.class);
+        ResponseEntity<String> invalid = restTemplate.getForEntity(
+                "http://localhost:" + port + "/countries/nearest?lat=100&lng=0", String.class);
+
+        // Then the countries come nearest first, from the spatial index of the snapshot
+        assertThat(nearest.getStatusCode()).isEqualTo(HttpStatus.OK);
+        List<String> names = JsonPath.parse(nearest.getBody()).read("$[*].name");
+        assertThat(names).containsExactly("Ireland", "United Kingdom");
+
+        assertThat(capitals.getStatusCode()).isEqualTo(HttpStatus.OK);
+        List<String> capitalNames = JsonPath.parse(capitals.getBody()).read("$[*].name");
+        List<Double> distances = JsonPath.parse(capitals.getBody()).read("$[*].distanceKm");
+        // Dublin, London and Paris
+        assertThat(capitalNames).containsExactly("Ireland", "United Kingdom", "France");
+        assertThat(distances.get(1)).isBetween(450.0, 480.0);
+
+        assertThat(invalid.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(upstream.hits("/all")).isZero();
+    }
+
+    @Test
+    public void distances_shouldBeReadFromTheMatrix() {
+        // When requesting the distance between two countries and comparing them
+        ResponseEntity<String> distance = restTemplate.getForEntity(
+                "http://localhost:" + port + "/countries/distance/IRL/United Kingdom", String.class);
+        ResponseEntity<String> unknown = restTemplate.getForEntity(
+                "http://localhost:" + port + "/countries/distance/Ireland/Atlantis", String.class);
+        ResponseEntity<String> comparison = restTemplate.getForEntity(
+                "http://localhost:" + port + "/countries/compare/Ireland/France", String.class);
+        ResponseEntity<String> status = restTemplate.getForEntity(
+                "http://localhost:" + port + "/status/snapshot", String.class);
+
+        // Then both report the great-circle distances, and the status the memory of the matrix
+        assertThat(distance.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(JsonPath.parse(distance.getBody()).read("$.to", String.class)).isEqualTo("United Kingdom");
+        // Dublin to London
+        assertThat(JsonPath.parse(distance.getBody()).read("$.capitalDistanceKm", Double.class)).isBetween(450.0, 480.0);
+        assertThat(JsonPath.parse(distance.getBody()).read("$.centroidDistanceKm", Double.class)).isPositive();
+        assertThat(unknown.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+
+        assertThat(comparison.getStatusCode()).isEqualTo(HttpStatus.OK);
+        // Dublin to Paris
+        assertThat(JsonPath.parse(comparison.getBody()).read("$.capitalDistanceKm", Double.class)).isBetween(770.0, 800.0);
+
+        Integer matrixBytes = JsonPath.parse(status.getBody()).read("$.distanceMatrixBytes");
+        // 10 countries, 45 pairs, two float matrices
+        assertThat(matrixBytes).isEqualTo(360);
+    }
+
+    @Test
+    public void regionStatistics_shouldBeMaterializedWithTheSnapshot() {
+        // When requesting the statistics of a region and of a subregion, raw and pretty
+        ResponseEntity<String> asia = restTemplate.getForEntity(
+                "http://localhost:" + port + "/countries/region/asia/statistics", String.class);
+        ResponseEntity<String> westernEurope = restTemplate.getForEntity(
+                "http://localhost:" + port + "/countries/subregion/Western Europe/statistics?format=pretty", String.class);
+
+        // Then both are answered from the statistics of the snapshot, which a revalidated snapshot shares
+        assertThat(asia.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(JsonPath.parse(asia.getBody()).read("$.totalPopulation", Long.class)).isEqualTo(1697454615L);
+        assertThat(JsonPath.parse(asia.getBody()).read("$.mostCommonCurrencies", Map.class)).hasSize(4);
+
+        assertThat(westernEurope.getStatusCode()).isEqualTo(HttpStatus.OK);
+        // Germany, France and Switzerland
+        assertThat(JsonPath.parse(westernEurope.getBody()).read("$.totalPopulation", String.class))
+                .isEqualTo("159,286,729");
+        assertThat(JsonPath.parse(westernEurope.getBody()).read("$.mostCommonLanguages.French", Integer.class))
+                .isEqualTo(2);
+
+        CountrySnapshot snapshot = snapshotStore.current();
+        assertThat(snapshot.revalidated(Instant.now(), snapshot.getValidators()).getRegionStatistics())
+                .isSameAs(snapshot.getRegionStatistics());
+    }
+
+    @Test
+    public void refresh_shouldSwapInNewSnapshotAtomically() {
+        // Given the current snapshot and a change in the upstream data
+        CountrySnapshot before = snapshotStore.current();
+        int hitsBefore = upstream.hits("/all");
+        upstream.setPopulation("Ireland", 5200000 + before.getVersion());
+
+        // When refreshing
+        CountrySnapshot after = snapshotStore.refresh();
+
+        // Then a new version is installed and the previous instance is left untouched
+        assertThat(upstream.hits("/all")).isEqualTo(hitsBefore + 1);
+        assertThat(after.getVersion()).isGreaterThan(before.getVersion());
+        assertThat(snapshotStore.current()).isSameAs(after);
+        assertThat(before.getCountries()).hasSize(10);
+        assertThat(after.getCountries()).hasSize(10);
+    }
+
+    @Test
+    public void refresh_notModified_shouldKeepSnapshotWithoutDownload() {
+        // Given the current snapshot, with the ETag of the upstream data
+        CountrySnapshot before = snapshotStore.refresh();
+
+        // When refreshing while the upstream data is unchanged
+        CountrySnapshot after = snapshotStore.refresh();
+
+        // Then the upstream answered 304 and the snapshot was revalidated, not rebuilt
+        CountrySnapshotStore.RefreshStats stats = snapshotStore.getRefreshStats();
+        assertThat(after.getVersion()).isEqualTo(before.getVersion());
+        assertThat(after.getCountries()).isSameAs(before.getCountries());
+        assertThat(after.getLoadedAt()).isAfterOrEqualTo(before.getLoadedAt());
+        assertThat(stats.lastBytesTransferred()).isZero();
+        assertThat(stats.notModified()).isPositive();
+    }
+
+    @Test
+    public void refresh_withoutETag_shouldDetectUnchangedBodyByHash() {
+        // Given an upstream that ignores conditional requests
+        CountrySnapshot before = snapshotStore.refresh();
+        long unchangedBefore = snapshotStore.getRefreshStats().unchanged();
+        upstream.setConditionalRequests(false);
+        try {
+            // When refreshing while the upstream data is unchanged
+            CountrySnapshot after = snapshotStore.refresh();
+
+            // Then the body was downloaded, but recognized by its hash and not parsed again
+            CountrySnapshotStore.RefreshStats stats = snapshotStore.getRefreshStats();
+            assertThat(after.getVersion()).isEqualTo(before.getVersion());
+            assertThat(after.getCountries()).isSameAs(before.getCountries());
+            assertThat(stats.lastBytesTransferred()).isPositive();
+            assertThat(stats.unchanged()).isEqualTo(unchangedBefore + 1);
+        } finally {
+            upstream.setConditionalRequests(true);
+        }
+    }
+
+    @Test
+    public void snapshotStatistics_shouldReportRefreshCounters() {
+        // Given at least one refresh
+        snapshotStore.refresh();
+
+        // When requesting the statistics
+        ResponseEntity<String> response = restTemplate.getForEntity(
+                "http://localhost:" + port + "/status/snapshot", String.class);
+
+        // Then the counters are reported
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Integer refreshes = JsonPath.parse(response.getBody()).read("$.refreshes");
+        Integer version = JsonPath.parse(response.getBody()).read("$.version");
+        assertThat(refreshes).isPositive();
+        assertThat(version).isEqualTo(snapshotStore.current().getVersion());
+    }
+
+    @Test
+    public void getBorderingCountries_shouldResolveCodesFromSnapshot() {
+        // Given a loaded snapshot
+        snapshotStore.current();
+        upstream.resetHits();
+
+        // When requesting the neighbours of Austria
+        ResponseEntity<String> response = restTemplate.getForEntity(
+                "http://localhost:" + port + "/countries/Austria/borders", String.class);
+
+        // Then the border codes known to the stub are resolved without a lookup per code
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        List<String> neighbours = JsonPath.parse(response.getBody()).read("$");
+        assertThat(neighbours).containsExactly("Germany", "Switzerland");
+        assertThat(upstream.hits("/name/Austria")).isLessThanOrEqualTo(1);
+        assertThat(upstream.hits("/name/DEU")).isZero();
+        assertThat(upstream.hits("/name/CHE")).isZero();
+    }
+
+    private List<String> regionCountries(String sortBy) {
+        ResponseEntity<String> response = restTemplate.getForEntity(
+                "http://localhost:" + port + "/countries/region/Asia/countries?sortBy=" + sortBy, String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return JsonPath.parse(response.getBody()).read("$");
+    }
+}
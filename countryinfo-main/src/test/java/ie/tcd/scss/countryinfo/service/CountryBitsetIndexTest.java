@@ -0,0 +1,60 @@
+package ie.tcd.scss.countryinfo.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for CountryBitsetIndex, verifies the lookups and counts against the fixture countries.
+ */
+public class CountryBitsetIndexTest {
+
+    private List<CountryRecord> countries;
+    private CountryColumns columns;
+    private CountryBitsetIndex index;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        try (InputStream in = CountryBitsetIndexTest.class.getResourceAsStream("/stub/countries.json")) {
+            countries = new CountryStreamReader().read(in);
+        }
+        columns = new CountryColumns(countries);
+        index = new CountryBitsetIndex(countries, columns);
+    }
+
+    @Test
+    public void lookups_shouldBeCaseInsensitiveInSnapshotOrder() {
+        assertThat(names(index.speaking("GERMAN"))).containsExactly("Germany", "Austria");
+        assertThat(names(index.speaking("English"))).containsExactly("Ireland", "United Kingdom", "Pakistan");
+        assertThat(names(index.usingCurrency("eur"))).containsExactly("Germany", "France", "Austria", "Ireland");
+        assertThat(index.speaking("Klingon")).isEmpty();
+        assertThat(index.usingCurrency(null)).isEmpty();
+    }
+
+    @Test
+    public void regionCounts_shouldMatchCountingTheRecords() {
+        int europe = columns.regionId("Europe");
+
+        assertThat(index.countSpeaking("french", europe)).isEqualTo(2);
+        assertThat(index.countSpeaking("English", columns.regionId("Asia"))).isEqualTo(1);
+        assertThat(index.countSpeaking("French", CountryColumns.NONE)).isZero();
+
+        Map<String, Long> languages = index.languageCounts(europe);
+        assertThat(languages).containsEntry("German", 2L).containsEntry("French", 2L).containsEntry("English", 2L)
+                .doesNotContainKey("Urdu");
+        assertThat(index.currencyCounts(europe)).containsExactlyInAnyOrderEntriesOf(
+                Map.of("EUR", 4L, "CHF", 1L, "GBP", 1L));
+        assertThat(index.currencyCounts(CountryColumns.NONE)).isEmpty();
+    }
+
+    private List<String> names(int[] ordinals) {
+        return Arrays.stream(ordinals).mapToObj(i -> countries.get(i).commonName()).toList();
+    }
+}
@@ -0,0 +1,75 @@
+package ie.tcd.scss.countryinfo.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for CountryBorderGraph, verifies the adjacency, routes, neighbourhoods and landmasses of the fixture countries.
+ */
+public class CountryBorderGraphTest {
+
+    private List<CountryRecord> countries;
+    private CountryBorderGraph graph;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        try (InputStream in = CountryBorderGraphTest.class.getResourceAsStream("/stub/countries.json")) {
+            countries = new CountryStreamReader().read(in);
+        }
+        graph = new CountryBorderGraph(countries);
+    }
+
+    @Test
+    public void neighbours_shouldOnlyHoldBordersWithinTheSnapshot() {
+        // Germany also borders Belgium, Poland and others, which are not in the fixture
+        assertThat(names(graph.neighbours(graph.ordinalOf("DEU")))).containsExactly("France", "Austria", "Switzerland");
+        assertThat(names(graph.neighbours(graph.ordinalOf("Ireland")))).containsExactly("United Kingdom");
+        assertThat(graph.borders(graph.ordinalOf("CN"), graph.ordinalOf("pakistan"))).isTrue();
+        assertThat(graph.borders(graph.ordinalOf("Germany"), graph.ordinalOf("Ireland"))).isFalse();
+        assertThat(graph.ordinalOf("Atlantis")).isEqualTo(CountryBorderGraph.NONE);
+    }
+
+    @Test
+    public void shortestRoute_shouldHaveTheFewestCrossings() {
+        int austria = graph.ordinalOf("Austria");
+
+        assertThat(names(graph.shortestRoute(austria, graph.ordinalOf("France"))))
+                .containsExactly("Austria", "Germany", "France");
+        assertThat(names(graph.shortestRoute(graph.ordinalOf("UZB"), graph.ordinalOf("PAK"))))
+                .containsExactly("Uzbekistan", "Afghanistan", "Pakistan");
+        assertThat(names(graph.shortestRoute(austria, austria))).containsExactly("Austria");
+        assertThat(graph.shortestRoute(austria, graph.ordinalOf("Ireland"))).isEmpty();
+    }
+
+    @Test
+    public void withinHops_shouldStopAtTheGivenDepth() {
+        int uzbekistan = graph.ordinalOf("Uzbekistan");
+
+        CountryBorderGraph.Reach oneHop = graph.withinHops(uzbekistan, 1);
+        assertThat(names(oneHop.ordinals())).containsExactly("Afghanistan");
+
+        CountryBorderGraph.Reach twoHops = graph.withinHops(uzbekistan, 2);
+        assertThat(names(twoHops.ordinals())).containsExactly("Afghanistan", "Pakistan", "China");
+        assertThat(twoHops.hops()).containsExactly(1, 2, 2);
+    }
+
+    @Test
+    public void components_shouldBeTheLandmasses() {
+        assertThat(graph.componentCount()).isEqualTo(3);
+        assertThat(graph.component(graph.ordinalOf("France"))).isEqualTo(graph.component(graph.ordinalOf("Austria")));
+        assertThat(graph.component(graph.ordinalOf("France"))).isNotEqualTo(graph.component(graph.ordinalOf("China")));
+        assertThat(names(graph.members(graph.component(graph.ordinalOf("GB")))))
+                .containsExactly("Ireland", "United Kingdom");
+    }
+
+    private List<String> names(int[] ordinals) {
+        return Arrays.stream(ordinals).mapToObj(i -> countries.get(i).commonName()).toList();
+    }
+}
@@ -0,0 +1,83 @@
+package ie.tcd.scss.countryinfo.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Tests for CountryColumns, verifies the columns and orderings built from the fixture countries.
+ */
+public class CountryColumnsTest {
+
+    private List<CountryRecord> countries;
+    private CountryColumns columns;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        try (InputStream in = CountryColumnsTest.class.getResourceAsStream("/stub/countries.json")) {
+            countries = new CountryStreamReader().read(in);
+        }
+        columns = new CountryColumns(countries);
+    }
+
+    @Test
+    public void columns_shouldHoldTheAttributesByOrdinal() {
+        int germany = ordinalOf("Germany");
+
+        assertThat(columns.size()).isEqualTo(countries.size());
+        assertThat(columns.population(germany)).isEqualTo(83240525L);
+        assertThat(columns.area(germany)).isEqualTo(357114.0);
+        assertThat(columns.density(germany)).isCloseTo(83240525 / 357114.0, within(1e-9));
+        assertThat(columns.region(germany)).isEqualTo(columns.regionId("Europe"));
+        assertThat(columns.subregion(germany)).isEqualTo(columns.subregionId("western europe"));
+    }
+
+    @Test
+    public void regionIds_shouldBeCaseInsensitive() {
+        assertThat(columns.regionId("EUROPE")).isEqualTo(columns.regionId("Europe"));
+        assertThat(columns.regionId("Atlantis")).isEqualTo(CountryColumns.NONE);
+        assertThat(columns.inRegion(CountryColumns.NONE)).isEmpty();
+    }
+
+    @Test
+    public void regionOrderings_shouldMatchSortingTheRecords() {
+        int europe = columns.regionId("Europe");
+
+        assertThat(names(columns.inRegion(europe))).containsExactly(
+                "Germany", "France", "Austria", "Switzerland", "Ireland", "United Kingdom");
+        assertThat(names(columns.inRegionByPopulation(europe))).containsExactly(
+                "Germany", "France", "United Kingdom", "Austria", "Switzerland", "Ireland");
+        assertThat(names(columns.inRegionByArea(europe))).containsExactly(
+                "France", "Germany", "United Kingdom", "Austria", "Ireland", "Switzerland");
+        assertThat(names(columns.inRegionByName(europe))).containsExactly(
+                "Austria", "France", "Germany", "Ireland", "Switzerland", "United Kingdom");
+    }
+
+    @Test
+    public void regionOrderings_shouldBePrecomputed() {
+        // the orders are built with the snapshot, a request only looks them up
+        int asia = columns.regionId("Asia");
+        assertThat(columns.inRegionByName(asia)).isSameAs(columns.inRegionByName(columns.regionId("asia")));
+        assertThat(columns.inRegionByPopulation(CountryColumns.NONE)).isEmpty();
+    }
+
+    private int ordinalOf(String commonName) {
+        for (int i = 0; i < countries.size(); i++) {
+            if (countries.get(i).commonName().equals(commonName)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException(commonName);
+    }
+
+    private List<String> names(int[] ordinals) {
+        return Arrays.stream(ordinals).mapToObj(i -> countries.get(i).commonName()).toList();
+    }
+}
@@ -0,0 +1,88 @@
+package ie.tcd.scss.countryinfo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ie.tcd.scss.countryinfo.domain.Country;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for CountryDictionary, verifies that compacting shares the repeated values without changing the countries.
+ */
+public class CountryDictionaryTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private CountryStreamReader.Dataset dataset;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        try (InputStream in = CountryDictionaryTest.class.getResourceAsStream("/stub/countries.json")) {
+            dataset = new CountryStreamReader().readWithDetails(in);
+        }
+    }
+
+    @Test
+    public void compacting_shouldKeepTheJsonOfTheCountries() throws IOException {
+        // Given the JSON of the countries as parsed
+        String before = JSON.writeValueAsString(dataset.details());
+
+        // When compacting them
+        new CountryDictionary().compactDetails(dataset.details());
+
+        // Then they serialize to the same JSON, in the same order
+        assertThat(JSON.writeValueAsString(dataset.details())).isEqualTo(before);
+    }
+
+    @Test
+    public void compacting_shouldShareRepeatedValues() {
+        // When compacting the records and the full countries with one dictionary
+        CountryDictionary dictionary = new CountryDictionary();
+        List<CountryRecord> records = dictionary.compactRecords(dataset.countries());
+        List<Country> details = dictionary.compactDetails(dataset.details());
+
+        // Then equal values are the same instance, across countries and between records and full countries
+        Country germany = details.get(0);
+        Country france = details.get(1);
+        Country austria = details.get(2);
+        assertThat(germany.getRegion()).isSameAs(france.getRegion());
+        assertThat(records.get(0).region()).isSameAs(germany.getRegion());
+        assertThat(records.get(0).commonName()).isSameAs(germany.getName().getCommon());
+        assertThat(germany.getBorders().get(0)).isSameAs(austria.getCca3());
+        assertThat(germany.getLanguages().get("deu")).isSameAs(austria.getLanguages().get("de"));
+        assertThat(germany.getCurrencies().get("EUR")).isSameAs(france.getCurrencies().get("EUR"));
+        assertThat(germany.getTimezones().get(0)).isSameAs(france.getTimezones().get(1));
+    }
+
+    @Test
+    public void compactedCollections_shouldBeUnmodifiable() {
+        Country germany = new CountryDictionary().compactDetails(dataset.details()).get(0);
+
+        assertThat(germany.getTranslations().keySet()).containsExactly("deu", "fra", "jpn");
+        assertThat(germany.getTranslations().get("fra").getCommon()).isEqualTo("Allemagne");
+        assertThat(germany.getTranslations().containsKey("xyz")).isFalse();
+        assertThatThrownBy(() -> germany.getTranslations().remove("fra"))
+                .isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> germany.getBorders().add("ESP")).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    public void compacting_shouldKeepUnknownCoordinatesInTheirPosition() {
+        // Given a country whose latitude is null
+        Country germany = dataset.details().get(0);
+        germany.setLatlng(Arrays.asList(null, 9.0));
+
+        new CountryDictionary().compactDetails(dataset.details());
+
+        // Then the longitude is still the second element
+        assertThat(germany.getLatlng()).containsExactly(null, 9.0);
+        assertThatThrownBy(() -> germany.getLatlng().set(0, 51.0)).isInstanceOf(UnsupportedOperationException.class);
+    }
+}
@@ -0,0 +1,64 @@
+package ie.tcd.scss.countryinfo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Tests for CountryDistanceMatrix, verifies the packed distances against computing each pair.
+ */
+public class CountryDistanceMatrixTest {
+
+    @Test
+    public void distances_shouldMatchComputingEachPair() throws IOException {
+        // Given the fixture countries
+        List<CountryRecord> countries = fixture();
+        CountryDistanceMatrix matrix = new CountryDistanceMatrix(countries);
+
+        // Then every pair holds the great-circle distance, in both directions
+        for (int a = 0; a < countries.size(); a++) {
+            for (int b = 0; b < countries.size(); b++) {
+                CountryRecord country1 = countries.get(a);
+                CountryRecord country2 = countries.get(b);
+                double capitals = CountryGeoIndex.distanceKm(
+                        country1.capitalLat(), country1.capitalLng(), country2.capitalLat(), country2.capitalLng());
+                double centroids = CountryGeoIndex.distanceKm(
+                        country1.latitude(), country1.longitude(), country2.latitude(), country2.longitude());
+                assertThat((double) matrix.capitalKm(a, b)).isCloseTo(capitals, within(0.01));
+                assertThat((double) matrix.centroidKm(a, b)).isCloseTo(centroids, within(0.01));
+                assertThat(matrix.capitalKm(a, b)).isEqualTo(matrix.capitalKm(b, a));
+            }
+        }
+        // 10 countries have 45 pairs, each stored once per matrix
+        assertThat(matrix.bytes()).isEqualTo(2 * 45 * Float.BYTES);
+    }
+
+    @Test
+    public void unknownCoordinates_shouldGiveNaN() throws IOException {
+        // Given a country without coordinates
+        List<CountryRecord> countries = new ArrayList<>(fixture());
+        CountryRecord ireland = countries.get(4);
+        countries.set(4, new CountryRecord(ireland.commonName(), ireland.officialName(), ireland.cca2(),
+                ireland.cca3(), ireland.ccn3(), ireland.region(), ireland.subregion(), ireland.population(),
+                ireland.area(), Double.NaN, Double.NaN, ireland.capitalLat(), ireland.capitalLng(),
+                ireland.languages(), ireland.currencyCodes(), ireland.borders()));
+        CountryDistanceMatrix matrix = new CountryDistanceMatrix(countries);
+
+        // Then only its centroid distances are unknown
+        assertThat(matrix.centroidKm(4, 5)).isNaN();
+        assertThat(matrix.centroidKm(4, 4)).isZero();
+        assertThat(matrix.capitalKm(4, 5)).isBetween(450f, 480f);
+    }
+
+    private static List<CountryRecord> fixture() throws IOException {
+        try (InputStream in = CountryDistanceMatrixTest.class.getResourceAsStream("/stub/countries.json")) {
+            return new CountryStreamReader().read(in);
+        }
+    }
+}
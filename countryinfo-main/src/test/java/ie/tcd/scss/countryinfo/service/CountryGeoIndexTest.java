@@ -0,0 +1,99 @@
+package ie.tcd.scss.countryinfo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Tests for CountryGeoIndex, verifies the k-d tree against comparing the distances to all points.
+ */
+public class CountryGeoIndexTest {
+
+    @Test
+    public void distanceKm_shouldBeTheGreatCircleDistance() {
+        // Dublin to London, about 464 km
+        assertThat(CountryGeoIndex.distanceKm(53.35, -6.26, 51.51, -0.13)).isCloseTo(464, within(2.0));
+        // across the antimeridian and over the pole
+        assertThat(CountryGeoIndex.distanceKm(0, 179.5, 0, -179.5)).isCloseTo(111.2, within(0.1));
+        assertThat(CountryGeoIndex.distanceKm(89, 0, 89, 180)).isCloseTo(222.4, within(0.1));
+    }
+
+    @Test
+    public void queries_shouldMatchComparingAllPoints() {
+        // Given random points, with some duplicates and some unknown coordinates
+        Random random = new Random(42);
+        double[] latitudes = new double[500];
+        double[] longitudes = new double[500];
+        for (int i = 0; i < latitudes.length; i++) {
+            latitudes[i] = Math.toDegrees(Math.asin(2 * random.nextDouble() - 1));
+            longitudes[i] = random.nextDouble() * 360 - 180;
+        }
+        latitudes[7] = latitudes[3];
+        longitudes[7] = longitudes[3];
+        latitudes[11] = Double.NaN;
+        CountryGeoIndex index = new CountryGeoIndex(latitudes, longitudes);
+        assertThat(index.size()).isEqualTo(499);
+
+        for (int query = 0; query < 200; query++) {
+            double latitude = random.nextDouble() * 180 - 90;
+            double longitude = random.nextDouble() * 360 - 180;
+            int[] expected = byDistance(latitudes, longitudes, latitude, longitude);
+
+            // When querying the k nearest points and the points within a radius
+            CountryGeoIndex.Result nearest = index.nearest(latitude, longitude, 10);
+            double radiusKm = random.nextDouble() * 3000;
+            CountryGeoIndex.Result inRadius = index.within(latitude, longitude, radiusKm);
+
+            // Then the points are the same, in the same order, as when comparing all distances
+            assertThat(nearest.ordinals()).containsExactly(Arrays.copyOf(expected, 10));
+            int[] expectedInRadius = Arrays.stream(expected)
+                    .filter(i -> CountryGeoIndex.distanceKm(latitudes[i], longitudes[i], latitude, longitude) <= radiusKm)
+                    .toArray();
+            assertThat(inRadius.ordinals()).containsExactly(expectedInRadius);
+            for (int i = 0; i < nearest.ordinals().length; i++) {
+                int ordinal = nearest.ordinals()[i];
+                assertThat(nearest.distancesKm()[i]).isCloseTo(
+                        CountryGeoIndex.distanceKm(latitudes[ordinal], longitudes[ordinal], latitude, longitude),
+                        within(1e-6));
+            }
+        }
+    }
+
+    @Test
+    public void nearest_shouldFindTheFixtureCapitals() throws IOException {
+        List<CountryRecord> countries;
+        try (InputStream in = CountryGeoIndexTest.class.getResourceAsStream("/stub/countries.json")) {
+            countries = new CountryStreamReader().read(in);
+        }
+        CountryGeoIndex capitals = new CountryGeoIndex(
+                countries.stream().mapToDouble(CountryRecord::capitalLat).toArray(),
+                countries.stream().mapToDouble(CountryRecord::capitalLng).toArray());
+
+        // from Strasbourg: Bern, Paris, Berlin
+        CountryGeoIndex.Result nearest = capitals.nearest(48.58, 7.75, 3);
+        assertThat(Arrays.stream(nearest.ordinals()).mapToObj(i -> countries.get(i).commonName()))
+                .containsExactly("Switzerland", "France", "Germany");
+        assertThat(capitals.nearest(48.58, 7.75, 100).ordinals()).hasSize(countries.size());
+        assertThat(capitals.within(48.58, 7.75, 10).ordinals()).isEmpty();
+    }
+
+    private static int[] byDistance(double[] latitudes, double[] longitudes, double latitude, double longitude) {
+        return IntStream.range(0, latitudes.length)
+                .filter(i -> !Double.isNaN(latitudes[i]))
+                .boxed()
+                .sorted(Comparator.<Integer>comparingDouble(
+                                i -> CountryGeoIndex.distanceKm(latitudes[i], longitudes[i], latitude, longitude))
+                        .thenComparingInt(i -> i))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+}
@@ -0,0 +1,78 @@
+package ie.tcd.scss.countryinfo.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for CountryNameIndex, verifies the results against a linear scan over the names.
+ */
+public class CountryNameIndexTest {
+
+    private List<CountryRecord> countries;
+    private CountryNameIndex index;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        try (InputStream in = CountryNameIndexTest.class.getResourceAsStream("/stub/countries.json")) {
+            countries = new CountryStreamReader().read(in);
+        }
+        index = new CountryNameIndex(countries, new CountryColumns(countries));
+    }
+
+    @Test
+    public void search_shouldMatchCaseInsensitivelyByPopulation() {
+        assertThat(names(index.search("STAN"))).containsExactly("Pakistan", "Afghanistan", "Uzbekistan");
+        assertThat(names(index.search("an"))).startsWith("Pakistan", "Germany", "France");
+        assertThat(index.search("xyz")).isEmpty();
+        assertThat(index.search("")).hasSize(countries.size());
+    }
+
+    @Test
+    public void search_shouldAgreeWithLinearScan() {
+        // Given every substring of every name, in both cases, plus substrings that do not occur
+        Set<String> substrings = new LinkedHashSet<>(List.of("q", "zz", "kingdomx", "stanx"));
+        for (CountryRecord country : countries) {
+            String name = country.commonName();
+            for (int start = 0; start < name.length(); start++) {
+                for (int end = start + 1; end <= name.length(); end++) {
+                    substrings.add(name.substring(start, end));
+                    substrings.add(name.substring(start, end).toUpperCase(Locale.ROOT));
+                }
+            }
+        }
+
+        // Then the index finds the same countries in the same order as the previous filter and sort
+        for (String substring : substrings) {
+            assertThat(names(index.search(substring))).as(substring).isEqualTo(linearScan(substring));
+        }
+    }
+
+    @Test
+    public void shortSearch_shouldReturnTheSharedPostingList() {
+        assertThat(index.search("sta")).isSameAs(index.search("STA"));
+    }
+
+    private List<String> linearScan(String substring) {
+        String needle = substring.toLowerCase(Locale.ROOT);
+        return countries.stream()
+                .filter(country -> country.commonName().toLowerCase(Locale.ROOT).contains(needle))
+                .sorted(Comparator.comparingLong(CountryRecord::population).reversed())
+                .map(CountryRecord::commonName)
+                .toList();
+    }
+
+    private List<String> names(int[] ordinals) {
+        return Arrays.stream(ordinals).mapToObj(i -> countries.get(i).commonName()).toList();
+    }
+}
@@ -0,0 +1,66 @@
+package ie.tcd.scss.countryinfo.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ie.tcd.scss.countryinfo.domain.Country;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Conformance tests for CountryNameResolver: the countries it resolves for a list of names must be those the upstream
+ * {@code /name/} endpoint answered for the fixture countries, recorded in {@code stub/name-lookups.json} as cca3 codes
+ * in response order.
+ */
+public class CountryNameResolverTest {
+
+    private List<Country> countries;
+    private CountryNameResolver resolver;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        try (InputStream in = CountryNameResolverTest.class.getResourceAsStream("/stub/countries.json")) {
+            countries = new CountryStreamReader().readWithDetails(in).details();
+        }
+        resolver = new CountryNameResolver(countries);
+    }
+
+    @Test
+    public void resolve_shouldMatchRecordedUpstreamResponses() throws IOException {
+        JsonNode recorded;
+        try (InputStream in = CountryNameResolverTest.class.getResourceAsStream("/stub/name-lookups.json")) {
+            recorded = new ObjectMapper().readTree(in);
+        }
+
+        for (JsonNode lookup : recorded) {
+            String name = lookup.path("name").asText();
+            List<String> expected = new ArrayList<>();
+            lookup.path("cca3").forEach(code -> expected.add(code.asText()));
+
+            // the same countries in the same order, so the first match is the same country as well
+            assertThat(codes(resolver.resolve(name))).as(name).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void resolve_shouldFallBackToCodesOnlyWithoutNameMatch() {
+        // "AUT" is no part of any name of Austria, the upstream answers 404
+        assertThat(codes(resolver.resolve("aut"))).containsExactly("AUT");
+        assertThat(codes(resolver.resolve("CHN"))).containsExactly("CHN");
+        // "at" is part of several names, so it is not taken as the code of Austria
+        assertThat(codes(resolver.resolve("AT"))).contains("AUT", "CHE", "GBR");
+        assertThat(resolver.resolve("")).isEmpty();
+        assertThat(resolver.resolve("Germany\nFrance")).isEmpty();
+    }
+
+    private List<String> codes(int[] ordinals) {
+        return Arrays.stream(ordinals).mapToObj(i -> countries.get(i).getCca3()).toList();
+    }
+}
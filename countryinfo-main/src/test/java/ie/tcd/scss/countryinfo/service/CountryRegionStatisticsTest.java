@@ -0,0 +1,105 @@
+package ie.tcd.scss.countryinfo.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for CountryRegionStatistics, verifies the materialized statistics against computing them from the records.
+ */
+public class CountryRegionStatisticsTest {
+
+    private List<CountryRecord> countries;
+    private CountryColumns columns;
+    private CountryRegionStatistics statistics;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        try (InputStream in = CountryRegionStatisticsTest.class.getResourceAsStream("/stub/countries.json")) {
+            countries = new CountryStreamReader().read(in);
+        }
+        columns = new CountryColumns(countries);
+        statistics = new CountryRegionStatistics(columns, new CountryBitsetIndex(countries, columns));
+    }
+
+    @Test
+    public void statistics_shouldMatchComputingThemFromTheRecords() {
+        // Then every region and subregion of the fixture has the statistics of its countries
+        for (CountryRecord country : countries) {
+            assertMatches(statistics.region(columns.regionId(country.region())).raw(),
+                    member -> member.region().equals(country.region()));
+            assertMatches(statistics.subregion(columns.subregionId(country.subregion())).raw(),
+                    member -> member.subregion().equals(country.subregion()));
+        }
+    }
+
+    @Test
+    public void pretty_shouldFormatTheNumbers() {
+        // Given Western Europe: Germany, France and Switzerland
+        CountryRegionStatistics.Statistics westernEurope = statistics.subregion(columns.subregionId("western europe"));
+
+        // Then the pretty variant has the numbers with thousands separators, and the same frequencies
+        assertThat(westernEurope.pretty().get("totalPopulation")).isEqualTo("159,286,729");
+        assertThat(westernEurope.pretty().get("totalArea")).isEqualTo("950,093");
+        assertThat(westernEurope.pretty().get("averagePopulationDensity")).isEqualTo("167");
+        assertThat(westernEurope.pretty().get("mostCommonLanguages"))
+                .isSameAs(westernEurope.raw().get("mostCommonLanguages"));
+        assertThatThrownBy(() -> westernEurope.pretty().put("totalArea", "0"))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    public void unknownRegion_shouldHaveNoCountries() {
+        Map<String, Object> atlantis = statistics.region(columns.regionId("Atlantis")).raw();
+
+        assertThat(atlantis.get("totalPopulation")).isEqualTo(0.0);
+        assertThat((Double) atlantis.get("averagePopulationDensity")).isNaN();
+        assertThat((Map<?, ?>) atlantis.get("mostCommonLanguages")).isEmpty();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void assertMatches(Map<String, Object> actual, Predicate<CountryRecord> inGroup) {
+        List<CountryRecord> members = countries.stream().filter(inGroup).toList();
+        double population = members.stream().mapToDouble(CountryRecord::population).sum();
+        double area = members.stream().mapToDouble(CountryRecord::area).sum();
+        assertThat(actual.get("totalPopulation")).isEqualTo(population);
+        assertThat(actual.get("totalArea")).isEqualTo(area);
+        assertThat(actual.get("averagePopulationDensity")).isEqualTo(population / area);
+        assertTop((Map<String, Long>) actual.get("mostCommonLanguages"), counts(members, CountryRecord::languages));
+        assertTop((Map<String, Long>) actual.get("mostCommonCurrencies"), counts(members, CountryRecord::currencyCodes));
+    }
+
+    // the 5 most common, largest first, each with its count
+    private static void assertTop(Map<String, Long> top, Map<String, Long> counts) {
+        assertThat(top).hasSize(Math.min(CountryRegionStatistics.TOP, counts.size()));
+        long previous = Long.MAX_VALUE;
+        for (Map.Entry<String, Long> entry : top.entrySet()) {
+            assertThat(entry.getValue()).isEqualTo(counts.get(entry.getKey())).isLessThanOrEqualTo(previous);
+            previous = entry.getValue();
+        }
+        // and none left out is more common than the least common one in
+        long smallest = previous;
+        assertThat(counts.values().stream().filter(count -> count > smallest).count())
+                .isLessThanOrEqualTo(top.size());
+    }
+
+    private static Map<String, Long> counts(List<CountryRecord> members, Function<CountryRecord, List<String>> values) {
+        Map<String, Long> counts = new HashMap<>();
+        for (CountryRecord member : members) {
+            for (String value : values.apply(member)) {
+                counts.merge(value, 1L, Long::sum);
+            }
+        }
+        return counts;
+    }
+}
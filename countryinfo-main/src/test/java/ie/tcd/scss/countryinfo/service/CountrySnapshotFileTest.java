@@ -0,0 +1,146 @@
+package ie.tcd.scss.countryinfo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for CountrySnapshotFile, verifies that snapshots survive a round trip and that unusable files are ignored.
+ */
+public class CountrySnapshotFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void writeThenRead_shouldRestoreTheSnapshot() throws IOException {
+        // Given a snapshot of the fixture countries
+        CountrySnapshot snapshot = new CountrySnapshot(7, Instant.parse("2023-11-01T10:15:30Z"), fixtureCountries(),
+                new UpstreamValidators("\"5f3a\"", null, "9c1e"));
+        CountrySnapshotFile file = new CountrySnapshotFile(directory.resolve("data/countries.snapshot"));
+
+        // When writing it and reading it back
+        file.write(snapshot);
+        CountrySnapshot restored = file.read();
+
+        // Then version, load time, validators and all records are unchanged
+        assertThat(restored.getVersion()).isEqualTo(7);
+        assertThat(restored.getLoadedAt()).isEqualTo(snapshot.getLoadedAt());
+        assertThat(restored.getValidators()).isEqualTo(snapshot.getValidators());
+        assertThat(restored.getCountries()).isEqualTo(snapshot.getCountries());
+        assertThat(restored.getCodeIndex().find("AUT").commonName()).isEqualTo("Austria");
+    }
+
+    @Test
+    public void writeThenRead_shouldRestoreTheFullCountries() throws IOException {
+        // Given a snapshot that holds the full countries
+        CountryStreamReader.Dataset dataset;
+        try (InputStream in = CountrySnapshotFileTest.class.getResourceAsStream("/stub/countries.json")) {
+            dataset = new CountryStreamReader().readWithDetails(in);
+        }
+        CountrySnapshot snapshot = new CountrySnapshot(3, Instant.now(), dataset.countries(), dataset.details(),
+                UpstreamValidators.NONE);
+        CountrySnapshotFile file = new CountrySnapshotFile(directory.resolve("countries.snapshot"));
+
+        // When writing it and reading it back
+        file.write(snapshot);
+        CountrySnapshot restored = file.read();
+
+        // Then the restored snapshot has all their attributes and resolves names, including native names, without the
+        // upstream
+        assertThat(restored.hasDetails()).isTrue();
+        assertThat(restored.getDetails()).hasSize(10);
+        ObjectMapper json = new ObjectMapper();
+        assertThat(json.writeValueAsString(restored.getDetails()))
+                .isEqualTo(json.writeValueAsString(snapshot.getDetails()));
+        assertThat(restored.findByName("Österreich")).singleElement()
+                .satisfies(country -> assertThat(country.getFlags().getPng()).isEqualTo(
+                        snapshot.findByName("Austria").get(0).getFlags().getPng()));
+    }
+
+    @Test
+    public void writeHeader_shouldKeepTheCountries() throws IOException {
+        // Given a persisted snapshot that is revalidated later, with a new ETag
+        CountrySnapshot snapshot = new CountrySnapshot(7, Instant.parse("2023-11-01T10:15:30Z"), fixtureCountries(),
+                new UpstreamValidators("\"5f3a\"", null, "9c1e"));
+        CountrySnapshotFile file = new CountrySnapshotFile(directory.resolve("countries.snapshot"));
+        file.write(snapshot);
+        CountrySnapshot revalidated = snapshot.revalidated(Instant.parse("2023-11-01T11:15:30Z"),
+                new UpstreamValidators("\"5f3a-longer\"", "Wed, 01 Nov 2023 11:00:00 GMT", "9c1e"));
+
+        // When writing only its header
+        file.writeHeader(revalidated);
+        CountrySnapshot restored = file.read();
+
+        // Then the file has the new load time and validators, and the same countries
+        assertThat(restored.getVersion()).isEqualTo(7);
+        assertThat(restored.getLoadedAt()).isEqualTo(revalidated.getLoadedAt());
+        assertThat(restored.getValidators()).isEqualTo(revalidated.getValidators());
+        assertThat(restored.getCountries()).isEqualTo(snapshot.getCountries());
+    }
+
+    @Test
+    public void writeHeader_ofAnotherVersion_shouldWriteTheWholeSnapshot() throws IOException {
+        // Given a file that holds an older version, and one that is missing
+        CountrySnapshotFile file = new CountrySnapshotFile(directory.resolve("countries.snapshot"));
+        file.write(new CountrySnapshot(6, Instant.now(), List.of()));
+        CountrySnapshotFile missing = new CountrySnapshotFile(directory.resolve("missing.snapshot"));
+        CountrySnapshot snapshot = new CountrySnapshot(7, Instant.now(), fixtureCountries());
+
+        // When writing only the header of a snapshot
+        file.writeHeader(snapshot);
+        missing.writeHeader(snapshot);
+
+        // Then both files hold the whole snapshot
+        assertThat(file.read().getCountries()).isEqualTo(snapshot.getCountries());
+        assertThat(missing.read().getCountries()).isEqualTo(snapshot.getCountries());
+    }
+
+    @Test
+    public void read_shouldIgnoreMissingOrDisabledFile() {
+        assertThat(new CountrySnapshotFile(directory.resolve("missing.snapshot")).read()).isNull();
+        assertThat(new CountrySnapshotFile((Path) null).read()).isNull();
+    }
+
+    @Test
+    public void read_shouldIgnoreOtherFormatVersion() throws IOException {
+        // Given a file written with a format version this build does not know
+        Path path = directory.resolve("countries.snapshot");
+        new CountrySnapshotFile(path).write(new CountrySnapshot(1, Instant.now(), fixtureCountries()));
+        byte[] bytes = Files.readAllBytes(path);
+        ByteBuffer.wrap(bytes).putInt(4, CountrySnapshotFile.FORMAT_VERSION + 1);
+        Files.write(path, bytes);
+
+        // When reading it, then it is ignored
+        assertThat(new CountrySnapshotFile(path).read()).isNull();
+    }
+
+    @Test
+    public void read_shouldIgnoreTruncatedFile() throws IOException {
+        // Given a file that was cut off
+        Path path = directory.resolve("countries.snapshot");
+        new CountrySnapshotFile(path).write(new CountrySnapshot(1, Instant.now(), fixtureCountries()));
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length / 2));
+
+        // When reading it, then it is ignored
+        assertThat(new CountrySnapshotFile(path).read()).isNull();
+    }
+
+    private static List<CountryRecord> fixtureCountries() throws IOException {
+        try (InputStream in = CountrySnapshotFileTest.class.getResourceAsStream("/stub/countries.json")) {
+            return new CountryStreamReader().read(in);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package ie.tcd.scss.countryinfo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for CountryStreamReader, verifies the coordinates read from well-formed and malformed arrays and the merge of
+ * the fields requested in two parts.
+ */
+public class CountryStreamReaderTest {
+
+    @Test
+    public void coordinates_shouldBeReadFromTwoNumbers() throws IOException {
+        CountryRecord country = read("[53.0, -8.0]", "[53.33, -6.25]");
+
+        assertThat(country.latitude()).isEqualTo(53.0);
+        assertThat(country.longitude()).isEqualTo(-8.0);
+        assertThat(country.capitalLat()).isEqualTo(53.33);
+        assertThat(country.capitalLng()).isEqualTo(-6.25);
+    }
+
+    @Test
+    public void malformedCoordinates_shouldBeUnknown() throws IOException {
+        // a null, a string, an object, a missing or an extra element instead of two numbers
+        for (String latlng : List.of("[null, 12.5]", "[\"x\", 12.5]", "[{}, 12.5]", "[12.5]", "[1, 2, 3]", "\"1,2\"")) {
+            CountryRecord country = read(latlng, latlng);
+
+            assertThat(country.latitude()).as(latlng).isNaN();
+            assertThat(country.longitude()).as(latlng).isNaN();
+            assertThat(country.capitalLat()).as(latlng).isNaN();
+            assertThat(country.capitalLng()).as(latlng).isNaN();
+        }
+    }
+
+    @Test
+    public void fieldParts_shouldCoverTheFieldsWithinTheUpstreamLimit() {
+        assertThat(CountryStreamReader.COUNTRY_FIELDS.union(CountryStreamReader.LOCATION_FIELDS))
+                .isEqualTo(CountryStreamReader.FIELDS);
+        for (CountryFields part : List.of(CountryStreamReader.COUNTRY_FIELDS, CountryStreamReader.LOCATION_FIELDS)) {
+            assertThat(part.toQueryValue().split(",")).hasSizeLessThanOrEqualTo(CountryStreamReader.MAX_FIELDS)
+                    .contains("cca3");
+        }
+    }
+
+    @Test
+    public void merge_shouldAddTheLocationsByCode() throws IOException {
+        // Given the two parts, the locations in another order and one of them missing
+        List<CountryRecord> countries = readAll("[{\"name\": {\"common\": \"Ireland\"}, \"cca3\": \"IRL\"},"
+                + " {\"name\": {\"common\": \"France\"}, \"cca3\": \"FRA\", \"population\": 67391582},"
+                + " {\"name\": {\"common\": \"Atlantis\"}, \"cca3\": \"ATL\"}]");
+        List<CountryRecord> locations = readAll("[{\"cca3\": \"FRA\", \"latlng\": [46.0, 2.0], \"borders\": [\"DEU\"]},"
+                + " {\"cca3\": \"IRL\", \"latlng\": [53.0, -8.0], \"capitalInfo\": {\"latlng\": [53.33, -6.25]}}]");
+
+        List<CountryRecord> merged = CountryStreamReader.merge(countries, locations);
+
+        // Then the countries keep their order and attributes, with the borders and coordinates of their code
+        assertThat(merged).extracting(CountryRecord::commonName).containsExactly("Ireland", "France", "Atlantis");
+        assertThat(merged.get(0).capitalLng()).isEqualTo(-6.25);
+        assertThat(merged.get(1).population()).isEqualTo(67391582L);
+        assertThat(merged.get(1).latitude()).isEqualTo(46.0);
+        assertThat(merged.get(1).borders()).containsExactly("DEU");
+        assertThat(merged.get(2).latitude()).isNaN();
+        assertThat(merged.get(2).borders()).isEmpty();
+    }
+
+    private static List<CountryRecord> readAll(String json) throws IOException {
+        return new CountryStreamReader().read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static CountryRecord read(String latlng, String capitalLatlng) throws IOException {
+        String json = "[{\"name\": {\"common\": \"Ireland\"}, \"cca3\": \"IRL\", \"latlng\": " + latlng
+                + ", \"capitalInfo\": {\"latlng\": " + capitalLatlng + "}}]";
+        List<CountryRecord> countries = readAll(json);
+        assertThat(countries).hasSize(1);
+        return countries.get(0);
+    }
+}
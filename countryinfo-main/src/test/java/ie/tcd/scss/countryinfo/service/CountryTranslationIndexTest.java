@@ -0,0 +1,62 @@
+package ie.tcd.scss.countryinfo.service;
+
+import ie.tcd.scss.countryinfo.domain.Country;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for CountryTranslationIndex, verifies lookups by names in the languages of the fixture countries.
+ */
+public class CountryTranslationIndexTest {
+
+    private List<Country> countries;
+    private CountryTranslationIndex index;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        try (InputStream in = CountryTranslationIndexTest.class.getResourceAsStream("/stub/countries.json")) {
+            countries = new CountryStreamReader().readWithDetails(in).details();
+        }
+        index = new CountryTranslationIndex(countries);
+    }
+
+    @Test
+    public void find_shouldResolveNamesInAnyLanguage() {
+        assertThat(names("Allemagne")).containsExactly("Germany");
+        assertThat(names("Deutschland")).containsExactly("Germany");
+        assertThat(names("ドイツ")).containsExactly("Germany");
+        assertThat(names("中华人民共和国")).containsExactly("China");
+        assertThat(names("Republic of Ireland")).containsExactly("Ireland");
+        assertThat(index.find("Allem")).as("only complete names").isEmpty();
+        assertThat(index.find(" ")).isEmpty();
+    }
+
+    @Test
+    public void find_shouldFoldCaseAndDiacritics() {
+        assertThat(names("OUZBEKISTAN")).containsExactly("Uzbekistan");
+        assertThat(names("osterreich")).containsExactly("Austria");
+        assertThat(names("Vereinigtes Konigreich")).containsExactly("United Kingdom");
+        // decomposed input, as some keyboards send it
+        assertThat(names("Österreich")).containsExactly("Austria");
+        // the Japanese voicing mark is part of the name, not a diacritic
+        assertThat(index.find("トイツ")).isEmpty();
+    }
+
+    @Test
+    public void find_shouldReportTheLanguagesOfTheName() {
+        // English and native English name, German and French translation; the Urdu name is written differently
+        assertThat(index.find("Pakistan")).singleElement()
+                .satisfies(match -> assertThat(match.languages()).containsExactly("eng", "deu", "fra"));
+        assertThat(index.find("Allemagne").get(0).languages()).containsExactly("fra");
+    }
+
+    private List<String> names(String name) {
+        return index.find(name).stream().map(match -> countries.get(match.ordinal()).getName().getCommon()).toList();
+    }
+}
@@ -0,0 +1,135 @@
+package ie.tcd.scss.countryinfo.service;
+
+import ie.tcd.scss.countryinfo.config.CountryInfoProperties;
+import ie.tcd.scss.countryinfo.config.HttpClientConfig;
+import ie.tcd.scss.countryinfo.domain.Country;
+import ie.tcd.scss.countryinfo.support.StubUpstream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for RestCountriesClient, verifies that concurrent identical requests are coalesced into one upstream request.
+ */
+public class RestCountriesClientTest {
+
+    private static final int CALLERS_PER_KEY = 16;
+
+    private StubUpstream upstream;
+    private RestCountriesClient client;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        upstream = StubUpstream.start();
+        upstream.setLatency(Duration.ofMillis(300));
+        CountryInfoProperties properties = new CountryInfoProperties();
+        properties.getApi().setBaseUrl(upstream.baseUrl());
+        client = new RestCountriesClient(new RestTemplate(), properties);
+        executor = Executors.newFixedThreadPool(3 * CALLERS_PER_KEY);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        upstream.close();
+    }
+
+    @Test
+    public void concurrentRequests_shouldHitUpstreamOncePerKey() throws Exception {
+        // Given many callers per key, released at the same moment
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Country[]>> france = submit(start, () -> client.fetchByName("France"));
+        List<Future<Country[]>> germany = submit(start, () -> client.fetchByName("Germany"));
+        List<Future<List<CountryRecord>>> all = submit(start, client::fetchAll);
+
+        // When they all call the slow upstream
+        start.countDown();
+
+        // Then every caller gets the result, but each URL was requested only once
+        for (Future<Country[]> result : france) {
+            assertThat(result.get(10, TimeUnit.SECONDS)[0].getName().getCommon()).isEqualTo("France");
+        }
+        for (Future<Country[]> result : germany) {
+            assertThat(result.get(10, TimeUnit.SECONDS)[0].getName().getCommon()).isEqualTo("Germany");
+        }
+        for (Future<List<CountryRecord>> result : all) {
+            assertThat(result.get(10, TimeUnit.SECONDS)).hasSize(10);
+        }
+        assertThat(upstream.hits("/name/France")).isEqualTo(1);
+        assertThat(upstream.hits("/name/Germany")).isEqualTo(1);
+        assertThat(upstream.hits("/all")).isEqualTo(1);
+        assertThat(client.getCoalescedCount()).isEqualTo(3 * (CALLERS_PER_KEY - 1));
+    }
+
+    @Test
+    public void concurrentRequests_shouldAllReceiveTheUpstreamError() {
+        // Given many callers for an unknown country
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Country[]>> results = submit(start, () -> client.fetchByName("Atlantis"));
+
+        // When they all call the slow upstream
+        start.countDown();
+
+        // Then every caller gets the NOT_FOUND error of the single upstream request
+        for (Future<Country[]> result : results) {
+            assertThatThrownBy(() -> result.get(10, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(HttpClientErrorException.NotFound.class);
+        }
+        assertThat(upstream.hits("/name/Atlantis")).isEqualTo(1);
+    }
+
+    @Test
+    public void sequentialRequests_shouldNotBeCoalesced() {
+        // When requesting the same country twice, one after the other
+        client.fetchByName("Austria");
+        client.fetchByName("Austria");
+
+        // Then both reach the upstream, as nothing was in flight for the second one
+        assertThat(upstream.hits("/name/Austria")).isEqualTo(2);
+    }
+
+    @Test
+    public void pooledClient_shouldTimeOutOnSlowUpstream() {
+        // Given the configured pooled client with a read timeout below the upstream latency
+        CountryInfoProperties properties = new CountryInfoProperties();
+        properties.getApi().setBaseUrl(upstream.baseUrl());
+        properties.getHttp().setReadTimeout(Duration.ofMillis(100));
+        HttpClientConfig config = new HttpClientConfig();
+        RestCountriesClient pooledClient = new RestCountriesClient(
+                config.restTemplate(config.upstreamHttpClient(properties)), properties);
+
+        // When requesting a country, then the request fails instead of waiting for the upstream
+        assertThatThrownBy(() -> pooledClient.fetchByName("France"))
+                .isInstanceOf(ResourceAccessException.class);
+    }
+
+    private <T> List<Future<T>> submit(CountDownLatch start, Supplier<T> call) {
+        List<Future<T>> futures = new ArrayList<>();
+        for (int i = 0; i < CALLERS_PER_KEY; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return call.get();
+            }));
+        }
+        return futures;
+    }
+}
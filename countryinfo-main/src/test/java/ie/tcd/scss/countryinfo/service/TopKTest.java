@@ -0,0 +1,66 @@
+package ie.tcd.scss.countryinfo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for TopK, verifies the heap selection against sorting everything and taking the first k.
+ */
+public class TopKTest {
+
+    @Test
+    public void largestKeys_shouldAgreeWithStableSort() {
+        // Given keys with many ties
+        Random random = new Random(42);
+        long[] keys = random.longs(500, 0, 50).toArray();
+        double[] doubles = random.doubles(500).map(d -> Math.floor(d * 40)).toArray();
+
+        for (int k : new int[]{1, 5, 17, 499, 500, 800}) {
+            // Then the heap picks the same ordinals in the same order, ties by ascending ordinal
+            assertThat(TopK.largest(keys, k)).as("k=" + k).containsExactly(sorted(keys.length, k,
+                    Comparator.comparingLong((Integer i) -> keys[i]).reversed()));
+            assertThat(TopK.largest(doubles, k)).as("k=" + k).containsExactly(sorted(doubles.length, k,
+                    Comparator.comparingDouble((Integer i) -> doubles[i]).reversed()));
+        }
+        assertThat(TopK.largest(keys, 0)).isEmpty();
+    }
+
+    @Test
+    public void largestCounts_shouldAgreeWithThePreviousGetTopN() {
+        // Given frequency maps with ties
+        Random random = new Random(7);
+        for (int round = 0; round < 50; round++) {
+            Map<String, Long> counts = new HashMap<>();
+            for (int i = 0; i < random.nextInt(60); i++) {
+                counts.put("key" + random.nextInt(100), (long) random.nextInt(6));
+            }
+
+            // Then the entries and their order are the same as with the sort and limit
+            for (int n : new int[]{1, 5, 100}) {
+                assertThat(TopK.largest(counts, n)).containsExactlyEntriesOf(previousGetTopN(counts, n));
+            }
+        }
+    }
+
+    private static int[] sorted(int n, int k, Comparator<Integer> comparator) {
+        return IntStream.range(0, n).boxed().sorted(comparator).limit(k).mapToInt(Integer::intValue).toArray();
+    }
+
+    // previous implementation of CountryService.getTopN
+    private static Map<String, Long> previousGetTopN(Map<String, Long> map, int n) {
+        return map.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(n)
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (e1, e2) -> e1, LinkedHashMap::new));
+    }
+}
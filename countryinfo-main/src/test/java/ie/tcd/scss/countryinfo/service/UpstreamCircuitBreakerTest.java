@@ -0,0 +1,129 @@
+package ie.tcd.scss.countryinfo.service;
+
+import ie.tcd.scss.countryinfo.support.MutableClock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for UpstreamCircuitBreaker, verifies the transitions between closed, open and half-open.
+ */
+public class UpstreamCircuitBreakerTest {
+
+    private static final Duration OPEN_DURATION = Duration.ofSeconds(30);
+
+    private MutableClock clock;
+    private UpstreamCircuitBreaker breaker;
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2023-11-01T10:00:00Z"));
+        breaker = new UpstreamCircuitBreaker(3, Duration.ofMillis(200), OPEN_DURATION, clock);
+    }
+
+    @Test
+    public void consecutiveFailures_shouldOpenTheBreaker() {
+        // Given as many failing calls as the threshold
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> breaker.execute(this::failingCall)).isInstanceOf(HttpServerErrorException.class);
+        }
+
+        // When calling again, then the call is rejected without reaching the upstream
+        assertThat(breaker.getState()).isEqualTo(UpstreamCircuitBreaker.State.OPEN);
+        assertThatThrownBy(() -> breaker.execute(this::successfulCall)).isInstanceOf(UpstreamUnavailableException.class);
+        assertThat(calls.get()).isEqualTo(3);
+        assertThat(breaker.getStats().rejections()).isEqualTo(1);
+    }
+
+    @Test
+    public void successfulTrialCall_shouldCloseTheBreaker() {
+        // Given an open breaker
+        openBreaker();
+
+        // When the open duration has passed and the trial call succeeds
+        clock.advance(OPEN_DURATION);
+        String result = breaker.execute(this::successfulCall);
+
+        // Then the breaker is closed again
+        assertThat(result).isEqualTo("ok");
+        assertThat(breaker.getState()).isEqualTo(UpstreamCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void failedTrialCall_shouldReopenTheBreaker() {
+        // Given an open breaker
+        openBreaker();
+
+        // When the open duration has passed and the trial call fails
+        clock.advance(OPEN_DURATION);
+        assertThatThrownBy(() -> breaker.execute(this::failingCall)).isInstanceOf(HttpServerErrorException.class);
+
+        // Then the breaker opens again right away, without waiting for the threshold
+        assertThat(breaker.getState()).isEqualTo(UpstreamCircuitBreaker.State.OPEN);
+        assertThat(breaker.getStats().opens()).isEqualTo(2);
+    }
+
+    @Test
+    public void slowCalls_shouldCountAsFailures() {
+        // When the upstream answers, but slower than the slow call threshold
+        for (int i = 0; i < 3; i++) {
+            breaker.execute(() -> {
+                sleep(Duration.ofMillis(250));
+                return successfulCall();
+            });
+        }
+
+        // Then the breaker opens
+        assertThat(breaker.getState()).isEqualTo(UpstreamCircuitBreaker.State.OPEN);
+        assertThat(breaker.getStats().slowCalls()).isEqualTo(3);
+    }
+
+    @Test
+    public void clientErrors_shouldNotCountAsFailures() {
+        // When the upstream repeatedly answers NOT_FOUND, e.g. for unknown names
+        for (int i = 0; i < 5; i++) {
+            assertThatThrownBy(() -> breaker.execute(() -> {
+                throw HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", null, null, null);
+            })).isInstanceOf(HttpClientErrorException.NotFound.class);
+        }
+
+        // Then the breaker stays closed, the upstream is working
+        assertThat(breaker.getState()).isEqualTo(UpstreamCircuitBreaker.State.CLOSED);
+        assertThat(breaker.getStats().failures()).isZero();
+    }
+
+    private void openBreaker() {
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> breaker.execute(this::failingCall)).isInstanceOf(HttpServerErrorException.class);
+        }
+        assertThat(breaker.getState()).isEqualTo(UpstreamCircuitBreaker.State.OPEN);
+    }
+
+    private String successfulCall() {
+        calls.incrementAndGet();
+        return "ok";
+    }
+
+    private String failingCall() {
+        calls.incrementAndGet();
+        throw HttpServerErrorException.create(HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable", null, null, null);
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package ie.tcd.scss.countryinfo.support;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures the bytes allocated by the current thread, for the opt-in benchmarks. Relies on the HotSpot extension of
+ * ThreadMXBean.
+ */
+public final class Allocations {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private Allocations() {
+    }
+
+    /**
+     * Runs the operation {@code iterations} times and returns the average number of bytes it allocated per run.
+     */
+    public static long bytesPerRun(int iterations, Runnable operation) {
+        long threadId = Thread.currentThread().getId();
+        long before = THREADS.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < iterations; i++) {
+            operation.run();
+        }
+        return (THREADS.getThreadAllocatedBytes(threadId) - before) / iterations;
+    }
+}
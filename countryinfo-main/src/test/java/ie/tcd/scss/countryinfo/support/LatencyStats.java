@@ -0,0 +1,58 @@
+package ie.tcd.scss.countryinfo.support;
+
+import java.util.Arrays;
+
+/**
+ * Simple latency measurement for the opt-in benchmarks: runs an operation repeatedly and reports percentiles.
+ */
+public final class LatencyStats {
+
+    private final long[] nanos;
+
+    private LatencyStats(long[] nanos) {
+        this.nanos = nanos;
+        Arrays.sort(this.nanos);
+    }
+
+    /**
+     * Runs the operation {@code warmup} times without measuring, then {@code iterations} times with measuring.
+     */
+    public static LatencyStats measure(int warmup, int iterations, Runnable operation) {
+        for (int i = 0; i < warmup; i++) {
+            operation.run();
+        }
+        long[] nanos = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            operation.run();
+            nanos[i] = System.nanoTime() - start;
+        }
+        return new LatencyStats(nanos);
+    }
+
+    /**
+     * Wraps latencies measured elsewhere, e.g. of concurrent requests.
+     */
+    public static LatencyStats of(long[] nanos) {
+        return new LatencyStats(nanos.clone());
+    }
+
+    /**
+     * @param percentile A value between 0 and 100.
+     * @return The latency at the given percentile, in milliseconds.
+     */
+    public double percentileMillis(double percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * nanos.length) - 1;
+        return nanos[Math.max(0, Math.min(index, nanos.length - 1))] / 1_000_000.0;
+    }
+
+    public double meanMillis() {
+        return Arrays.stream(nanos).average().orElse(0) / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("mean=%.3fms p50=%.3fms p99=%.3fms (n=%d)",
+                meanMillis(), percentileMillis(50), percentileMillis(99), nanos.length);
+    }
+}
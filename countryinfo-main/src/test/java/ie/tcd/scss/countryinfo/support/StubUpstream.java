@@ -0,0 +1,273 @@
+package ie.tcd.scss.countryinfo.support;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal local stand-in for the REST Countries API, serving the fixture in {@code stub/countries.json}. Supports
+ * {@code /v3.1/all} (with an ETag and conditional requests) and {@code /v3.1/name/{name}} including the {@code fields}
+ * parameter, counts the requests per path, records the requested fields and can inject latency and errors, so tests
+ * can verify how often (and how slowly) the application talks to its upstream and how it copes with an upstream in
+ * trouble.
+ */
+public class StubUpstream implements AutoCloseable {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    // the upstream rejects requests for all countries with more fields
+    private static final int MAX_ALL_FIELDS = 10;
+
+    private final HttpServer server;
+    private final ArrayNode countries;
+    private final Map<String, AtomicInteger> hits = new ConcurrentHashMap<>();
+    private final Map<String, List<String>> requestedFields = new ConcurrentHashMap<>();
+    private volatile Duration latency = Duration.ZERO;
+    private volatile int failureStatus;
+    private final Map<String, Integer> pathFailures = new ConcurrentHashMap<>();
+    private volatile boolean conditionalRequests = true;
+
+    private StubUpstream(ArrayNode countries) throws IOException {
+        this.countries = countries;
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        this.server.setExecutor(Executors.newCachedThreadPool());
+        this.server.createContext("/v3.1/", this::handle);
+    }
+
+    /**
+     * Starts a stub on a free local port, serving the default fixture.
+     */
+    public static StubUpstream start() {
+        try (InputStream in = StubUpstream.class.getResourceAsStream("/stub/countries.json")) {
+            StubUpstream stub = new StubUpstream((ArrayNode) MAPPER.readTree(in));
+            stub.server.start();
+            return stub;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return The base URL to use for {@code countryinfo.api.base-url}.
+     */
+    public String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + "/v3.1";
+    }
+
+    /**
+     * Delays every response by the given duration.
+     */
+    public void setLatency(Duration latency) {
+        this.latency = latency;
+    }
+
+    /**
+     * Answers every request with the given error status, e.g. 503, instead of the fixture data.
+     *
+     * @param status The HTTP status to respond with, or 0 to serve the fixture again.
+     */
+    public void setFailureStatus(int status) {
+        this.failureStatus = status;
+    }
+
+    /**
+     * Answers the requests for one path with the given error status, e.g. only "/all" while the lookups by name work.
+     *
+     * @param path   The request path below {@code /v3.1}, e.g. "/all".
+     * @param status The HTTP status to respond with, or 0 to serve the fixture again.
+     */
+    public void setFailureStatus(String path, int status) {
+        if (status != 0) {
+            pathFailures.put(path, status);
+        } else {
+            pathFailures.remove(path);
+        }
+    }
+
+    /**
+     * @param enabled False to behave like an upstream without ETags, always sending the full body.
+     */
+    public void setConditionalRequests(boolean enabled) {
+        this.conditionalRequests = enabled;
+    }
+
+    /**
+     * Changes the population of a country in the served data, e.g. to make the next refresh see new data.
+     */
+    public void setPopulation(String commonName, long population) {
+        for (JsonNode country : countries) {
+            if (country.path("name").path("common").asText().equals(commonName)) {
+                ((ObjectNode) country).put("population", population);
+            }
+        }
+    }
+
+    /**
+     * @param path The request path below {@code /v3.1}, e.g. "/all" or "/name/France".
+     * @return The number of requests received for that path.
+     */
+    public int hits(String path) {
+        AtomicInteger count = hits.get(path);
+        return count != null ? count.get() : 0;
+    }
+
+    /**
+     * @param path The request path below {@code /v3.1}, e.g. "/all" or "/name/France".
+     * @return The values of the {@code fields} parameter of the requests for that path, in order; "*" for requests
+     * without the parameter.
+     */
+    public List<String> requestedFields(String path) {
+        return requestedFields.getOrDefault(path, List.of());
+    }
+
+    public void resetHits() {
+        hits.clear();
+        requestedFields.clear();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = URLDecoder.decode(exchange.getRequestURI().getRawPath(), StandardCharsets.UTF_8)
+                .substring("/v3.1".length());
+        if (path.length() > 1 && path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        String fields = queryParameter(exchange, "fields");
+        hits.computeIfAbsent(path, p -> new AtomicInteger()).incrementAndGet();
+        requestedFields.computeIfAbsent(path, p -> new CopyOnWriteArrayList<>()).add(fields != null ? fields : "*");
+        sleep(latency);
+
+        int failure = pathFailures.getOrDefault(path, failureStatus);
+        if (failure != 0) {
+            respond(exchange, failure, MAPPER.createObjectNode().put("status", failure).put("message", "Injected failure"));
+        } else if (path.equals("/all") && fields != null && fields.split(",").length > MAX_ALL_FIELDS) {
+            respond(exchange, 400, MAPPER.createObjectNode().put("status", 400).put("message", "Bad Request"));
+        } else if (path.equals("/all")) {
+            respondConditionally(exchange, project(countries, fields));
+        } else if (path.startsWith("/name/")) {
+            ArrayNode matches = findByName(path.substring("/name/".length()));
+            if (matches.isEmpty()) {
+                respond(exchange, 404, MAPPER.createObjectNode().put("status", 404).put("message", "Not Found"));
+            } else {
+                respond(exchange, 200, project(matches, fields));
+            }
+        } else {
+            respond(exchange, 404, MAPPER.createObjectNode().put("status", 404).put("message", "Not Found"));
+        }
+    }
+
+    // like the upstream: the name is contained in the common or official name, a native name or an alternative spelling
+    private ArrayNode findByName(String name) {
+        String needle = name.toLowerCase(Locale.ROOT);
+        ArrayNode matches = MAPPER.createArrayNode();
+        for (JsonNode country : countries) {
+            List<String> names = new ArrayList<>();
+            JsonNode countryName = country.path("name");
+            names.add(countryName.path("common").asText());
+            names.add(countryName.path("official").asText());
+            for (JsonNode nativeName : countryName.path("nativeName")) {
+                names.add(nativeName.path("common").asText());
+                names.add(nativeName.path("official").asText());
+            }
+            for (JsonNode spelling : country.path("altSpellings")) {
+                names.add(spelling.asText());
+            }
+            if (names.stream().anyMatch(value -> value.toLowerCase(Locale.ROOT).contains(needle))) {
+                matches.add(country);
+            }
+        }
+        return matches;
+    }
+
+    // keeps only the requested top-level attributes, like the upstream's fields parameter
+    private static ArrayNode project(ArrayNode countries, String fields) {
+        if (fields == null) {
+            return countries;
+        }
+        List<String> names = List.of(fields.split(","));
+        ArrayNode projected = MAPPER.createArrayNode();
+        for (JsonNode country : countries) {
+            ObjectNode copy = projected.addObject();
+            for (String name : names) {
+                if (country.has(name)) {
+                    copy.set(name, country.get(name));
+                }
+            }
+        }
+        return projected;
+    }
+
+    private static String queryParameter(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String parameter : query.split("&")) {
+            int separator = parameter.indexOf('=');
+            if (separator > 0 && parameter.substring(0, separator).equals(name)) {
+                return URLDecoder.decode(parameter.substring(separator + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private void respondConditionally(HttpExchange exchange, JsonNode body) throws IOException {
+        if (!conditionalRequests) {
+            respond(exchange, 200, body);
+            return;
+        }
+        byte[] bytes = MAPPER.writeValueAsBytes(body);
+        String etag = "\"" + Integer.toHexString(Arrays.hashCode(bytes)) + "\"";
+        exchange.getResponseHeaders().set("ETag", etag);
+        if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+        respond(exchange, 200, body);
+    }
+
+    private static void respond(HttpExchange exchange, int status, JsonNode body) throws IOException {
+        byte[] bytes = MAPPER.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sleep(Duration duration) {
+        if (duration.isZero()) {
+            return;
+        }
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}